@@ -1,12 +1,22 @@
 // Main package for the application
 package com.foodordering.system;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
  * Concrete Command to add a food item to the shopping cart.
+ * Consecutive adds to the same cart can be merged by the CommandBus into one cart mutation.
+ * Only an add that reserved its item is journaled, so replay never restores a sold-out item.
  */
-class AddToCartCommand implements Command {
+class AddToCartCommand implements BatchableCommand, JournaledCommand {
+    private static final Logger LOGGER = Logger.getLogger(AddToCartCommand.class.getName());
+
     private FoodItem item;
     private ShoppingCart cart;
+    private boolean added; // Set once executed, alone or as part of a merged batch
 
     public AddToCartCommand(FoodItem item, ShoppingCart cart) {
         this.item = item;
@@ -15,7 +25,34 @@ class AddToCartCommand implements Command {
 
     @Override
     public void execute() {
-        cart.addItem(item);
-        System.out.println("Command: Added " + item.getName() + " to cart.");
+        added = cart.addItem(item);
+        LOGGER.log(Level.FINE, "Command: Added {0} to cart.", item.getName());
+    }
+
+    @Override
+    public void journal(CommandJournal journal) {
+        if (added) {
+            journal.appendAddToCart(cart.getCartId(), item.getFoodItemId(), 1);
+        }
+    }
+
+    @Override
+    public Object batchKey() {
+        return cart;
+    }
+
+    @Override
+    public Command merge(List<BatchableCommand> batch) {
+        List<FoodItem> merged = new ArrayList<>(batch.size());
+        for (BatchableCommand command : batch) {
+            merged.add(((AddToCartCommand) command).item);
+        }
+        return () -> {
+            boolean[] added = cart.addItems(merged);
+            for (int i = 0; i < added.length; i++) {
+                ((AddToCartCommand) batch.get(i)).added = added[i];
+            }
+            LOGGER.log(Level.FINE, "Command: Added {0,number,#} items to cart.", merged.size());
+        };
     }
 }
@@ -0,0 +1,265 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Admission control in front of OrderProcessor: sheds checkouts quickly, with a retry-after hint,
+ * before they can pile up on the database. A submission must pass, in order:
+ * <ol>
+ *   <li>a per-client rate limit ({@code foodordering.admission.clientPerMinute}, default 6, with a
+ *       burst of {@code foodordering.admission.clientBurst}, default 3),</li>
+ *   <li>a global rate limit ({@code foodordering.admission.globalPerSecond}, default 50, burst
+ *       {@code foodordering.admission.globalBurst}, default 100), and</li>
+ *   <li>a cap on concurrent submissions, at most {@code foodordering.admission.maxConcurrency}
+ *       (default 10). Each submission opens its own database connection, so this is also the most
+ *       connections checkout holds at once; size it to what the database can serve.</li>
+ * </ol>
+ * Rate limits use GCRA (the token bucket expressed as a single "theoretical arrival time"), so each
+ * check is one compare-and-set on an AtomicLong. The concurrency cap is a CAS on an AtomicInteger.
+ * Nothing locks, and a healthy system pays for a few uncontended atomics per order.
+ *
+ * The concurrency cap adapts to commit latency, gradient style: while latency stays near the best
+ * seen, the cap grows towards the maximum; as queueing in the database pushes latency up, the cap
+ * shrinks in proportion. Failed submissions (timeouts, lost connections) cut it by 10%.
+ */
+class AdmissionController {
+    private static final Logger LOGGER = Logger.getLogger(AdmissionController.class.getName());
+
+    private static final int MAX_TRACKED_CLIENTS = 10_000; // Idle clients are pruned beyond this
+    private static final int ADJUST_EVERY = 16;            // Latency samples between cap adjustments
+    private static final int MIN_LIMIT = 1;
+
+    /**
+     * A GCRA rate limit: {@code rate} per {@code periodNanos} with the given burst.
+     */
+    static final class RateLimit {
+        private final long emissionNanos; // Time one request "costs"
+        private final long toleranceNanos; // How far ahead of schedule a burst may run
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        RateLimit(double rate, long periodNanos, int burst) {
+            this.emissionNanos = (long) (periodNanos / rate);
+            this.toleranceNanos = emissionNanos * Math.max(0, burst - 1);
+        }
+
+        /**
+         * @return 0 if the request conforms (and is counted), otherwise nanoseconds until it would.
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long start = tat == Long.MIN_VALUE ? now : Math.max(tat, now);
+                long allowAt = start - toleranceNanos;
+                if (now < allowAt) {
+                    return allowAt - now;
+                }
+                if (theoreticalArrival.compareAndSet(tat, start + emissionNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Gives back a request counted by tryAcquire that was then refused by a later check.
+         */
+        void refund() {
+            theoreticalArrival.addAndGet(-emissionNanos);
+        }
+
+        boolean isIdle(long now) {
+            return theoreticalArrival.get() <= now;
+        }
+    }
+
+    private final Map<Long, RateLimit> clients = new ConcurrentHashMap<>();
+    private final double clientRatePerMinute;
+    private final int clientBurst;
+    private final RateLimit global;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double smoothedLimit;          // Only touched by the thread holding adjusting
+    private final AtomicBoolean adjusting = new AtomicBoolean();
+    private final AtomicLong latencyEwmaNanos = new AtomicLong();
+    private final AtomicLong bestLatencyNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong samples = new AtomicLong();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedClient = new LongAdder();
+    private final LongAdder rejectedGlobal = new LongAdder();
+    private final LongAdder rejectedConcurrency = new LongAdder();
+
+    public AdmissionController() {
+        this(Double.parseDouble(System.getProperty("foodordering.admission.clientPerMinute", "6")),
+                Integer.getInteger("foodordering.admission.clientBurst", 3),
+                Double.parseDouble(System.getProperty("foodordering.admission.globalPerSecond", "50")),
+                Integer.getInteger("foodordering.admission.globalBurst", 100),
+                Integer.getInteger("foodordering.admission.maxConcurrency", 10));
+    }
+
+    AdmissionController(double clientRatePerMinute, int clientBurst, double globalRatePerSecond, int globalBurst,
+                        int maxConcurrency) {
+        this.clientRatePerMinute = clientRatePerMinute;
+        this.clientBurst = clientBurst;
+        this.global = new RateLimit(globalRatePerSecond, TimeUnit.SECONDS.toNanos(1), globalBurst);
+        this.maxLimit = Math.max(MIN_LIMIT, maxConcurrency);
+        this.limit = maxLimit;
+        this.smoothedLimit = maxLimit;
+    }
+
+    /**
+     * Asks to submit one order for a client (e.g. a cart id). An admitted caller must call release().
+     * @return 0 if admitted, otherwise the suggested wait in milliseconds before retrying (at least 1).
+     */
+    public long tryAcquire(long clientId) {
+        return tryAcquire(clientId, System.nanoTime());
+    }
+
+    long tryAcquire(long clientId, long now) {
+        RateLimit client = clients.get(clientId);
+        if (client == null) {
+            if (clients.size() >= MAX_TRACKED_CLIENTS) {
+                pruneIdleClients(now);
+            }
+            client = clients.computeIfAbsent(clientId,
+                    id -> new RateLimit(clientRatePerMinute, TimeUnit.MINUTES.toNanos(1), clientBurst));
+        }
+        long wait = client.tryAcquire(now);
+        if (wait > 0) {
+            rejectedClient.increment();
+            return toRetryMillis(wait);
+        }
+        wait = global.tryAcquire(now);
+        if (wait > 0) {
+            client.refund();
+            rejectedGlobal.increment();
+            return toRetryMillis(wait);
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                client.refund();
+                global.refund();
+                rejectedConcurrency.increment();
+                // A slot frees up after about one commit
+                return toRetryMillis(Math.max(latencyEwmaNanos.get(), TimeUnit.MILLISECONDS.toNanos(100)));
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admitted.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted submission. Submissions that reached the database call recordSample first;
+     * shortcuts such as duplicates, rejected carts or outbox writes are released without a sample,
+     * so they neither pin the best latency nor count as overload.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Feeds the latency of one database write into the concurrency cap.
+     * @param latencyNanos How long the write took, retries included.
+     * @param succeeded false if it failed for a reason that suggests overload (e.g. a database timeout).
+     */
+    public void recordSample(long latencyNanos, boolean succeeded) {
+        recordLatency(latencyNanos);
+        long count = samples.incrementAndGet();
+        if ((count % ADJUST_EVERY == 0 || !succeeded) && adjusting.compareAndSet(false, true)) {
+            try {
+                adjustLimit(succeeded);
+            } finally {
+                adjusting.set(false);
+            }
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        while (true) {
+            long ewma = latencyEwmaNanos.get();
+            long next = ewma == 0 ? latencyNanos : ewma + (latencyNanos - ewma) / 8;
+            if (latencyEwmaNanos.compareAndSet(ewma, next)) {
+                break;
+            }
+        }
+        long best = bestLatencyNanos.get();
+        while (latencyNanos < best && !bestLatencyNanos.compareAndSet(best, latencyNanos)) {
+            best = bestLatencyNanos.get();
+        }
+    }
+
+    private void adjustLimit(boolean succeeded) {
+        double next;
+        if (!succeeded) {
+            next = smoothedLimit * 0.9;
+        } else {
+            long best = bestLatencyNanos.get();
+            long current = Math.max(1, latencyEwmaNanos.get());
+            // 1.0 while latency is at its best, smaller as requests queue up in the database
+            double gradient = Math.max(0.5, Math.min(1.0, (double) best / current));
+            next = smoothedLimit * gradient + Math.sqrt(smoothedLimit); // Headroom so the cap can grow back
+            next = smoothedLimit * 0.8 + next * 0.2;
+            // Let the baseline drift up slowly, so one lucky fast commit does not pin the cap low forever
+            bestLatencyNanos.compareAndSet(best, best + (current - best) / 512);
+        }
+        smoothedLimit = Math.max(MIN_LIMIT, Math.min(maxLimit, next));
+        int newLimit = (int) smoothedLimit;
+        if (newLimit != limit) {
+            LOGGER.fine("Order concurrency limit " + limit + " -> " + newLimit);
+            limit = newLimit;
+        }
+    }
+
+    private void pruneIdleClients(long now) {
+        Iterator<RateLimit> it = clients.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isIdle(now)) {
+                it.remove(); // A client whose bucket has refilled behaves exactly like a new one
+            }
+        }
+    }
+
+    private static long toRetryMillis(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos) + 1);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(latencyEwmaNanos.get());
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedClient.sum() + rejectedGlobal.sum() + rejectedConcurrency.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "admitted=" + admitted.sum() + ", rejected(client/global/concurrency)=" + rejectedClient.sum() + "/"
+                + rejectedGlobal.sum() + "/" + rejectedConcurrency.sum() + ", limit=" + limit + ", inFlight=" + inFlight.get()
+                + ", latencyMs=" + getLatencyMillis();
+    }
+}
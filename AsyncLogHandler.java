@@ -0,0 +1,367 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.text.MessageFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * java.util.logging handler that keeps logging off the calling thread. publish() only claims a slot
+ * in a bounded lock-free ring buffer ({@code foodordering.log.bufferSize}, default 8192 records) and
+ * returns; a background writer drains the ring in batches, formats the records (including any
+ * {@code {0}} message parameters, so callers should log with parameters rather than concatenating)
+ * and appends each batch to a rolling file in one write.
+ *
+ * When the ring is full the record is dropped rather than blocking checkout, and the writer logs a
+ * summary of how many were dropped, by level, with the last dropped WARNING or SEVERE message.
+ * Files roll over at {@code foodordering.log.maxBytes} (default 10 MB), keeping
+ * {@code foodordering.log.files} (default 5) generations in {@code foodordering.log.dir}
+ * (default "logs").
+ */
+class AsyncLogHandler extends Handler {
+    private static final String FILE_NAME = "foodordering.log";
+    private static final int BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /**
+     * A record and the name of the thread that logged it, captured before the hand-off.
+     */
+    private static class Entry {
+        final LogRecord record;
+        final String threadName;
+
+        Entry(LogRecord record, String threadName) {
+            this.record = record;
+            this.threadName = threadName;
+        }
+    }
+
+    // Bounded multi-producer, single-consumer ring. Slot i is free for the producer claiming position p
+    // when sequences[i] == p, and holds a record for the consumer at position p when it is p + 1.
+    private final int mask;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(); // Next position producers claim
+    private volatile long head;                       // Next position the writer reads; written by the writer only
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final Thread writer;
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private volatile boolean closed;
+    private final Map<String, MessageFormat> messageFormats = new HashMap<>(); // Parsed patterns; writer thread only
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder droppedSevere = new LongAdder();
+    private final LongAdder droppedWarning = new LongAdder();
+    private final LongAdder droppedOther = new LongAdder();
+    private final AtomicReference<LogRecord> lastDroppedImportant = new AtomicReference<>();
+    private long droppedReported; // Writer thread only
+
+    private OutputStream out;
+    private long fileBytes;
+
+    /**
+     * Creates the handler with settings from system properties and starts its writer thread.
+     */
+    AsyncLogHandler() throws IOException {
+        this(Paths.get(System.getProperty("foodordering.log.dir", "logs")), Integer.getInteger("foodordering.log.bufferSize", 8192),
+                Long.getLong("foodordering.log.maxBytes", 10L * 1024 * 1024), Integer.getInteger("foodordering.log.files", 5));
+    }
+
+    AsyncLogHandler(Path directory, int bufferSize, long maxBytes, int maxFiles) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1; // Next power of two
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        Files.createDirectories(directory);
+        openFile();
+        this.writer = new Thread(this::writeLoop, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Adds an AsyncLogHandler to the root logger and limits the synchronous console output to warnings.
+     * @return The installed handler.
+     */
+    static AsyncLogHandler install() throws IOException {
+        Logger root = Logger.getLogger("");
+        AsyncLogHandler handler = new AsyncLogHandler();
+        for (Handler existing : root.getHandlers()) {
+            if (existing instanceof ConsoleHandler) {
+                existing.setLevel(Level.WARNING);
+            }
+        }
+        root.addHandler(handler);
+        return handler;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        if (!offer(new Entry(record, Thread.currentThread().getName()))) {
+            int level = record.getLevel().intValue();
+            if (level >= Level.SEVERE.intValue()) {
+                droppedSevere.increment();
+            } else if (level >= Level.WARNING.intValue()) {
+                droppedWarning.increment();
+            } else {
+                droppedOther.increment();
+            }
+            if (level >= Level.WARNING.intValue()) {
+                lastDroppedImportant.set(record);
+            }
+            return;
+        }
+        published.increment();
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, entry);
+                    sequences.set(index, position + 1); // Publishes the slot to the writer
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false; // Full: the writer has not freed this slot yet
+            } else {
+                position = tail.get(); // Another producer took it
+            }
+        }
+    }
+
+    private Entry poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Entry entry = slots.get(index);
+        slots.lazySet(index, null);
+        sequences.set(index, head + mask + 1); // Frees the slot for the producer one lap ahead
+        head++;
+        return entry;
+    }
+
+    private void writeLoop() {
+        StringBuilder batch = new StringBuilder(64 * 1024);
+        while (true) {
+            boolean stopping = closed;
+            int count = 0;
+            Entry entry;
+            while (count < BATCH_SIZE && (entry = poll()) != null) {
+                format(entry, batch);
+                count++;
+            }
+            appendDropSummary(batch);
+            if (batch.length() > 0) {
+                write(batch);
+                batch.setLength(0);
+            }
+            if (count == BATCH_SIZE) {
+                continue; // More may be waiting
+            }
+            if (stopping) {
+                return; // Closed before this pass started, so everything published has been written
+            }
+            sleeping.set(true);
+            if (sequences.get((int) head & mask) != head + 1 && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            sleeping.set(false);
+        }
+    }
+
+    private void appendDropSummary(StringBuilder batch) {
+        long severe = droppedSevere.sum();
+        long warning = droppedWarning.sum();
+        long other = droppedOther.sum();
+        long total = severe + warning + other;
+        if (total == droppedReported) {
+            return;
+        }
+        batch.append(TIMESTAMP.format(LocalDateTime.now())).append(" WARNING [async-log-writer] ")
+                .append(AsyncLogHandler.class.getSimpleName()).append(" - ").append(total - droppedReported)
+                .append(" log records dropped because the buffer was full (total so far: ").append(severe)
+                .append(" SEVERE, ").append(warning).append(" WARNING, ").append(other).append(" other)");
+        LogRecord last = lastDroppedImportant.getAndSet(null);
+        if (last != null) {
+            batch.append("; last dropped: ").append(last.getLevel()).append(' ')
+                    .append(formatMessage(last));
+        }
+        batch.append(System.lineSeparator());
+        droppedReported = total;
+    }
+
+    private void format(Entry entry, StringBuilder batch) {
+        LogRecord record = entry.record;
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getMillis()), ZoneId.systemDefault());
+        String logger = record.getLoggerName();
+        batch.append(TIMESTAMP.format(time)).append(' ').append(record.getLevel().getName())
+                .append(" [").append(entry.threadName).append("] ")
+                .append(logger == null ? "" : logger.substring(logger.lastIndexOf('.') + 1)).append(" - ")
+                .append(formatMessage(record)) // Parameters are formatted here, off the caller's thread
+                .append(System.lineSeparator());
+        if (record.getThrown() != null) {
+            StringWriter trace = new StringWriter();
+            record.getThrown().printStackTrace(new PrintWriter(trace));
+            batch.append(trace);
+        }
+    }
+
+    /**
+     * Fills in {@code {0}}-style parameters like java.util.logging.Formatter does, but parses each
+     * pattern once instead of on every record.
+     */
+    private String formatMessage(LogRecord record) {
+        String pattern = record.getMessage();
+        Object[] params = record.getParameters();
+        if (pattern == null || params == null || params.length == 0 || pattern.indexOf('{') < 0) {
+            return pattern;
+        }
+        MessageFormat format = messageFormats.get(pattern);
+        if (format == null) {
+            if (messageFormats.size() >= 1024) {
+                messageFormats.clear(); // Patterns are string literals in practice; this only guards against misuse
+            }
+            try {
+                format = new MessageFormat(pattern);
+            } catch (IllegalArgumentException e) {
+                return pattern;
+            }
+            messageFormats.put(pattern, format);
+        }
+        return format.format(params);
+    }
+
+    private void write(StringBuilder batch) {
+        byte[] bytes = batch.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (fileBytes > 0 && fileBytes + bytes.length > maxBytes) {
+                roll();
+            }
+            out.write(bytes);
+            out.flush();
+            fileBytes += bytes.length;
+        } catch (IOException e) {
+            reportError("Could not write log batch.", e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * foodordering.log becomes foodordering.log.1, .1 becomes .2 and so on; the oldest is deleted.
+     */
+    private void roll() throws IOException {
+        out.close();
+        Files.deleteIfExists(directory.resolve(FILE_NAME + "." + (maxFiles - 1)));
+        for (int generation = maxFiles - 2; generation >= 1; generation--) {
+            Path older = directory.resolve(FILE_NAME + "." + generation);
+            if (Files.exists(older)) {
+                Files.move(older, directory.resolve(FILE_NAME + "." + (generation + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(directory.resolve(FILE_NAME), directory.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(directory.resolve(FILE_NAME));
+        }
+        openFile();
+    }
+
+    private void openFile() throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        fileBytes = Files.exists(file) ? Files.size(file) : 0;
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+    }
+
+    /**
+     * Batches are flushed as they are written; this only nudges the writer.
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Stops accepting records, waits for the writer to drain what was published and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            reportError("Could not close log file.", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedSevere.sum() + droppedWarning.sum() + droppedOther.sum();
+    }
+
+    /**
+     * @return Records published but not yet written.
+     */
+    public long getBacklog() {
+        return tail.get() - head;
+    }
+}
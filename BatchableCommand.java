@@ -0,0 +1,23 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.List;
+
+/**
+ * A Command that the CommandBus may merge with compatible commands queued right behind it.
+ * Commands are compatible when they are of the same class and report equal batch keys
+ * (for example, add-to-cart clicks targeting the same cart).
+ */
+interface BatchableCommand extends Command {
+    /**
+     * @return The key identifying which queued commands this one can be merged with.
+     */
+    Object batchKey();
+
+    /**
+     * Merges a run of compatible commands, in queue order and starting with this one, into a single command.
+     * @param batch The commands to merge; always contains at least this command.
+     * @return A command with the same effect as executing the whole batch in order.
+     */
+    Command merge(List<BatchableCommand> batch);
+}
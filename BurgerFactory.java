@@ -7,6 +7,6 @@ package com.foodordering.system;
 class BurgerFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Burgers");
+        return CategoryRegistry.BURGERS.createFoodItem(name, price, description);
     }
 }
@@ -0,0 +1,337 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incrementally prices one cart against a PromotionEngine. Each line caches its percentage discount
+ * and each BUY_X_GET_Y / COMBO deal caches its discount, so a quantity change only re-evaluates the
+ * rules indexed under that item and its category instead of every rule against every line.
+ *
+ * Pricing order: the best percentage rule for a line lowers its unit price, then deals are worked out
+ * on those unit prices. A unit counts towards at most one deal: the cached discount of each deal on
+ * its own only says which deals are candidates, and when the discount is asked for, the candidates
+ * take units in order of that discount, largest first, each from the units the earlier ones left.
+ * The total discount never exceeds the subtotal. Not thread-safe; ShoppingCart calls it under its own lock.
+ */
+class CartPricing {
+
+    /**
+     * One cart line and its cached percentage discount.
+     */
+    private static class Line {
+        FoodItem item;
+        int quantity;
+        Promotion percentRule; // Null when no percentage applies
+        double unitDiscount;   // From percentRule
+        int taken;             // Units already given to deals during allocateDeals
+    }
+
+    private static final Comparator<Line> CHEAPEST_FIRST = (a, b) -> Double.compare(unitPrice(a), unitPrice(b));
+
+    private final PromotionEngine engine;
+    private PromotionEngine.RuleSet rules;
+    private final Map<Integer, Line> lines = new HashMap<>();                 // FoodItemID -> line
+    private final Map<Integer, Set<Integer>> linesByCategory = new HashMap<>(); // CategoryID -> FoodItemIDs in the cart
+    private final Map<Promotion, Double> dealDiscounts = new HashMap<>();     // Only deals worth something on their own
+    private final Map<Promotion, Double> allocatedDeals = new LinkedHashMap<>(); // dealDiscounts once units are shared out
+    private boolean allocationStale;
+    private int ruleEvaluations; // For benchmarks: deal evaluations since creation
+
+    CartPricing(PromotionEngine engine) {
+        this.engine = engine;
+        this.rules = engine.activeRules();
+    }
+
+    /**
+     * Records the new quantity of a line and reprices the rules that depend on it.
+     * @param quantity The line's quantity now; 0 removes it.
+     */
+    void update(FoodItem item, int quantity) {
+        refreshRules(); // A full reprice uses the old line; the change is applied on top
+        allocationStale = true;
+        int foodItemId = item.getFoodItemId();
+        Line line = lines.get(foodItemId);
+        int previousCategory = line == null ? -1 : line.item.getCategoryId();
+        if (quantity <= 0) {
+            if (line == null) {
+                return;
+            }
+            lines.remove(foodItemId);
+            unindex(foodItemId, previousCategory);
+        } else {
+            if (line == null) {
+                line = new Line();
+                lines.put(foodItemId, line);
+            } else if (previousCategory != item.getCategoryId()) {
+                unindex(foodItemId, previousCategory);
+            }
+            line.item = item; // May carry a refreshed price
+            line.quantity = quantity;
+            linesByCategory.computeIfAbsent(item.getCategoryId(), id -> new HashSet<>()).add(foodItemId);
+            applyPercent(line);
+        }
+        for (Promotion deal : rules.dealsFor(foodItemId, item.getCategoryId())) {
+            evaluate(deal);
+        }
+        if (previousCategory >= 0 && previousCategory != item.getCategoryId()) {
+            for (Promotion deal : rules.dealsFor(foodItemId, previousCategory)) {
+                evaluate(deal);
+            }
+        }
+    }
+
+    /**
+     * Empties the pricing along with the cart.
+     */
+    void clear() {
+        lines.clear();
+        linesByCategory.clear();
+        dealDiscounts.clear();
+        allocatedDeals.clear();
+        allocationStale = false;
+    }
+
+    /**
+     * @return The sum of list price times quantity.
+     */
+    double getSubtotal() {
+        double subtotal = 0.0;
+        for (Line line : lines.values()) {
+            subtotal += line.item.getPrice() * line.quantity;
+        }
+        return subtotal;
+    }
+
+    /**
+     * @return The total discount under the rules active now, capped at the subtotal.
+     */
+    double getDiscount() {
+        refreshRules();
+        double discount = 0.0;
+        for (Line line : lines.values()) {
+            discount += line.unitDiscount * line.quantity;
+        }
+        allocateDeals();
+        for (double deal : allocatedDeals.values()) {
+            discount += deal;
+        }
+        return Math.min(discount, getSubtotal());
+    }
+
+    /**
+     * @return Each promotion that currently lowers the price, with the amount it saves, for display.
+     */
+    Map<Promotion, Double> getAppliedPromotions() {
+        refreshRules();
+        Map<Promotion, Double> applied = new LinkedHashMap<>();
+        for (Line line : lines.values()) {
+            if (line.percentRule != null) {
+                applied.merge(line.percentRule, line.unitDiscount * line.quantity, Double::sum);
+            }
+        }
+        allocateDeals();
+        applied.putAll(allocatedDeals);
+        return applied;
+    }
+
+    int getRuleEvaluations() {
+        return ruleEvaluations;
+    }
+
+    /**
+     * Switches to the engine's current rules; a different RuleSet (a time window opened or closed,
+     * or the rules were reloaded) means every cached discount is repriced.
+     */
+    private void refreshRules() {
+        PromotionEngine.RuleSet latest = engine.activeRules();
+        if (latest == rules) {
+            return;
+        }
+        rules = latest;
+        dealDiscounts.clear();
+        allocationStale = true;
+        Set<Promotion> deals = new HashSet<>();
+        for (Line line : lines.values()) {
+            applyPercent(line);
+            deals.addAll(rules.dealsFor(line.item.getFoodItemId(), line.item.getCategoryId()));
+        }
+        for (Promotion deal : deals) {
+            evaluate(deal);
+        }
+    }
+
+    private void unindex(int foodItemId, int categoryId) {
+        Set<Integer> ids = linesByCategory.get(categoryId);
+        if (ids != null) {
+            ids.remove(foodItemId);
+            if (ids.isEmpty()) {
+                linesByCategory.remove(categoryId);
+            }
+        }
+    }
+
+    private void applyPercent(Line line) {
+        line.percentRule = rules.percentFor(line.item);
+        line.unitDiscount = line.percentRule == null ? 0.0 : line.item.getPrice() * line.percentRule.getPercentOff() / 100.0;
+    }
+
+    private static double unitPrice(Line line) {
+        return line.item.getPrice() - line.unitDiscount;
+    }
+
+    /**
+     * Works out one deal on its own from the lines it covers and caches the result.
+     */
+    private void evaluate(Promotion deal) {
+        ruleEvaluations++;
+        double discount = apply(deal);
+        if (discount > 0) {
+            dealDiscounts.put(deal, discount);
+        } else {
+            dealDiscounts.remove(deal);
+        }
+    }
+
+    /**
+     * Shares the cart's units out between the candidate deals, largest saving first (then by
+     * promotion ID, so the result is stable), after a line or the rules changed. Sharing can only
+     * lower a deal's discount, so deals not worth anything on their own are never candidates.
+     */
+    private void allocateDeals() {
+        if (!allocationStale) {
+            return;
+        }
+        allocatedDeals.clear();
+        List<Map.Entry<Promotion, Double>> candidates = new ArrayList<>(dealDiscounts.entrySet());
+        candidates.sort((a, b) -> {
+            int bySaving = Double.compare(b.getValue(), a.getValue());
+            return bySaving != 0 ? bySaving : Integer.compare(a.getKey().getPromotionId(), b.getKey().getPromotionId());
+        });
+        // Each category's lines, cheapest first, shared by every category deal of this pass
+        Map<Integer, List<Line>> byCategory = new HashMap<>();
+        for (Line line : lines.values()) {
+            line.taken = 0;
+            byCategory.computeIfAbsent(line.item.getCategoryId(), id -> new ArrayList<>()).add(line);
+        }
+        for (List<Line> categoryLines : byCategory.values()) {
+            categoryLines.sort(CHEAPEST_FIRST);
+        }
+        for (Map.Entry<Promotion, Double> candidate : candidates) {
+            ruleEvaluations++;
+            Promotion deal = candidate.getKey();
+            double discount;
+            if (deal.getKind() == Promotion.Kind.COMBO) {
+                discount = applyCombo(deal, true);
+            } else if (deal.getFoodItemId() != 0) {
+                Line line = lines.get(deal.getFoodItemId());
+                discount = line == null ? 0.0 : applyBuyXGetY(deal, Collections.singletonList(line), true);
+            } else {
+                discount = applyBuyXGetY(deal, byCategory.getOrDefault(deal.getCategoryId(), Collections.emptyList()), true);
+            }
+            if (discount > 0) {
+                allocatedDeals.put(candidate.getKey(), discount);
+            }
+        }
+        allocationStale = false;
+    }
+
+    /**
+     * Works out a deal on its own from the lines it covers.
+     * @return The deal's discount.
+     */
+    private double apply(Promotion deal) {
+        if (deal.getKind() == Promotion.Kind.COMBO) {
+            return applyCombo(deal, false);
+        }
+        List<Line> matching = new ArrayList<>();
+        if (deal.getFoodItemId() != 0) {
+            Line line = lines.get(deal.getFoodItemId());
+            if (line != null) {
+                matching.add(line);
+            }
+        } else {
+            Set<Integer> ids = linesByCategory.get(deal.getCategoryId());
+            if (ids != null) {
+                for (Integer id : ids) {
+                    matching.add(lines.get(id));
+                }
+            }
+        }
+        return applyBuyXGetY(deal, matching, false);
+    }
+
+    /**
+     * @param allocating true to use only the units earlier deals left (Line.taken) and take this deal's
+     *                   units from them; false to work out the deal on its own without recording anything.
+     */
+    private static int available(Line line, boolean allocating) {
+        return allocating ? line.quantity - line.taken : line.quantity;
+    }
+
+    /**
+     * @param matching The lines the deal covers; when allocating, already sorted cheapest first.
+     */
+    private static double applyBuyXGetY(Promotion deal, List<Line> matching, boolean allocating) {
+        int units = 0;
+        for (Line line : matching) {
+            units += available(line, allocating);
+        }
+        int groups = units / (deal.getBuyQuantity() + deal.getFreeQuantity());
+        int free = groups * deal.getFreeQuantity();
+        if (free == 0) {
+            return 0.0;
+        }
+        // The cheapest units are the free ones; the deal takes its whole groups from the cheapest up
+        if (!allocating) {
+            matching.sort(CHEAPEST_FIRST);
+        }
+        int toTake = groups * (deal.getBuyQuantity() + deal.getFreeQuantity());
+        double discount = 0.0;
+        for (Line line : matching) {
+            int taken = Math.min(toTake, available(line, allocating));
+            int freeHere = Math.min(free, taken);
+            discount += freeHere * unitPrice(line);
+            free -= freeHere;
+            toTake -= taken;
+            if (allocating) {
+                line.taken += taken;
+            }
+            if (toTake == 0) {
+                break;
+            }
+        }
+        return discount;
+    }
+
+    private double applyCombo(Promotion deal, boolean allocating) {
+        int sets = Integer.MAX_VALUE;
+        double setPrice = 0.0;
+        for (Map.Entry<Integer, Integer> component : deal.getBundleItems().entrySet()) {
+            Line line = lines.get(component.getKey());
+            if (line == null) {
+                return 0.0;
+            }
+            sets = Math.min(sets, available(line, allocating) / component.getValue());
+            setPrice += unitPrice(line) * component.getValue();
+        }
+        double saving = Math.max(0.0, setPrice - deal.getBundlePrice());
+        if (sets == 0 || saving == 0) {
+            return 0.0;
+        }
+        if (allocating) {
+            for (Map.Entry<Integer, Integer> component : deal.getBundleItems().entrySet()) {
+                lines.get(component.getKey()).taken += sets * component.getValue();
+            }
+        }
+        return sets * saving;
+    }
+}
@@ -0,0 +1,105 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of current catalog items keyed by FoodItemID, used to revalidate carts.
+ * Entries expire after a TTL ({@code foodordering.catalog.ttlMillis}, default 30 s). All misses of
+ * a lookup are loaded together with one IN-list query, and IDs the database does not know are cached
+ * as absent too, so a cart full of deleted items does not hit the database on every checkout.
+ */
+class CatalogCache {
+    private static final long DEFAULT_TTL_MILLIS = Long.getLong("foodordering.catalog.ttlMillis", 30_000L);
+
+    /**
+     * A cached lookup result; item is null when the ID does not exist.
+     */
+    private static class Entry {
+        final FoodItem item;
+        final long expiresAtNanos;
+
+        Entry(FoodItem item, long expiresAtNanos) {
+            this.item = item;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final FoodItemDAO foodItemDAO;
+    private final long ttlNanos;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    public CatalogCache(FoodItemDAO foodItemDAO) {
+        this(foodItemDAO, DEFAULT_TTL_MILLIS);
+    }
+
+    public CatalogCache(FoodItemDAO foodItemDAO, long ttlMillis) {
+        this.foodItemDAO = foodItemDAO;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Returns the current items for the given IDs, loading every missing or expired entry in one query.
+     * @return The items found, keyed by ID; IDs that do not exist are absent from the map.
+     * @throws SQLException If the misses could not be loaded.
+     */
+    public Map<Integer, FoodItem> getAll(Collection<Integer> foodItemIds) throws SQLException {
+        Map<Integer, FoodItem> found = new HashMap<>();
+        List<Integer> misses = null;
+        long now = System.nanoTime();
+        for (Integer id : foodItemIds) {
+            Entry entry = entries.get(id);
+            if (entry == null || now - entry.expiresAtNanos > 0) {
+                if (misses == null) {
+                    misses = new ArrayList<>();
+                }
+                misses.add(id);
+            } else if (entry.item != null) {
+                found.put(id, entry.item);
+            }
+        }
+        if (misses != null) {
+            Map<Integer, FoodItem> loaded = foodItemDAO.getFoodItemsByIds(misses);
+            long expiresAt = System.nanoTime() + ttlNanos;
+            for (Integer id : misses) {
+                FoodItem item = loaded.get(id);
+                entries.put(id, new Entry(item, expiresAt));
+                if (item != null) {
+                    found.put(id, item);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Seeds the cache with items that were just read from the database (e.g. the menu at startup).
+     */
+    public void putAll(Collection<FoodItem> items) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        for (FoodItem item : items) {
+            entries.put(item.getFoodItemId(), new Entry(item, expiresAt));
+        }
+    }
+
+    /**
+     * Drops one item so the next lookup reloads it.
+     */
+    public void invalidate(int foodItemId) {
+        entries.remove(foodItemId);
+    }
+
+    /**
+     * Drops every cached item.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,57 @@
+// Main package for the application
+package com.foodordering.system;
+
+/**
+ * One item or category that changed in the catalog, carrying its current state.
+ * Produced by CatalogChangePoller; several changes to the same row are collapsed into the latest.
+ */
+class CatalogChange {
+    enum Kind {
+        ITEM_UPSERTED, ITEM_DELETED, CATEGORY_UPSERTED, CATEGORY_DELETED
+    }
+
+    private final Kind kind;
+    private final long changeId;
+    private final int foodItemId; // 0 for category changes
+    private final int categoryId;
+    private final FoodItem item; // Current item for ITEM_UPSERTED, otherwise null
+    private final String categoryName; // Current name for CATEGORY_UPSERTED, otherwise null
+
+    CatalogChange(Kind kind, long changeId, int foodItemId, int categoryId, FoodItem item, String categoryName) {
+        this.kind = kind;
+        this.changeId = changeId;
+        this.foodItemId = foodItemId;
+        this.categoryId = categoryId;
+        this.item = item;
+        this.categoryName = categoryName;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getChangeId() {
+        return changeId;
+    }
+
+    public int getFoodItemId() {
+        return foodItemId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public FoodItem getItem() {
+        return item;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (foodItemId != 0 ? " item " + foodItemId : " category " + categoryId) + " @" + changeId;
+    }
+}
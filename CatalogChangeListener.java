@@ -0,0 +1,15 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.List;
+
+/**
+ * Observer for live catalog changes published by CatalogChangePoller.
+ */
+interface CatalogChangeListener {
+    /**
+     * Called on the poller thread with the changes found in one poll, oldest first.
+     * @param changes The changed items and categories with their current state.
+     */
+    void catalogChanged(List<CatalogChange> changes);
+}
@@ -0,0 +1,215 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Polls the catalog change feed (CatalogVersion + CatalogChanges, see migrations V2 and V5) and
+ * publishes only what changed to CatalogChangeListeners. A quiet poll is a single-row primary key
+ * read of CatalogVersion; only when the version moved are the CatalogChanges rows after the last
+ * seen ChangeID fetched, already joined to the current item and category rows. Only changes of
+ * one restaurant are published (see migration V9); other branches' changes are skipped over.
+ * The interval comes from {@code foodordering.catalog.pollMillis} (default 2000).
+ */
+class CatalogChangePoller {
+    private static final Logger LOGGER = Logger.getLogger(CatalogChangePoller.class.getName());
+
+    private static final String VERSION_SQL = "SELECT Version FROM CatalogVersion WHERE CatalogVersionID = 1";
+    private static final String WATERMARK_SQL = "SELECT COALESCE(MAX(ChangeID), 0) FROM CatalogChanges";
+    private static final String CHANGES_SQL =
+            "SELECT ch.ChangeID, ch.FoodItemID, ch.CategoryID, " +
+            "       f.FoodItemID AS CurrentItemID, f.Name, f.Price, f.Description, f.CategoryID AS ItemCategoryID, " +
+            "       c.CategoryID AS CurrentCategoryID, c.CategoryName " +
+            "FROM CatalogChanges ch " +
+            "LEFT JOIN FoodItems f ON f.FoodItemID = ch.FoodItemID " +
+            "LEFT JOIN Categories c ON c.CategoryID = COALESCE(f.CategoryID, ch.CategoryID) " +
+            "WHERE ch.ChangeID > ? AND ch.ChangeID <= ? AND ch.RestaurantID = ? ORDER BY ch.ChangeID";
+
+    private final List<CatalogChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final int restaurantId;
+    private final long pollMillis;
+    private ScheduledExecutorService scheduler;
+    private long lastVersion = -1;
+    private long lastChangeId; // Watermark: every change up to here has been published
+    private boolean failing; // Log outages once, not on every poll
+
+    public CatalogChangePoller() {
+        this(FoodItemDAO.DEFAULT_RESTAURANT_ID);
+    }
+
+    /**
+     * @param restaurantId The restaurant whose catalog changes are published.
+     */
+    public CatalogChangePoller(int restaurantId) {
+        this(restaurantId, Long.getLong("foodordering.catalog.pollMillis", 2000L));
+    }
+
+    public CatalogChangePoller(int restaurantId, long pollMillis) {
+        this.restaurantId = restaurantId;
+        this.pollMillis = pollMillis;
+    }
+
+    public void addListener(CatalogChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CatalogChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records the current version and change watermark. Call right before loading the menu so that
+     * every later change is published and nothing already loaded is replayed.
+     * @throws SQLException If the change feed tables cannot be read.
+     */
+    public synchronized void initialize() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            lastVersion = readVersion(conn);
+            lastChangeId = readWatermark(conn);
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Starts polling in the background.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-change-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+            if (failing) {
+                LOGGER.info("Catalog change feed is reachable again.");
+                failing = false;
+            }
+        } catch (SQLException e) {
+            if (!failing) {
+                LOGGER.log(Level.WARNING, "Catalog change poll failed; will keep retrying.", e);
+                failing = true;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Catalog change listener failed.", e);
+        }
+    }
+
+    /**
+     * Runs one poll and publishes any changes.
+     * @return The changes published (empty if the catalog did not change).
+     * @throws SQLException If the feed could not be read.
+     */
+    public synchronized List<CatalogChange> poll() throws SQLException {
+        List<CatalogChange> changes;
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            long version = readVersion(conn);
+            if (version == lastVersion) {
+                return new ArrayList<>();
+            }
+            // Bound the read by the current watermark and advance to it, so changes of other
+            // restaurants are never scanned again
+            long watermark = readWatermark(conn);
+            changes = readChanges(conn, watermark);
+            lastVersion = version;
+            lastChangeId = watermark;
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+        if (!changes.isEmpty()) {
+            LOGGER.fine("Publishing " + changes.size() + " catalog changes up to ChangeID " + lastChangeId);
+            for (CatalogChangeListener listener : listeners) {
+                listener.catalogChanged(changes);
+            }
+        }
+        return changes;
+    }
+
+    private static long readVersion(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(VERSION_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static long readWatermark(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(WATERMARK_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Reads this restaurant's log between the last and the new watermark and collapses repeated changes to one row into its latest
+     * state, ordered by the ChangeID of that latest change.
+     */
+    private List<CatalogChange> readChanges(Connection conn, long watermark) throws SQLException {
+        Map<String, CatalogChange> latest = new LinkedHashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(CHANGES_SQL)) {
+            pstmt.setLong(1, lastChangeId);
+            pstmt.setLong(2, watermark);
+            pstmt.setInt(3, restaurantId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    long changeId = rs.getLong("ChangeID");
+                    int foodItemId = rs.getInt("FoodItemID");
+                    boolean itemChange = !rs.wasNull();
+                    int categoryId = rs.getInt("CategoryID");
+                    CatalogChange change;
+                    if (itemChange) {
+                        rs.getInt("CurrentItemID");
+                        if (rs.wasNull()) {
+                            change = new CatalogChange(CatalogChange.Kind.ITEM_DELETED, changeId, foodItemId, categoryId, null, null);
+                        } else {
+                            int itemCategoryId = rs.getInt("ItemCategoryID");
+                            FoodItem item = new FoodItem(foodItemId, rs.getString("Name"), rs.getDouble("Price"),
+                                    rs.getString("Description"), rs.getString("CategoryName"), itemCategoryId);
+                            change = new CatalogChange(CatalogChange.Kind.ITEM_UPSERTED, changeId, foodItemId, itemCategoryId, item, null);
+                        }
+                    } else {
+                        rs.getInt("CurrentCategoryID");
+                        change = rs.wasNull()
+                                ? new CatalogChange(CatalogChange.Kind.CATEGORY_DELETED, changeId, 0, categoryId, null, null)
+                                : new CatalogChange(CatalogChange.Kind.CATEGORY_UPSERTED, changeId, 0, categoryId, null, rs.getString("CategoryName"));
+                    }
+                    String key = (itemChange ? "I" : "C") + (itemChange ? foodItemId : categoryId);
+                    latest.remove(key); // Re-insert so the order follows the latest change
+                    latest.put(key, change);
+                }
+            }
+        }
+        return new ArrayList<>(latest.values());
+    }
+}
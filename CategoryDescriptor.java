@@ -0,0 +1,40 @@
+// Main package for the application
+package com.foodordering.system;
+
+/**
+ * The shared description of one menu category: its name as stored in the Categories table and the
+ * template for its packaging message. There is one instance per built-in or database category name,
+ * interned by CategoryRegistry, so every FoodItem of such a category references the same descriptor
+ * instead of its own name string. Items built with a name the registry does not know get their own.
+ * A descriptor is also the FoodItemFactory for its category.
+ */
+final class CategoryDescriptor implements FoodItemFactory {
+    private final String name;
+    private final PackagingTemplate packaging;
+
+    CategoryDescriptor(String name, PackagingTemplate packaging) {
+        this.name = name;
+        this.packaging = packaging;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The template for the message shown when an item of this category is packaged, e.g. added to the cart.
+     */
+    public PackagingTemplate getPackaging() {
+        return packaging;
+    }
+
+    @Override
+    public FoodItem createFoodItem(String itemName, double price, String description) {
+        return new FoodItem(itemName, price, description, this);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
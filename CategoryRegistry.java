@@ -0,0 +1,168 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Interns one CategoryDescriptor per category and maps CategoryIDs to them.
+ * The built-in categories are also known under the names the code used to spell differently from
+ * the database ("Wraps & Rolls" for "Wrap & Rolls", "Cold Drinks / Beverages" for "Cold Drinks").
+ * Only names read from the Categories table are interned, so the registry is bounded by that table;
+ * any other name gets a descriptor of its own that is not remembered. Several CategoryIDs can share
+ * a descriptor, e.g. "Burgers" at each restaurant.
+ * Packaging templates are read once from {@code foodordering.packaging.file} (default
+ * packaging.properties), keyed by category name, with "default" for categories it does not list.
+ * The file is looked up in the working directory first, then as a classpath resource, so a packaged
+ * application started from elsewhere still finds it.
+ */
+final class CategoryRegistry {
+    private static final Logger LOGGER = Logger.getLogger(CategoryRegistry.class.getName());
+    private static final String PACKAGING_FILE = System.getProperty("foodordering.packaging.file", "packaging.properties");
+    private static final PackagingTemplate DEFAULT_PACKAGING = PackagingTemplate.parse("{item} has been thoughtfully packaged for your order!");
+
+    private static final CategoryRegistry INSTANCE = new CategoryRegistry(PACKAGING_FILE);
+
+    static final CategoryDescriptor BURGERS = INSTANCE.builtIn("Burgers");
+    static final CategoryDescriptor PIZZAS = INSTANCE.builtIn("Pizzas");
+    static final CategoryDescriptor COLD_DRINKS = INSTANCE.builtIn("Cold Drinks", "Cold Drinks / Beverages");
+    static final CategoryDescriptor DESSERTS = INSTANCE.builtIn("Desserts");
+    static final CategoryDescriptor FRIED_CHICKEN = INSTANCE.builtIn("Fried Chicken");
+    static final CategoryDescriptor FRIES = INSTANCE.builtIn("Fries");
+    static final CategoryDescriptor NOODLES = INSTANCE.builtIn("Noodles");
+    static final CategoryDescriptor SALADS = INSTANCE.builtIn("Salads");
+    static final CategoryDescriptor SANDWICHES = INSTANCE.builtIn("Sandwiches");
+    static final CategoryDescriptor WRAPS_AND_ROLLS = INSTANCE.builtIn("Wrap & Rolls", "Wraps & Rolls");
+
+    private final Map<String, PackagingTemplate> packaging = new HashMap<>(); // Normalised name -> template; read-only after construction
+    private final PackagingTemplate defaultPackaging;
+    private final Map<String, CategoryDescriptor> byName = new ConcurrentHashMap<>(); // Normalised name or alias
+    private final Map<Integer, CategoryDescriptor> byId = new ConcurrentHashMap<>();
+
+    private CategoryRegistry(String packagingFile) {
+        Properties templates = loadTemplates(packagingFile);
+        for (String name : templates.stringPropertyNames()) {
+            packaging.put(key(name), PackagingTemplate.parse(templates.getProperty(name)));
+        }
+        defaultPackaging = packaging.getOrDefault("default", DEFAULT_PACKAGING);
+    }
+
+    /**
+     * Reads the packaging templates from the file, or else from the classpath resource of that name.
+     * @return The templates found; empty if there are none, so every category uses the built-in message.
+     */
+    private static Properties loadTemplates(String packagingFile) {
+        Properties templates = new Properties();
+        try {
+            Path path = Paths.get(packagingFile);
+            if (Files.exists(path)) {
+                try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    templates.load(in);
+                }
+                return templates;
+            }
+            InputStream resource = CategoryRegistry.class.getClassLoader().getResourceAsStream(packagingFile);
+            if (resource != null) {
+                try (Reader in = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+                    templates.load(in);
+                }
+                return templates;
+            }
+            LOGGER.warning("No packaging templates found at " + path.toAbsolutePath() + " or on the classpath as "
+                    + packagingFile + "; every category uses the default message.");
+        } catch (IOException | IllegalArgumentException e) { // Also an invalid path or a malformed escape in the file
+            LOGGER.log(Level.WARNING, "Could not read packaging templates from " + packagingFile + "; using the default message.", e);
+        }
+        return templates;
+    }
+
+    static CategoryRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return The template for items without a category.
+     */
+    PackagingTemplate getDefaultPackaging() {
+        return defaultPackaging;
+    }
+
+    private CategoryDescriptor builtIn(String name, String... aliases) {
+        PackagingTemplate template = packaging.get(key(name));
+        for (int i = 0; template == null && i < aliases.length; i++) {
+            template = packaging.get(key(aliases[i]));
+        }
+        CategoryDescriptor descriptor = new CategoryDescriptor(name, template == null ? defaultPackaging : template);
+        byName.put(key(name), descriptor);
+        for (String alias : aliases) {
+            byName.put(key(alias), descriptor);
+        }
+        return descriptor;
+    }
+
+    /**
+     * @return The interned descriptor for a category name or alias, or else a new one that is not
+     *         interned; null for a null name.
+     */
+    CategoryDescriptor forName(String name) {
+        if (name == null) {
+            return null;
+        }
+        CategoryDescriptor known = byName.get(key(name));
+        return known != null ? known : newDescriptor(name);
+    }
+
+    private CategoryDescriptor newDescriptor(String name) {
+        return new CategoryDescriptor(name, packaging.getOrDefault(key(name), defaultPackaging));
+    }
+
+    /**
+     * @return The descriptor for a built-in or registered category name or alias, or null.
+     */
+    CategoryDescriptor find(String name) {
+        return name == null ? null : byName.get(key(name));
+    }
+
+    /**
+     * @return The descriptor the CategoryID was last registered with, or null.
+     */
+    CategoryDescriptor forId(int categoryId) {
+        return byId.get(categoryId);
+    }
+
+    /**
+     * Associates a CategoryID with its name, as read from the database, and returns the shared descriptor,
+     * interning the name if it is new. Repeated calls for the same ID and name only cost a map lookup;
+     * a renamed category is re-associated.
+     * @param categoryId The CategoryID, or 0 for items not from the database, whose name is not interned.
+     */
+    CategoryDescriptor register(int categoryId, String name) {
+        if (categoryId <= 0 || name == null) {
+            return forName(name);
+        }
+        CategoryDescriptor known = byId.get(categoryId);
+        if (known != null && known.getName().equals(name)) {
+            return known;
+        }
+        CategoryDescriptor descriptor = byName.computeIfAbsent(key(name), k -> newDescriptor(name));
+        byId.put(categoryId, descriptor);
+        return descriptor;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,151 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Revalidates every cart line against the current catalog before an order is written, so a stale
+ * client (or a FoodWrapper copy holding an old price) cannot submit outdated prices or items that
+ * no longer exist. All lines are checked with one catalog lookup, against either a CatalogCache or
+ * one restaurant's segment of a TenantCatalogCache.
+ */
+class CheckoutValidator {
+    private static final Logger LOGGER = Logger.getLogger(CheckoutValidator.class.getName());
+
+    /**
+     * A problem found with one cart line.
+     */
+    static class LineIssue {
+        enum Kind {
+            PRICE_CHANGED, UNAVAILABLE, OUT_OF_STOCK
+        }
+
+        final FoodItem cartItem;
+        final Kind kind;
+        final FoodItem currentItem; // Null when the item is unavailable or out of stock
+
+        LineIssue(FoodItem cartItem, Kind kind, FoodItem currentItem) {
+            this.cartItem = cartItem;
+            this.kind = kind;
+            this.currentItem = currentItem;
+        }
+
+        public FoodItem getCartItem() {
+            return cartItem;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public FoodItem getCurrentItem() {
+            return currentItem;
+        }
+
+        @Override
+        public String toString() {
+            if (kind == Kind.UNAVAILABLE) {
+                return cartItem.getName() + " is no longer available.";
+            }
+            if (kind == Kind.OUT_OF_STOCK) {
+                return cartItem.getName() + " has sold out.";
+            }
+            return String.format("%s now costs $%.2f (was $%.2f in your cart).",
+                    cartItem.getName(), currentItem.getPrice(), cartItem.getPrice());
+        }
+    }
+
+    /**
+     * Outcome of validating one cart.
+     */
+    static class Result {
+        private final List<LineIssue> issues;
+        private final boolean verified;
+
+        Result(List<LineIssue> issues, boolean verified) {
+            this.issues = issues;
+            this.verified = verified;
+        }
+
+        /**
+         * @return true if no line has a price or availability problem.
+         */
+        public boolean isValid() {
+            return issues.isEmpty();
+        }
+
+        /**
+         * @return false if the catalog could not be reached and the cart was accepted unchecked.
+         */
+        public boolean isVerified() {
+            return verified;
+        }
+
+        public List<LineIssue> getIssues() {
+            return issues;
+        }
+    }
+
+    /**
+     * Source of the current items: the items found for the IDs, keyed by ID.
+     */
+    private interface Catalog {
+        Map<Integer, FoodItem> getAll(Collection<Integer> foodItemIds) throws SQLException;
+    }
+
+    private final Catalog catalog;
+
+    public CheckoutValidator(CatalogCache catalog) {
+        this((Catalog) catalog::getAll);
+    }
+
+    /**
+     * Validates carts against one restaurant's menu.
+     */
+    public CheckoutValidator(TenantCatalogCache catalog, int restaurantId) {
+        this(ids -> catalog.getAll(restaurantId, ids));
+    }
+
+    private CheckoutValidator(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Checks each cart line's price and availability against the catalog.
+     * If the catalog cannot be read (database outage) the cart is let through unverified, so orders
+     * can still be accepted into the OrderOutbox.
+     * @param items The cart lines to check.
+     * @return The per-line issues found.
+     */
+    public Result validate(Map<FoodItem, Integer> items) {
+        List<Integer> ids = new ArrayList<>(items.size());
+        for (FoodItem item : items.keySet()) {
+            ids.add(item.getFoodItemId());
+        }
+        Map<Integer, FoodItem> current;
+        try {
+            current = catalog.getAll(ids);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not revalidate cart against the catalog; accepting it unverified.", e);
+            return new Result(Collections.emptyList(), false);
+        }
+
+        List<LineIssue> issues = new ArrayList<>();
+        for (FoodItem item : items.keySet()) {
+            FoodItem latest = current.get(item.getFoodItemId());
+            if (latest == null) {
+                issues.add(new LineIssue(item, LineIssue.Kind.UNAVAILABLE, null));
+            } else if (Math.round(latest.getPrice() * 100) != Math.round(item.getPrice() * 100)) {
+                issues.add(new LineIssue(item, LineIssue.Kind.PRICE_CHANGED, latest));
+            }
+        }
+        return new Result(issues, true);
+    }
+}
@@ -0,0 +1,210 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Circuit breaker for database access. Outcomes of the last {@code windowSize} calls (connection
+ * attempts, statements, commits) are kept in a ring; once at least {@code minimumCalls} are recorded
+ * and either the failure rate or the rate of calls slower than {@code slowCallMillis} reaches its
+ * threshold, the breaker opens and every new connection fails at once with CircuitOpenException,
+ * instead of each caller waiting out the driver's timeouts against a degraded server.
+ *
+ * After {@code openMillis} it lets {@code halfOpenCalls} probe calls through. If they all succeed in
+ * good time it closes again with a fresh window; any failed or slow probe opens it for another period.
+ * Only errors that point at the server's health (lost connections, timeouts) count as failures;
+ * a constraint violation is an answer from a healthy server.
+ */
+class CircuitBreaker {
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    enum State {
+        CLOSED,    // Calls flow; outcomes are recorded
+        OPEN,      // Calls fail fast until the open period ends
+        HALF_OPEN  // A few probe calls decide whether to close or open again
+    }
+
+    /**
+     * Thrown instead of connecting while the breaker is open. Transient, so queued work such as the
+     * order outbox backs off and tries again later, but RetryPolicy does not retry it on the spot.
+     */
+    static class CircuitOpenException extends SQLTransientConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException(String name, long retryAfterMillis) {
+            super("Database circuit '" + name + "' is open; retry in " + retryAfterMillis + " ms.", "08001");
+        }
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final int slowCallRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private volatile State state = State.CLOSED; // Read without the lock on the fast path
+    // Guarded by this
+    private final byte[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private long openedAtNanos;
+    private int probesPermitted;
+    private int probesSucceeded;
+    private long timesOpened;
+
+    /**
+     * A breaker configured from {@code foodordering.db.breaker.*} system properties: windowSize (20),
+     * minimumCalls (10), failureRatePercent (50), slowCallRatePercent (80), slowCallMillis (2000),
+     * openMillis (10000) and halfOpenCalls (3).
+     */
+    static CircuitBreaker fromProperties(String name) {
+        String prefix = "foodordering.db.breaker.";
+        return new CircuitBreaker(name, Integer.getInteger(prefix + "windowSize", 20),
+                Integer.getInteger(prefix + "minimumCalls", 10), Integer.getInteger(prefix + "failureRatePercent", 50),
+                Integer.getInteger(prefix + "slowCallRatePercent", 80), Long.getLong(prefix + "slowCallMillis", 2000L),
+                Long.getLong(prefix + "openMillis", 10_000L), Integer.getInteger(prefix + "halfOpenCalls", 3));
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRatePercent, int slowCallRatePercent,
+                   long slowCallMillis, long openMillis, int halfOpenCalls) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(this.windowSize, minimumCalls));
+        this.failureRatePercent = failureRatePercent;
+        this.slowCallRatePercent = slowCallRatePercent;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * Asks to start a call.
+     * @throws CircuitOpenException While the breaker is open, or half-open with all probes taken.
+     */
+    void acquirePermission() throws CircuitOpenException {
+        if (state == State.CLOSED) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (state == State.OPEN) {
+                long waited = now - openedAtNanos;
+                if (waited < openNanos) {
+                    throw new CircuitOpenException(name, TimeUnit.NANOSECONDS.toMillis(openNanos - waited) + 1);
+                }
+                transition(State.HALF_OPEN);
+                probesPermitted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesPermitted >= halfOpenCalls) {
+                    throw new CircuitOpenException(name, TimeUnit.NANOSECONDS.toMillis(openNanos));
+                }
+                probesPermitted++;
+            }
+        }
+    }
+
+    /**
+     * Records a call that got an answer from the database.
+     */
+    void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? SLOW : 0);
+    }
+
+    /**
+     * Records a call that threw; errors that do not reflect the server's health count as successes.
+     */
+    void onError(long durationNanos, SQLException e) {
+        if (isHealthFailure(e)) {
+            record(durationNanos >= slowCallNanos ? (byte) (FAILED | SLOW) : FAILED);
+        } else {
+            onSuccess(durationNanos);
+        }
+    }
+
+    /**
+     * Lost connections and timeouts count against the server; deadlocks, constraint and SQL errors do not.
+     */
+    static boolean isHealthFailure(SQLException e) {
+        return !(e instanceof CircuitOpenException) && RetryPolicy.isTransient(e) && !"40001".equals(e.getSQLState());
+    }
+
+    private synchronized void record(byte outcome) {
+        if (state == State.OPEN) {
+            return; // A straggler from before the breaker opened
+        }
+        if (state == State.HALF_OPEN) {
+            if (outcome != 0) {
+                open();
+            } else if (++probesSucceeded >= halfOpenCalls) {
+                resetWindow();
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (recorded == windowSize) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % windowSize;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        if (recorded >= minimumCalls && (failures * 100 >= failureRatePercent * recorded
+                || slowCalls * 100 >= slowCallRatePercent * recorded)) {
+            LOGGER.warning("Database circuit '" + name + "' opening: " + failures + " failed and " + slowCalls
+                    + " slow of the last " + recorded + " calls.");
+            open();
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        timesOpened++;
+        transition(State.OPEN);
+    }
+
+    private void resetWindow() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private void transition(State to) {
+        if (state != to) {
+            LOGGER.info("Database circuit '" + name + "' " + state + " -> " + to);
+            state = to;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + ": " + state + ", failures=" + failures + "/" + recorded + ", slow=" + slowCalls + "/" + recorded
+                + ", opened=" + timesOpened;
+    }
+}
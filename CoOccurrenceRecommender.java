@@ -0,0 +1,308 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * "Frequently bought together" recommender backed by a sparse item-to-item co-occurrence matrix.
+ * Each row maps a FoodItemID to the items that appeared in the same order and how often.
+ * The matrix is built once from OrderDetails (in parallel with fork/join, chunk by chunk) and then
+ * updated incrementally as OrderProcessor commits orders. Rows are capped by pruning their lowest
+ * counts, and the top-K suggestions per item are cached so lookups are a single map read.
+ */
+class CoOccurrenceRecommender implements OrderListener {
+    private static final Logger LOGGER = Logger.getLogger(CoOccurrenceRecommender.class.getName());
+
+    private static final int DEFAULT_MAX_NEIGHBOURS = 50;
+    private static final int DEFAULT_TOP_K = 3;
+    private static final int BUILD_CHUNK_ORDERS = 100_000; // Baskets held in memory at once during the build
+    private static final int PARALLEL_THRESHOLD = 2_000;   // Baskets per fork/join leaf task
+    private static final int FETCH_SIZE = 5_000;
+
+    private static final String BASKETS_SQL =
+            "SELECT OrderID, FoodItemID FROM OrderDetails ORDER BY OrderID";
+
+    private final Map<Integer, IntDoubleHashMap> rows = new HashMap<>(); // Guarded by this
+    private final Map<Integer, int[]> topKCache = new ConcurrentHashMap<>();
+    private final int maxNeighbours;
+    private final int topK;
+
+    public CoOccurrenceRecommender() {
+        this(DEFAULT_MAX_NEIGHBOURS, DEFAULT_TOP_K);
+    }
+
+    public CoOccurrenceRecommender(int maxNeighbours, int topK) {
+        this.maxNeighbours = maxNeighbours;
+        this.topK = topK;
+    }
+
+    /**
+     * Builds the matrix from the full order history. Baskets are streamed from the database in chunks;
+     * each chunk is counted in parallel and merged into the matrix before the next chunk is read.
+     * @throws SQLException If reading OrderDetails fails.
+     */
+    public void build() throws SQLException {
+        long start = System.currentTimeMillis();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        int orders = 0;
+
+        try {
+            conn = DatabaseManager.getConnection();
+            pstmt = conn.prepareStatement(BASKETS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(FETCH_SIZE);
+            rs = pstmt.executeQuery();
+
+            List<int[]> chunk = new ArrayList<>();
+            int[] basket = new int[8];
+            int basketSize = 0;
+            int currentOrderId = -1;
+
+            while (rs.next()) {
+                int orderId = rs.getInt(1);
+                if (orderId != currentOrderId && basketSize > 0) {
+                    chunk.add(Arrays.copyOf(basket, basketSize));
+                    basketSize = 0;
+                    orders++;
+                    if (chunk.size() >= BUILD_CHUNK_ORDERS) {
+                        mergeChunk(chunk);
+                        chunk.clear();
+                    }
+                }
+                currentOrderId = orderId;
+                if (basketSize == basket.length) {
+                    basket = Arrays.copyOf(basket, basketSize * 2);
+                }
+                basket[basketSize++] = rs.getInt(2);
+            }
+            if (basketSize > 0) {
+                chunk.add(Arrays.copyOf(basket, basketSize));
+                orders++;
+            }
+            mergeChunk(chunk);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error building co-occurrence matrix from order history.", e);
+            throw e;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (pstmt != null) pstmt.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error closing resources after building co-occurrence matrix.", e);
+            }
+            DatabaseManager.closeConnection(conn);
+        }
+        LOGGER.info("Co-occurrence matrix built from " + orders + " orders in "
+                + (System.currentTimeMillis() - start) + " ms.");
+    }
+
+    /**
+     * Counts a chunk of baskets in parallel and folds the partial matrix into the live one.
+     */
+    private void mergeChunk(List<int[]> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        int[][] baskets = chunk.toArray(new int[0][]);
+        Map<Integer, IntDoubleHashMap> partial = ForkJoinPool.commonPool().invoke(new CountTask(baskets, 0, baskets.length));
+        synchronized (this) {
+            for (Map.Entry<Integer, IntDoubleHashMap> entry : partial.entrySet()) {
+                IntDoubleHashMap row = rows.computeIfAbsent(entry.getKey(), k -> new IntDoubleHashMap());
+                entry.getValue().forEach(row::addTo);
+                pruneIfNeeded(row);
+            }
+            topKCache.clear();
+        }
+    }
+
+    /**
+     * Fork/join task that counts pairs over a range of baskets and merges the halves on the way up.
+     */
+    private static class CountTask extends RecursiveTask<Map<Integer, IntDoubleHashMap>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[][] baskets;
+        private final int from;
+        private final int to;
+
+        CountTask(int[][] baskets, int from, int to) {
+            this.baskets = baskets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Integer, IntDoubleHashMap> compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                Map<Integer, IntDoubleHashMap> counts = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    countPairs(counts, distinct(baskets[i]));
+                }
+                return counts;
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(baskets, from, mid);
+            left.fork();
+            Map<Integer, IntDoubleHashMap> right = new CountTask(baskets, mid, to).compute();
+            Map<Integer, IntDoubleHashMap> merged = left.join();
+            for (Map.Entry<Integer, IntDoubleHashMap> entry : right.entrySet()) {
+                IntDoubleHashMap row = merged.get(entry.getKey());
+                if (row == null) {
+                    merged.put(entry.getKey(), entry.getValue());
+                } else {
+                    entry.getValue().forEach(row::addTo);
+                }
+            }
+            return merged;
+        }
+    }
+
+    private static int[] distinct(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] > 0 && (n == 0 || sorted[n - 1] != sorted[i])) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    private static void countPairs(Map<Integer, IntDoubleHashMap> counts, int[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            for (int j = i + 1; j < ids.length; j++) {
+                counts.computeIfAbsent(ids[i], k -> new IntDoubleHashMap()).addTo(ids[j], 1);
+                counts.computeIfAbsent(ids[j], k -> new IntDoubleHashMap()).addTo(ids[i], 1);
+            }
+        }
+    }
+
+    @Override
+    public void orderPlaced(int orderId, Map<FoodItem, Integer> items, long timestampMillis) {
+        int[] ids = new int[items.size()];
+        int n = 0;
+        for (FoodItem item : items.keySet()) {
+            ids[n++] = item.getFoodItemId();
+        }
+        ids = distinct(ids);
+        if (ids.length < 2) {
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < ids.length; i++) {
+                IntDoubleHashMap row = rows.computeIfAbsent(ids[i], k -> new IntDoubleHashMap());
+                for (int j = 0; j < ids.length; j++) {
+                    if (i != j) {
+                        row.addTo(ids[j], 1);
+                    }
+                }
+                pruneIfNeeded(row);
+                topKCache.remove(ids[i]);
+            }
+        }
+    }
+
+    /**
+     * Drops the lowest counts once a row holds twice its neighbour budget, keeping the strongest pairs.
+     * Pruning in bulk amortizes the cost over many updates.
+     */
+    private void pruneIfNeeded(IntDoubleHashMap row) {
+        if (row.size() <= maxNeighbours * 2) {
+            return;
+        }
+        double[] counts = new double[row.size()];
+        int[] index = {0};
+        row.forEach((key, value) -> counts[index[0]++] = value);
+        Arrays.sort(counts);
+        double threshold = counts[counts.length - maxNeighbours];
+        int[] doomed = new int[row.size()];
+        int[] doomedCount = {0};
+        row.forEach((key, value) -> {
+            if (value < threshold) {
+                doomed[doomedCount[0]++] = key;
+            }
+        });
+        for (int i = 0; i < doomedCount[0]; i++) {
+            row.remove(doomed[i]);
+        }
+    }
+
+    /**
+     * Returns the items most often bought together with the given item, strongest first.
+     * @param foodItemId The item that was just added to the cart.
+     * @return Up to K FoodItemIDs, as a copy the caller may keep or change; an empty array if the item has no history.
+     */
+    public int[] suggest(int foodItemId) {
+        int[] cached = topKCache.get(foodItemId);
+        if (cached != null) {
+            return cached.clone();
+        }
+        int[] computed;
+        synchronized (this) {
+            IntDoubleHashMap row = rows.get(foodItemId);
+            computed = row == null ? new int[0] : topOf(row, topK, new int[0]);
+            topKCache.put(foodItemId, computed);
+        }
+        return computed.clone();
+    }
+
+    /**
+     * Suggests add-ons for a whole cart by summing the co-occurrence rows of its items,
+     * excluding anything already in the cart.
+     * @param cartItemIds The FoodItemIDs currently in the cart.
+     * @param k The maximum number of suggestions.
+     * @return Up to k FoodItemIDs, strongest first.
+     */
+    public int[] suggestForCart(Collection<Integer> cartItemIds, int k) {
+        IntDoubleHashMap scores = new IntDoubleHashMap();
+        int[] exclude = new int[cartItemIds.size()];
+        int n = 0;
+        synchronized (this) {
+            for (Integer id : cartItemIds) {
+                exclude[n++] = id;
+                IntDoubleHashMap row = rows.get(id);
+                if (row != null) {
+                    row.forEach(scores::addTo);
+                }
+            }
+        }
+        return topOf(scores, k, exclude);
+    }
+
+    private static int[] topOf(IntDoubleHashMap row, int k, int[] exclude) {
+        PriorityQueue<double[]> heap = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(a[1], b[1]));
+        row.forEach((key, value) -> {
+            for (int excluded : exclude) {
+                if (excluded == key) {
+                    return;
+                }
+            }
+            heap.offer(new double[]{key, value});
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        });
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = (int) heap.poll()[0];
+        }
+        return top;
+    }
+}
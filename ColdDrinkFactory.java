@@ -7,6 +7,6 @@ package com.foodordering.system;
 class ColdDrinkFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Cold Drinks / Beverages");
+        return CategoryRegistry.COLD_DRINKS.createFoodItem(name, price, description);
     }
 }
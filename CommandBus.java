@@ -0,0 +1,280 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Singleton dispatcher that takes Commands off the caller's thread (the 'Invoker' side of the
+ * Command pattern). Each command type is routed to a lane; a lane runs its commands one at a time,
+ * in submission order, on its configured executor. When a lane drains, runs of compatible
+ * BatchableCommands (such as a burst of add-to-cart clicks) are merged into one command first.
+ * Execution time per command type and queue depth per lane are tracked for monitoring.
+ * When a CommandJournal is attached, every JournaledCommand that executed is recorded in it,
+ * including each command folded into a merged batch.
+ */
+class CommandBus {
+    private static final Logger LOGGER = Logger.getLogger(CommandBus.class.getName());
+
+    private static final int MAX_BATCH = 64; // Commands taken off a lane per drain pass
+    private static final String CART_LANE = "cart";
+
+    private static CommandBus instance;
+
+    /**
+     * Execution statistics for one command type.
+     */
+    static class CommandStats {
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder merged = new LongAdder(); // Submitted commands folded into another one
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean success, int mergedCount) {
+            executed.increment();
+            if (!success) {
+                failed.increment();
+            }
+            merged.add(mergedCount);
+            totalNanos.add(nanos);
+            long currentMax = maxNanos.get();
+            while (nanos > currentMax && !maxNanos.compareAndSet(currentMax, nanos)) {
+                currentMax = maxNanos.get();
+            }
+        }
+
+        public long getExecuted() {
+            return executed.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getMerged() {
+            return merged.sum();
+        }
+
+        public double getMeanMillis() {
+            long count = executed.sum();
+            return count == 0 ? 0.0 : totalNanos.sum() / 1e6 / count;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("executed=%d failed=%d merged=%d mean=%.3fms max=%.3fms",
+                    getExecuted(), getFailed(), getMerged(), getMeanMillis(), getMaxMillis());
+        }
+    }
+
+    /**
+     * A serial queue of commands drained on an executor. Only one drain runs at a time, so commands
+     * in a lane never overlap even when the executor is a shared pool.
+     */
+    private class Lane {
+        private final String name;
+        private final Executor executor;
+        private final ConcurrentLinkedQueue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Lane(String name, Executor executor) {
+            this.name = name;
+            this.executor = executor;
+        }
+
+        void enqueue(Command command) {
+            queue.add(command);
+            depth.incrementAndGet();
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<Command> pending = new ArrayList<>();
+                Command next;
+                while (pending.size() < MAX_BATCH && (next = queue.poll()) != null) {
+                    pending.add(next);
+                }
+                depth.addAndGet(-pending.size());
+                for (int i = 0; i < pending.size(); ) {
+                    int end = i + 1;
+                    Command first = pending.get(i);
+                    if (first instanceof BatchableCommand) {
+                        while (end < pending.size() && compatible((BatchableCommand) first, pending.get(end))) {
+                            end++;
+                        }
+                    }
+                    if (end - i > 1) {
+                        List<BatchableCommand> batch = new ArrayList<>();
+                        for (int j = i; j < end; j++) {
+                            batch.add((BatchableCommand) pending.get(j));
+                        }
+                        run(first.getClass(), ((BatchableCommand) first).merge(batch), pending.subList(i, end));
+                    } else {
+                        run(first.getClass(), first, pending.subList(i, end));
+                    }
+                    i = end;
+                }
+            } finally {
+                draining.set(false);
+                // A command may have arrived after the last poll but before the flag was cleared.
+                if (!queue.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+    }
+
+    private final Map<Class<? extends Command>, Lane> routes = new ConcurrentHashMap<>();
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, CommandStats> stats = new ConcurrentHashMap<>();
+    private final Lane defaultLane;
+    private volatile CommandJournal journal;
+
+    /**
+     * Creates a bus whose unrouted commands run on the given default executor.
+     */
+    CommandBus(Executor defaultExecutor) {
+        defaultLane = new Lane("default", defaultExecutor);
+        lanes.put(defaultLane.name, defaultLane);
+    }
+
+    /**
+     * Provides the application's bus. Cart commands share one serial lane so an order is always
+     * placed after every add-to-cart click that preceded it.
+     * @return The singleton CommandBus.
+     */
+    public static synchronized CommandBus getInstance() {
+        if (instance == null) {
+            instance = new CommandBus(Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "command-bus");
+                t.setDaemon(true);
+                return t;
+            }));
+            Executor cartExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "command-bus-" + CART_LANE);
+                t.setDaemon(true);
+                return t;
+            });
+            instance.route(AddToCartCommand.class, CART_LANE, cartExecutor);
+            instance.route(PlaceOrderCommand.class, CART_LANE, cartExecutor);
+        }
+        return instance;
+    }
+
+    /**
+     * Routes a command type to a named lane, creating the lane on the given executor if needed.
+     * Types routed to the same lane name share its ordering.
+     * @param type The command class to route.
+     * @param laneName The lane to run it in.
+     * @param executor The executor the lane drains on (ignored if the lane already exists).
+     */
+    public void route(Class<? extends Command> type, String laneName, Executor executor) {
+        Lane lane = lanes.computeIfAbsent(laneName, name -> new Lane(name, executor));
+        routes.put(type, lane);
+    }
+
+    /**
+     * Attaches the journal that executed commands are recorded in (null to stop journaling).
+     */
+    public void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Queues a command for asynchronous execution and returns immediately.
+     * @param command The command to run.
+     */
+    public void dispatch(Command command) {
+        routes.getOrDefault(command.getClass(), defaultLane).enqueue(command);
+    }
+
+    private boolean compatible(BatchableCommand first, Command other) {
+        return other.getClass() == first.getClass()
+                && first.batchKey().equals(((BatchableCommand) other).batchKey());
+    }
+
+    /**
+     * Executes a command and journals the submitted commands it stands for.
+     * @param sources The submitted commands; more than one when they were merged into {@code command}.
+     */
+    private void run(Class<?> type, Command command, List<Command> sources) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            command.execute();
+            success = true;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Command " + type.getSimpleName() + " failed.", e);
+        } finally {
+            stats.computeIfAbsent(type, t -> new CommandStats()).record(System.nanoTime() - start, success, sources.size() - 1);
+        }
+        CommandJournal current = journal;
+        if (success && current != null) {
+            try {
+                for (Command source : sources) {
+                    if (source instanceof JournaledCommand) {
+                        ((JournaledCommand) source).journal(current);
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not journal " + type.getSimpleName() + ".", e);
+            }
+        }
+    }
+
+    /**
+     * @return A snapshot of execution statistics keyed by command class name.
+     */
+    public Map<String, CommandStats> getStats() {
+        Map<String, CommandStats> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, CommandStats> entry : stats.entrySet()) {
+            snapshot.put(entry.getKey().getSimpleName(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @return The number of commands waiting in the named lane, or 0 if there is no such lane.
+     */
+    public int getQueueDepth(String laneName) {
+        Lane lane = lanes.get(laneName);
+        return lane == null ? 0 : lane.depth.get();
+    }
+
+    /**
+     * @return The number of commands waiting across all lanes.
+     */
+    public int getTotalQueueDepth() {
+        int total = 0;
+        for (Lane lane : lanes.values()) {
+            total += lane.depth.get();
+        }
+        return total;
+    }
+}
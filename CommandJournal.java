@@ -0,0 +1,342 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of executed cart commands. Records are length-prefixed and checksummed:
+ * {@code [int payloadLength][int crc32(payload)][payload]}, where the payload starts with
+ * {@code [byte type][long sequence][long timestampMillis][long cartId]} followed by the type's body.
+ *
+ * Appends only encode into an in-memory buffer. A background thread writes whatever has accumulated
+ * and fsyncs it with one force() per group, so many commands share the cost of a sync; callers that
+ * need durability can wait with awaitDurable(). Segments roll once they exceed a size limit and are
+ * named after their first sequence number. compact() rewrites closed segments without the
+ * add-to-cart records that a later successful order already covers. JournalReplayer reads it back.
+ */
+class CommandJournal implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(CommandJournal.class.getName());
+
+    static final byte ADD_TO_CART = 1;
+    static final byte ORDER_PLACED = 2;
+    static final int HEADER_BYTES = 8; // Payload length + CRC32
+    static final int PAYLOAD_PREFIX_BYTES = 1 + 8 + 8 + 8; // Type, sequence, timestamp, cart id
+    static final String SEGMENT_PREFIX = "segment-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long syncIntervalMillis;
+
+    private final Object lock = new Object();
+    private final CRC32 crc = new CRC32(); // Guarded by lock
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024); // Encoded records not yet written; guarded by lock
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024); // Swapped with pending by the flusher
+    private long nextSeq; // Guarded by lock
+    private volatile long durableSeq;
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    private FileChannel active; // Written only by the flusher thread
+    private volatile Path activePath;
+    private final Thread flusher;
+
+    private CommandJournal(Path directory, long segmentBytes, long syncIntervalMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalMillis = syncIntervalMillis;
+        Files.createDirectories(directory);
+        recover();
+        flusher = new Thread(this::flushLoop, "command-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens (or creates) the journal in the given directory. Segment size and sync interval come from
+     * {@code foodordering.journal.segmentBytes} (default 64 MB) and {@code foodordering.journal.syncMillis}
+     * (default 5 ms).
+     * @param directory The journal directory.
+     * @return The opened journal, positioned after the last intact record.
+     * @throws IOException If the directory or the last segment cannot be opened.
+     */
+    public static CommandJournal open(Path directory) throws IOException {
+        return new CommandJournal(directory,
+                Long.getLong("foodordering.journal.segmentBytes", 64L * 1024 * 1024),
+                Long.getLong("foodordering.journal.syncMillis", 5L));
+    }
+
+    /**
+     * @return The journal directory configured by {@code foodordering.journal.dir} (default "journal").
+     */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("foodordering.journal.dir", "journal"));
+    }
+
+    static Path segmentPath(Path directory, long firstSeq) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Finds the last intact record, cuts off a torn tail left by a crash and reopens the last segment.
+     */
+    private void recover() throws IOException {
+        List<Path> segments = JournalReplayer.listSegments(directory);
+        long lastSeq = 0;
+        if (segments.isEmpty()) {
+            activePath = segmentPath(directory, 1);
+        } else {
+            activePath = segments.get(segments.size() - 1);
+            JournalReplayer.SegmentScan scan = JournalReplayer.replaySegment(activePath, null, true);
+            lastSeq = scan.lastSeq;
+            if (scan.records == 0 && segments.size() > 1) {
+                // The last segment held nothing intact; continue numbering from the previous one
+                lastSeq = JournalReplayer.replaySegment(segments.get(segments.size() - 2), null, false).lastSeq;
+            }
+            if (scan.validBytes < Files.size(activePath)) {
+                LOGGER.warning("Truncating torn journal tail in " + activePath + " at byte " + scan.validBytes);
+            }
+            try (FileChannel channel = FileChannel.open(activePath, StandardOpenOption.WRITE)) {
+                channel.truncate(scan.validBytes);
+            }
+        }
+        active = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        nextSeq = lastSeq + 1;
+        durableSeq = lastSeq;
+    }
+
+    /**
+     * Journals one add-to-cart command.
+     * @return The record's sequence number.
+     */
+    public long appendAddToCart(long cartId, int foodItemId, int quantity) {
+        synchronized (lock) {
+            int start = beginRecord(ADD_TO_CART, cartId, 4 + 4);
+            pending.putInt(foodItemId).putInt(quantity);
+            return endRecord(start);
+        }
+    }
+
+    /**
+     * Journals one place-order command with the cart lines it submitted.
+     * @param success Whether the order was committed.
+     * @return The record's sequence number.
+     */
+    public long appendOrderPlaced(long cartId, boolean success, String customerName, Map<FoodItem, Integer> items) {
+        byte[] name = customerName.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) {
+            throw new IllegalArgumentException("Customer name is too long to journal.");
+        }
+        synchronized (lock) {
+            int start = beginRecord(ORDER_PLACED, cartId, 1 + 2 + name.length + 4 + items.size() * (4 + 4 + 8));
+            pending.put(success ? (byte) 1 : (byte) 0).putShort((short) name.length).put(name).putInt(items.size());
+            for (Map.Entry<FoodItem, Integer> line : items.entrySet()) {
+                pending.putInt(line.getKey().getFoodItemId()).putInt(line.getValue()).putDouble(line.getKey().getPrice());
+            }
+            return endRecord(start);
+        }
+    }
+
+    private int beginRecord(byte type, long cartId, int bodyBytes) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed.");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Journal is unavailable after a write failure.", failure);
+        }
+        int recordBytes = HEADER_BYTES + PAYLOAD_PREFIX_BYTES + bodyBytes;
+        if (pending.remaining() < recordBytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + recordBytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.position(start + HEADER_BYTES);
+        pending.put(type).putLong(nextSeq).putLong(System.currentTimeMillis()).putLong(cartId);
+        return start;
+    }
+
+    private long endRecord(int start) {
+        int payloadLength = pending.position() - start - HEADER_BYTES;
+        crc.reset();
+        crc.update(pending.array(), start + HEADER_BYTES, payloadLength);
+        pending.putInt(start, payloadLength);
+        pending.putInt(start + 4, (int) crc.getValue());
+        if (start == 0) {
+            lock.notifyAll(); // First record of a new group; wake the flusher
+        }
+        return nextSeq++;
+    }
+
+    /**
+     * Waits until the record with the given sequence number has been fsynced.
+     * @return true if it is durable, false on timeout or journal failure.
+     */
+    public boolean awaitDurable(long seq, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock) {
+            while (durableSeq < seq && failure == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+        }
+        return durableSeq >= seq;
+    }
+
+    /**
+     * @return The highest sequence number known to be on disk.
+     */
+    public long getDurableSeq() {
+        return durableSeq;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchLastSeq;
+            synchronized (lock) {
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        lock.wait();
+                    }
+                    if (pending.position() == 0) {
+                        return; // Closed and fully flushed
+                    }
+                    if (!closed && syncIntervalMillis > 0) {
+                        lock.wait(syncIntervalMillis); // Let the rest of the group arrive
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                batchLastSeq = nextSeq - 1;
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    active.write(batch);
+                }
+                active.force(false);
+                if (active.size() >= segmentBytes) {
+                    rollSegment(batchLastSeq + 1);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error writing command journal; journaling is disabled.", e);
+                failure = e;
+            } finally {
+                batch.clear();
+            }
+            synchronized (lock) {
+                if (failure == null) {
+                    durableSeq = batchLastSeq;
+                }
+                lock.notifyAll();
+                if (failure != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void rollSegment(long firstSeq) throws IOException {
+        active.close();
+        activePath = segmentPath(directory, firstSeq);
+        active = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        LOGGER.info("Rolled command journal to " + activePath.getFileName());
+    }
+
+    /**
+     * Rewrites the closed segments without add-to-cart records that are subsumed by a later successful
+     * order from the same cart (the order record carries the final lines). Segments left empty are deleted.
+     * The active segment is never touched, so compaction can run while commands are being journaled.
+     * @return The number of records removed.
+     * @throws IOException If a segment cannot be read or rewritten.
+     */
+    public long compact() throws IOException {
+        Path activeSegment = activePath; // Segment names sort by first sequence, so later ones compare greater
+        List<Path> segments = JournalReplayer.listSegments(directory);
+        Map<Long, Long> lastOrderSeq = new HashMap<>();
+        JournalReplayer.Visitor orders = new JournalReplayer.Visitor() {
+            @Override
+            public void onOrderPlaced(long seq, long timestampMillis, long cartId, boolean success, String customerName,
+                                      int lines, int[] foodItemIds, int[] quantities, double[] prices) {
+                if (success) {
+                    lastOrderSeq.put(cartId, seq);
+                }
+            }
+        };
+        for (Path segment : segments) {
+            JournalReplayer.replaySegment(segment, orders, true);
+        }
+
+        long removed = 0;
+        for (Path segment : segments) {
+            if (segment.compareTo(activeSegment) >= 0) {
+                continue; // The active segment, or one the flusher rolled to after activePath was read
+            }
+            Path compacted = segment.resolveSibling(segment.getFileName() + ".compact");
+            long[] counts = JournalReplayer.copySegment(segment, compacted, (type, seq, cartId) -> {
+                if (type != ADD_TO_CART) {
+                    return true;
+                }
+                Long orderSeq = lastOrderSeq.get(cartId);
+                return orderSeq == null || seq > orderSeq;
+            });
+            removed += counts[1];
+            if (counts[0] == 0) {
+                Files.delete(compacted);
+                Files.delete(segment);
+            } else if (counts[1] > 0) {
+                Files.move(compacted, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.delete(compacted);
+            }
+        }
+        LOGGER.info("Compacted command journal: removed " + removed + " subsumed records.");
+        return removed;
+    }
+
+    /**
+     * Flushes and fsyncs everything appended so far, then closes the active segment.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+            active.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing command journal.", e);
+        }
+    }
+}
@@ -4,6 +4,16 @@ package com.foodordering.system;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -11,33 +21,297 @@ import java.util.logging.Logger;
  * Manages database connections for the Food Ordering System.
  * This class provides a singleton-like access to database connection.
  * Remember to add the SQL Server JDBC driver to your project dependencies.
+ *
+ * Writes, and any read that must be current, use getConnection() on the primary. Reads that may
+ * lag slightly (menu loads, item lookups) use getReadConnection(), which spreads them round-robin
+ * across the read replicas listed in {@code foodordering.db.replicaUrls} (comma-separated; none by
+ * default, in which case it is the primary). A replica that cannot be reached is skipped for
+ * {@code foodordering.db.replicaRetryMillis} (default 30 s) and then validated before it takes reads
+ * again; with no healthy replica, reads fall back to the primary. A session that has just written
+ * (see recordWrite) reads from the primary for {@code foodordering.db.stickyMillis} (default 5 s,
+ * longer than the expected replication lag), so a customer always sees their own order.
+ *
+ * Connections to the primary go through a CircuitBreaker: while the primary is failing or slow,
+ * getConnection fails at once instead of tying up the caller for the driver's timeouts. Every
+ * connection honours the current Deadline: the time left bounds the login timeout (never more than
+ * {@code foodordering.db.connectTimeoutSeconds}, default 5) and each statement's query timeout.
  */
 public class DatabaseManager {
     // JDBC URL for your SQL Server instance
     // Replace 'localhost:1433' with your server address if different
     // Replace 'FoodOrderingSystem' with your database name if different
     // 'encrypt=true;trustServerCertificate=true;' is often needed for modern SQL Server connections.
-    private static final String DB_URL = "jdbc:sqlserver://localhost:1433;databaseName=FoodOrderingSystem;encrypt=true;trustServerCertificate=true;";
-    private static final String USER = "sa"; // !!! REPLACE WITH YOUR DATABASE USERNAME !!!
-    private static final String PASS = "fitlife12345678"; // !!! REPLACE WITH YOUR DATABASE PASSWORD !!!
+    // Each value can be overridden with a system property (e.g. -Dfoodordering.db.url=...) to point
+    // the application, migrations and tooling at a local container or an embedded database.
+    private static final String DB_URL = System.getProperty("foodordering.db.url",
+            "jdbc:sqlserver://localhost:1433;databaseName=FoodOrderingSystem;encrypt=true;trustServerCertificate=true;");
+    private static final String USER = System.getProperty("foodordering.db.user", "sa"); // !!! REPLACE WITH YOUR DATABASE USERNAME !!!
+    private static final String PASS = System.getProperty("foodordering.db.password", "fitlife12345678"); // !!! REPLACE WITH YOUR DATABASE PASSWORD !!!
+
+    private static final String REPLICA_USER = System.getProperty("foodordering.db.replicaUser", USER);
+    private static final String REPLICA_PASS = System.getProperty("foodordering.db.replicaPassword", PASS);
+    private static final long REPLICA_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("foodordering.db.replicaRetryMillis", 30_000L));
+    private static final long STICKY_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("foodordering.db.stickyMillis", 5_000L));
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final int CONNECT_TIMEOUT_SECONDS = Integer.getInteger("foodordering.db.connectTimeoutSeconds", 5);
+    private static final int MAX_TRACKED_SESSIONS = 10_000; // Expired sessions are pruned beyond this
+
+    /**
+     * Passed instead of a session ID by readers that have no session; they never stick to the primary.
+     */
+    public static final long NO_SESSION = 0L;
 
     private static final Logger LOGGER = Logger.getLogger(DatabaseManager.class.getName());
 
+    /**
+     * One read replica and its health. A replica that failed is down until retryAtNanos; after that
+     * one caller at a time (the one that wins probing) validates it before it takes reads again.
+     */
+    private static class Replica {
+        final String url;
+        volatile boolean down;
+        volatile long retryAtNanos;
+        final AtomicBoolean probing = new AtomicBoolean();
+
+        Replica(String url) {
+            this.url = url;
+        }
+    }
+
+    private static final List<Replica> REPLICAS = parseReplicas(System.getProperty("foodordering.db.replicaUrls", ""));
+    private static final AtomicInteger NEXT_REPLICA = new AtomicInteger();
+    private static final Map<Long, Long> STICKY_UNTIL = new ConcurrentHashMap<>(); // Session -> nanoTime its primary reads end
+    private static final CircuitBreaker PRIMARY_BREAKER = CircuitBreaker.fromProperties("primary");
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Counter PRIMARY_OPENED = METRICS.counter("foodordering_db_connections_opened_total",
+            "Database connections opened", "target", "primary");
+    private static final MetricsRegistry.Counter REPLICA_OPENED = METRICS.counter("foodordering_db_connections_opened_total",
+            "Database connections opened", "target", "replica");
+    private static final MetricsRegistry.Counter PRIMARY_FAILED = METRICS.counter("foodordering_db_connection_failures_total",
+            "Failed or refused database connection attempts", "target", "primary");
+    private static final MetricsRegistry.Counter REPLICA_FAILED = METRICS.counter("foodordering_db_connection_failures_total",
+            "Failed or refused database connection attempts", "target", "replica");
+    private static final MetricsRegistry.Histogram PRIMARY_CONNECT = METRICS.histogram("foodordering_db_connect_seconds",
+            "Time to open a database connection", "target", "primary");
+    private static final MetricsRegistry.Histogram REPLICA_CONNECT = METRICS.histogram("foodordering_db_connect_seconds",
+            "Time to open a database connection", "target", "replica");
+
+    static {
+        METRICS.gauge("foodordering_db_connections_open", "Database connections currently open", GuardedConnection::getOpenCount);
+        METRICS.gauge("foodordering_db_circuit_state", "Primary circuit breaker: 0 closed, 1 half-open, 2 open",
+                () -> PRIMARY_BREAKER.getState() == CircuitBreaker.State.CLOSED ? 0
+                        : PRIMARY_BREAKER.getState() == CircuitBreaker.State.HALF_OPEN ? 1 : 2);
+        METRICS.gauge("foodordering_db_replicas_healthy", "Read replicas currently taking reads", DatabaseManager::getHealthyReplicaCount);
+    }
+
     /**
      * Establishes and returns a new database connection.
      * @return A valid database Connection object.
-     * @throws SQLException If a database access error occurs or the URL is null.
+     * @throws SQLException If a database access error occurs or the URL is null; a
+     *         CircuitBreaker.CircuitOpenException while the primary is considered down.
      */
     public static Connection getConnection() throws SQLException {
+        // Before asking the breaker, so an expired deadline fails here instead of counting against the primary
+        int timeoutSeconds = Deadline.timeoutSeconds(CONNECT_TIMEOUT_SECONDS);
+        try {
+            PRIMARY_BREAKER.acquirePermission();
+        } catch (SQLException e) {
+            PRIMARY_FAILED.increment();
+            throw e;
+        }
+        long start = System.nanoTime();
+        Connection conn;
         try {
-            // Ensure the JDBC driver is loaded (optional for modern JDBC 4.0+, but good practice)
-            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-        } catch (ClassNotFoundException e) {
-            LOGGER.log(Level.SEVERE, "SQL Server JDBC Driver not found in classpath.", e);
-            throw new SQLException("SQL Server JDBC Driver not found.", e);
+            conn = open(DB_URL, USER, PASS, timeoutSeconds);
+        } catch (SQLException e) {
+            PRIMARY_BREAKER.onError(System.nanoTime() - start, e);
+            PRIMARY_FAILED.increment();
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        PRIMARY_BREAKER.onSuccess(elapsed);
+        PRIMARY_CONNECT.observeNanos(elapsed);
+        PRIMARY_OPENED.increment();
+        return GuardedConnection.wrap(conn, PRIMARY_BREAKER);
+    }
+
+    /**
+     * Returns a connection for reads that tolerate replication lag: a healthy read replica, chosen
+     * round-robin, or the primary if there is none.
+     * @return A valid database Connection object; close it with closeConnection as usual.
+     * @throws SQLException If neither a replica nor the primary could be reached.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return getReadConnection(NO_SESSION);
+    }
+
+    /**
+     * Like getReadConnection(), but reads from the primary while the session's last write may not
+     * have reached the replicas yet.
+     * @param sessionId The reading session (e.g. the cart ID), or NO_SESSION.
+     */
+    public static Connection getReadConnection(long sessionId) throws SQLException {
+        if (REPLICAS.isEmpty() || isStickyToPrimary(sessionId)) {
+            return getConnection();
+        }
+        Deadline.timeoutSeconds(0); // Fail an expired call here, so it cannot count against a replica
+        int count = REPLICAS.size();
+        int start = Math.floorMod(NEXT_REPLICA.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = REPLICAS.get((start + i) % count);
+            Connection conn = tryReplica(replica);
+            if (conn != null) {
+                return conn;
+            }
+        }
+        LOGGER.fine("No healthy read replica; reading from the primary.");
+        return getConnection();
+    }
+
+    /**
+     * Notes that a session has just written, so its reads go to the primary for a while.
+     * @param sessionId The writing session (e.g. the cart ID that placed an order).
+     */
+    public static void recordWrite(long sessionId) {
+        if (sessionId == NO_SESSION || REPLICAS.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (STICKY_UNTIL.size() >= MAX_TRACKED_SESSIONS) {
+            Iterator<Long> it = STICKY_UNTIL.values().iterator();
+            while (it.hasNext()) {
+                if (now - it.next() > 0) {
+                    it.remove();
+                }
+            }
+        }
+        STICKY_UNTIL.put(sessionId, now + STICKY_NANOS);
+    }
+
+    private static boolean isStickyToPrimary(long sessionId) {
+        if (sessionId == NO_SESSION) {
+            return false;
+        }
+        Long until = STICKY_UNTIL.get(sessionId);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until > 0) {
+            STICKY_UNTIL.remove(sessionId, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return A connection to the replica, or null if it is down or could not be reached.
+     */
+    private static Connection tryReplica(Replica replica) {
+        boolean probe = false;
+        if (replica.down) {
+            if (System.nanoTime() - replica.retryAtNanos < 0 || !replica.probing.compareAndSet(false, true)) {
+                return null;
+            }
+            probe = true;
+        }
+        Connection conn = null;
+        long start = System.nanoTime();
+        try {
+            conn = open(replica.url, REPLICA_USER, REPLICA_PASS, Deadline.timeoutSeconds(CONNECT_TIMEOUT_SECONDS));
+            if (probe && !conn.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                throw new SQLException("Replica connection failed validation.");
+            }
+            if (probe) {
+                LOGGER.log(Level.INFO, "Read replica {0} is back in rotation.", replica.url);
+                replica.down = false;
+            }
+            REPLICA_CONNECT.observeNanos(System.nanoTime() - start);
+            REPLICA_OPENED.increment();
+            return GuardedConnection.wrap(conn, null); // Replica health is tracked above, not by the breaker
+        } catch (SQLException e) {
+            REPLICA_FAILED.increment();
+            closeConnection(conn);
+            if (!replica.down) {
+                LOGGER.log(Level.WARNING, "Read replica " + replica.url + " is unreachable; taking it out of rotation.", e);
+            }
+            replica.retryAtNanos = System.nanoTime() + REPLICA_RETRY_NANOS;
+            replica.down = true;
+            return null;
+        } finally {
+            if (probe) {
+                replica.probing.set(false);
+            }
+        }
+    }
+
+    private static List<Replica> parseReplicas(String urls) {
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.trim().isEmpty()) {
+                replicas.add(new Replica(url.trim()));
+            }
+        }
+        return Collections.unmodifiableList(replicas);
+    }
+
+    /**
+     * @param timeoutSeconds Login timeout from Deadline.timeoutSeconds, 0 for the driver's default.
+     */
+    private static Connection open(String url, String user, String password, int timeoutSeconds) throws SQLException {
+        if (url.startsWith("jdbc:sqlserver:")) {
+            try {
+                // Ensure the JDBC driver is loaded (optional for modern JDBC 4.0+, but good practice)
+                Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+            } catch (ClassNotFoundException e) {
+                LOGGER.log(Level.SEVERE, "SQL Server JDBC Driver not found in classpath.", e);
+                throw new SQLException("SQL Server JDBC Driver not found.", e);
+            }
+        }
+        Properties info = new Properties();
+        info.setProperty("user", user);
+        info.setProperty("password", password);
+        if (url.startsWith("jdbc:sqlserver:") && timeoutSeconds > 0) {
+            info.setProperty("loginTimeout", Integer.toString(timeoutSeconds));
+        }
+        LOGGER.fine("Attempting to connect to database...");
+        return DriverManager.getConnection(url, info);
+    }
+
+    /**
+     * Returns the JDBC URL connections are opened against.
+     * @return The configured database URL.
+     */
+    public static String getDatabaseUrl() {
+        return DB_URL;
+    }
+
+    /**
+     * @return The breaker guarding the primary, e.g. to report its state.
+     */
+    public static CircuitBreaker getPrimaryBreaker() {
+        return PRIMARY_BREAKER;
+    }
+
+    /**
+     * @return The number of configured read replicas.
+     */
+    public static int getReplicaCount() {
+        return REPLICAS.size();
+    }
+
+    /**
+     * @return The number of read replicas currently taking reads.
+     */
+    public static int getHealthyReplicaCount() {
+        int healthy = 0;
+        for (Replica replica : REPLICAS) {
+            if (!replica.down) {
+                healthy++;
+            }
         }
-        LOGGER.info("Attempting to connect to database...");
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return healthy;
     }
 
     /**
@@ -48,7 +322,7 @@ public class DatabaseManager {
         if (connection != null) {
             try {
                 connection.close();
-                LOGGER.info("Database connection closed.");
+                LOGGER.fine("Database connection closed.");
             } catch (SQLException e) {
                 LOGGER.log(Level.SEVERE, "Error closing database connection.", e);
             }
@@ -0,0 +1,111 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which a piece of work must be done, propagated to every database call the
+ * work makes on the current thread. DatabaseManager turns the time left into the connection's login
+ * timeout and each statement's query timeout, so one slow call cannot use up more than the caller's
+ * whole budget, and a call made after the deadline fails at once instead of reaching the database.
+ *
+ * Scopes nest: entering a deadline while one is already in effect keeps whichever is earlier.
+ * <pre>
+ * Deadline.Scope scope = Deadline.within(3000);
+ * try {
+ *     ... database calls ...
+ * } finally {
+ *     scope.close();
+ * }
+ * </pre>
+ */
+final class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the previous deadline when closed.
+     */
+    static final class Scope implements AutoCloseable {
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    static Deadline after(long millis) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * @return The deadline in effect on this thread, or null if there is none.
+     */
+    static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Enters a deadline {@code millis} from now, or keeps the current one if that is earlier.
+     */
+    static Scope within(long millis) {
+        return after(millis).enter();
+    }
+
+    /**
+     * Makes this deadline current on this thread, unless the current one is earlier.
+     */
+    Scope enter() {
+        Deadline previous = CURRENT.get();
+        if (previous == null || expiresAtNanos - previous.expiresAtNanos < 0) {
+            CURRENT.set(this);
+        }
+        return new Scope(previous);
+    }
+
+    long remainingNanos() {
+        return expiresAtNanos - System.nanoTime();
+    }
+
+    long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos());
+    }
+
+    boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Works out a JDBC timeout (whole seconds, 0 meaning none) for a call made now: the time left
+     * before the current deadline, rounded up, and never more than the given default.
+     * @param defaultSeconds The timeout without a deadline, or 0 for none.
+     * @throws SQLTimeoutException If the current deadline has already passed.
+     */
+    static int timeoutSeconds(int defaultSeconds) throws SQLTimeoutException {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return defaultSeconds;
+        }
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException("Deadline exceeded before the database call was made.");
+        }
+        int seconds = (int) Math.min(Integer.MAX_VALUE, (remaining + 999_999_999L) / 1_000_000_000L);
+        return defaultSeconds > 0 ? Math.min(defaultSeconds, seconds) : seconds;
+    }
+}
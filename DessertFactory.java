@@ -7,6 +7,6 @@ package com.foodordering.system;
 class DessertFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Desserts");
+        return CategoryRegistry.DESSERTS.createFoodItem(name, price, description);
     }
 }
@@ -0,0 +1,141 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sets up a portable copy of the core schema on an embedded database (e.g. H2 with
+ * {@code -Dfoodordering.db.url=jdbc:h2:mem:food;DB_CLOSE_DELAY=-1}) so benchmarks and the load generator
+ * can exercise the real DAO and OrderProcessor code without a SQL Server instance.
+ * DataBase.sql and the migrations stay the source of truth for production; this only mirrors the
+ * tables and columns the application code reads and writes.
+ */
+class EmbeddedDatabase {
+    private static final Logger LOGGER = Logger.getLogger(EmbeddedDatabase.class.getName());
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS Categories (" +
+                    "CategoryID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "CategoryName VARCHAR(100) NOT NULL, RestaurantID INT DEFAULT 1 NOT NULL, " +
+                    "UNIQUE (RestaurantID, CategoryName))",
+            "CREATE TABLE IF NOT EXISTS FoodItems (" +
+                    "FoodItemID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "Name VARCHAR(200) NOT NULL, Description VARCHAR(500), Price DECIMAL(10, 2) NOT NULL, " +
+                    "CategoryID INT NOT NULL REFERENCES Categories(CategoryID), RestaurantID INT DEFAULT 1 NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS Orders (" +
+                    "OrderID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "CustomerName VARCHAR(255) NOT NULL, CustomerAddress VARCHAR(500) NOT NULL, " +
+                    "OrderDate TIMESTAMP DEFAULT CURRENT_TIMESTAMP, TotalAmount DECIMAL(10, 2) NOT NULL, " +
+                    "IdempotencyKey VARCHAR(36))",
+            "CREATE TABLE IF NOT EXISTS OrderDetails (" +
+                    "OrderDetailID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "OrderID INT NOT NULL REFERENCES Orders(OrderID), " +
+                    "FoodItemID INT NOT NULL REFERENCES FoodItems(FoodItemID), " +
+                    "Quantity INT NOT NULL, PricePerItem DECIMAL(10, 2) NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS Inventory (" +
+                    "FoodItemID INT PRIMARY KEY REFERENCES FoodItems(FoodItemID) ON DELETE CASCADE, " +
+                    "QuantityAvailable INT NOT NULL CHECK (QuantityAvailable >= 0), " +
+                    "UpdatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+            "CREATE TABLE IF NOT EXISTS Promotions (" +
+                    "PromotionID INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, Name VARCHAR(100) NOT NULL, " +
+                    "RuleType VARCHAR(20) NOT NULL, FoodItemID INT, CategoryID INT, PercentOff DECIMAL(5, 2), " +
+                    "BuyQuantity INT, FreeQuantity INT, BundlePrice DECIMAL(10, 2), ValidFrom TIMESTAMP, ValidTo TIMESTAMP, " +
+                    "StartTime TIME, EndTime TIME, DaysOfWeek TINYINT DEFAULT 127 NOT NULL, IsActive BOOLEAN DEFAULT TRUE NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS PromotionItems (" +
+                    "PromotionID INT NOT NULL REFERENCES Promotions(PromotionID) ON DELETE CASCADE, " +
+                    "FoodItemID INT NOT NULL, Quantity INT DEFAULT 1 NOT NULL, PRIMARY KEY (PromotionID, FoodItemID))",
+            "CREATE INDEX IF NOT EXISTS IX_FoodItems_CategoryID ON FoodItems (CategoryID)",
+            "CREATE INDEX IF NOT EXISTS IX_FoodItems_RestaurantID_CategoryID ON FoodItems (RestaurantID, CategoryID)",
+            "CREATE INDEX IF NOT EXISTS IX_OrderDetails_OrderID ON OrderDetails (OrderID)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS UX_Orders_IdempotencyKey ON Orders (IdempotencyKey)"
+    };
+
+    /**
+     * Whether the configured database is an embedded stand-in rather than SQL Server.
+     */
+    public static boolean isEmbedded() {
+        String url = DatabaseManager.getDatabaseUrl();
+        return url.startsWith("jdbc:h2:") || url.startsWith("jdbc:hsqldb:");
+    }
+
+    /**
+     * Creates the tables if they do not exist yet.
+     * @throws SQLException If the DDL fails.
+     */
+    public static void install() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    stmt.execute(ddl);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error installing embedded schema.", e);
+            throw e;
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Fills the catalog with synthetic categories and items using batched inserts.
+     * @param categories Number of categories to create.
+     * @param itemsPerCategory Number of items per category.
+     * @return The created category names, in insertion order.
+     * @throws SQLException If the inserts fail.
+     */
+    public static List<String> seedCatalog(int categories, int itemsPerCategory) throws SQLException {
+        List<String> names = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            conn.setAutoCommit(false);
+            try (PreparedStatement insertCategory = conn.prepareStatement(
+                         "INSERT INTO Categories (CategoryName) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement insertItem = conn.prepareStatement(
+                         "INSERT INTO FoodItems (Name, Description, Price, CategoryID) VALUES (?, ?, ?, ?)")) {
+                for (int c = 0; c < categories; c++) {
+                    String categoryName = "Category " + (c + 1);
+                    insertCategory.setString(1, categoryName);
+                    insertCategory.executeUpdate();
+                    int categoryId;
+                    try (java.sql.ResultSet keys = insertCategory.getGeneratedKeys()) {
+                        keys.next();
+                        categoryId = keys.getInt(1);
+                    }
+                    names.add(categoryName);
+                    for (int i = 0; i < itemsPerCategory; i++) {
+                        insertItem.setString(1, categoryName + " Item " + (i + 1));
+                        insertItem.setString(2, "Synthetic item " + (i + 1) + " of " + categoryName);
+                        insertItem.setDouble(3, 1.0 + (i % 20) * 0.5);
+                        insertItem.setInt(4, categoryId);
+                        insertItem.addBatch();
+                    }
+                    insertItem.executeBatch();
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error seeding embedded catalog.", e);
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+            }
+            DatabaseManager.closeConnection(conn);
+        }
+        return names;
+    }
+}
@@ -17,7 +17,7 @@ class FoodItem implements MenuItem {
     private String name;
     private double price;
     private String description;
-    private String categoryName;  // Stores the category's name string (e.g., "Burgers")
+    private CategoryDescriptor category; // Shared with every item of the category (e.g., "Burgers")
     private int categoryId;       // Corresponds to CategoryID in the database
 
     /**
@@ -30,11 +30,18 @@ class FoodItem implements MenuItem {
      * @param categoryId The ID of the category this item belongs to.
      */
     public FoodItem(int foodItemId, String name, double price, String description, String categoryName, int categoryId) {
+        this(foodItemId, name, price, description, CategoryRegistry.getInstance().register(categoryId, categoryName), categoryId);
+    }
+
+    /**
+     * @param category The category's shared descriptor, from the CategoryRegistry.
+     */
+    public FoodItem(int foodItemId, String name, double price, String description, CategoryDescriptor category, int categoryId) {
         this.foodItemId = foodItemId;
         this.name = name;
         this.price = price;
         this.description = description;
-        this.categoryName = categoryName;
+        this.category = category;
         this.categoryId = categoryId;
     }
 
@@ -50,6 +57,13 @@ class FoodItem implements MenuItem {
         this(0, name, price, description, categoryName, 0); // Use 0 for IDs if not from DB
     }
 
+    /**
+     * Creates an item not tied to a database ID in the given category, e.g. from a FoodItemFactory.
+     */
+    public FoodItem(String name, double price, String description, CategoryDescriptor category) {
+        this(0, name, price, description, category, 0);
+    }
+
     // --- Getters for all properties ---
     public int getFoodItemId() {
         return foodItemId;
@@ -70,7 +84,11 @@ class FoodItem implements MenuItem {
     }
 
     public String getCategoryName() {
-        return categoryName;
+        return category == null ? null : category.getName();
+    }
+
+    public CategoryDescriptor getCategory() {
+        return category;
     }
 
     public int getCategoryId() {
@@ -124,8 +142,8 @@ class FoodItem implements MenuItem {
             FoodWrapper wrappedItem = builder.withFoodItem(this).build();
             // 3. Create the AddToCartCommand with the wrapped item
             Command addToCartCommand = new AddToCartCommand(wrappedItem, cart);
-            // 4. Execute the command. The ShoppingCart's addItem method will now display the custom wrapper message.
-            addToCartCommand.execute();
+            // 4. Hand the command to the CommandBus; the cart update and wrapper message happen off the UI thread.
+            CommandBus.getInstance().dispatch(addToCartCommand);
             // The JOptionPane.showMessageDialog previously here is now handled within ShoppingCart.addItem()
         });
         // --- END MODIFICATION ---
@@ -156,7 +174,7 @@ class FoodItem implements MenuItem {
         String lowerCaseSearchText = searchText.toLowerCase();
         return name.toLowerCase().contains(lowerCaseSearchText) ||
                 description.toLowerCase().contains(lowerCaseSearchText) ||
-                categoryName.toLowerCase().contains(lowerCaseSearchText); // Also search by category name
+                (category != null && category.getName().toLowerCase().contains(lowerCaseSearchText)); // Also search by category name
     }
 
     /**
@@ -6,7 +6,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,26 +18,73 @@ import java.util.logging.Logger;
  * Data Access Object (DAO) for managing FoodItem and MenuCategory data
  * in the database. This class abstracts the database interactions, providing
  * methods to retrieve menu categories and food items.
+ * Each instance reads the menu of one restaurant (see migration V8); the no-argument constructor
+ * uses {@code foodordering.restaurantId}, default 1, the branch every pre-existing row belongs to.
+ * Reads go through DatabaseManager.getReadConnection, so they are served by a read replica when
+ * one is configured, except right after the DAO's session has written to the primary.
+ * Each read runs within a Deadline of {@code foodordering.deadline.readMillis} (default 3000),
+ * or the caller's own deadline if that is earlier.
  */
 public class FoodItemDAO {
     private static final Logger LOGGER = Logger.getLogger(FoodItemDAO.class.getName());
+    private static final int MAX_IN_LIST = 2000; // SQL Server allows at most 2100 parameters per statement
+    public static final int DEFAULT_RESTAURANT_ID = Integer.getInteger("foodordering.restaurantId", 1);
+    private static final long READ_DEADLINE_MILLIS = Long.getLong("foodordering.deadline.readMillis", 3000L);
+    private static final MetricsRegistry.Histogram GET_ALL_CATEGORIES = queryLatency("getAllCategories");
+    private static final MetricsRegistry.Histogram GET_BY_CATEGORY = queryLatency("getFoodItemsByCategory");
+    private static final MetricsRegistry.Histogram GET_BY_ID = queryLatency("getFoodItemById");
+    private static final MetricsRegistry.Histogram GET_BY_IDS = queryLatency("getFoodItemsByIds");
+    private static final MetricsRegistry.Histogram GET_ALL_ITEMS = queryLatency("getAllFoodItems");
+
+    private final int restaurantId;
+    private volatile long sessionId = DatabaseManager.NO_SESSION;
+
+    public FoodItemDAO() {
+        this(DEFAULT_RESTAURANT_ID);
+    }
+
+    /**
+     * @param restaurantId The restaurant whose categories and items this DAO reads.
+     */
+    public FoodItemDAO(int restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    private static MetricsRegistry.Histogram queryLatency(String method) {
+        return MetricsRegistry.getInstance().histogram("foodordering_dao_query_seconds",
+                "FoodItemDAO query latency, including getting the connection", "method", method);
+    }
+
+    public int getRestaurantId() {
+        return restaurantId;
+    }
+
+    /**
+     * Ties the DAO's reads to a session (e.g. the cart ID), so they see that session's own writes.
+     */
+    public void setSessionId(long sessionId) {
+        this.sessionId = sessionId;
+    }
 
     /**
-     * Retrieves all categories from the Categories table in the database.
+     * Retrieves all of the restaurant's categories from the Categories table in the database.
      * Categories are ordered by their name for consistent display.
      * @return A list of MenuCategory objects, each representing a category from the database.
      * @throws SQLException If a database access error occurs during the operation.
      */
     public List<MenuCategory> getAllCategories() throws SQLException {
+        long start = System.nanoTime();
         List<MenuCategory> categories = new ArrayList<>();
-        String sql = "SELECT CategoryID, CategoryName FROM Categories ORDER BY CategoryName";
+        String sql = "SELECT CategoryID, CategoryName FROM Categories WHERE RestaurantID = ? ORDER BY CategoryName";
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
 
+        Deadline.Scope deadline = Deadline.within(READ_DEADLINE_MILLIS);
         try {
-            conn = DatabaseManager.getConnection(); // Get a database connection
+            conn = DatabaseManager.getReadConnection(sessionId); // Get a database connection
             pstmt = conn.prepareStatement(sql);    // Prepare the SQL statement
+            pstmt.setInt(1, restaurantId);
             rs = pstmt.executeQuery();             // Execute the query
 
             while (rs.next()) {
@@ -46,6 +97,8 @@ public class FoodItemDAO {
             throw e; // Re-throw the exception after logging
         } finally {
             closeResources(conn, pstmt, rs);
+            deadline.close();
+            GET_ALL_CATEGORIES.observeNanos(System.nanoTime() - start);
         }
         return categories;
     }
@@ -58,19 +111,22 @@ public class FoodItemDAO {
      * @throws SQLException If a database access error occurs during the operation.
      */
     public List<FoodItem> getFoodItemsByCategory(int categoryId) throws SQLException {
+        long start = System.nanoTime();
         List<FoodItem> foodItems = new ArrayList<>();
         // SQL to join FoodItems with Categories to get category name
         String sql = "SELECT f.FoodItemID, f.Name, f.Price, f.Description, c.CategoryName, c.CategoryID " +
                 "FROM FoodItems f JOIN Categories c ON f.CategoryID = c.CategoryID " +
-                "WHERE f.CategoryID = ?";
+                "WHERE f.CategoryID = ? AND f.RestaurantID = ?";
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
 
+        Deadline.Scope deadline = Deadline.within(READ_DEADLINE_MILLIS);
         try {
-            conn = DatabaseManager.getConnection();
+            conn = DatabaseManager.getReadConnection(sessionId);
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, categoryId); // Set the category ID parameter
+            pstmt.setInt(2, restaurantId);
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -88,6 +144,8 @@ public class FoodItemDAO {
             throw e;
         } finally {
             closeResources(conn, pstmt, rs);
+            deadline.close();
+            GET_BY_CATEGORY.observeNanos(System.nanoTime() - start);
         }
         return foodItems;
     }
@@ -97,23 +155,26 @@ public class FoodItemDAO {
      * This method is useful for operations requiring details of a specific item,
      * e.g., when adding to cart if only the ID is known initially.
      * @param foodItemId The unique ID of the food item to retrieve.
-     * @return A FoodItem object if found, null otherwise.
+     * @return A FoodItem object if found in this restaurant's menu, null otherwise.
      * @throws SQLException If a database access error occurs.
      */
     public FoodItem getFoodItemById(int foodItemId) throws SQLException {
+        long start = System.nanoTime();
         FoodItem foodItem = null;
         // SQL to join FoodItems with Categories to get category name
         String sql = "SELECT f.FoodItemID, f.Name, f.Price, f.Description, c.CategoryName, c.CategoryID " +
                 "FROM FoodItems f JOIN Categories c ON f.CategoryID = c.CategoryID " +
-                "WHERE f.FoodItemID = ?";
+                "WHERE f.FoodItemID = ? AND f.RestaurantID = ?";
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
 
+        Deadline.Scope deadline = Deadline.within(READ_DEADLINE_MILLIS);
         try {
-            conn = DatabaseManager.getConnection();
+            conn = DatabaseManager.getReadConnection(sessionId);
             pstmt = conn.prepareStatement(sql);
             pstmt.setInt(1, foodItemId);
+            pstmt.setInt(2, restaurantId);
             rs = pstmt.executeQuery();
 
             if (rs.next()) {
@@ -129,10 +190,103 @@ public class FoodItemDAO {
             throw e;
         } finally {
             closeResources(conn, pstmt, rs);
+            deadline.close();
+            GET_BY_ID.observeNanos(System.nanoTime() - start);
         }
         return foodItem;
     }
 
+    /**
+     * Retrieves several food items in one round trip with an IN-list on FoodItemID.
+     * Large requests are split into chunks that stay under SQL Server's 2100-parameter limit.
+     * @param foodItemIds The IDs to look up; duplicates are ignored.
+     * @return The items found, keyed by ID. IDs that do not exist in this restaurant are absent from the map.
+     * @throws SQLException If a database access error occurs.
+     */
+    public Map<Integer, FoodItem> getFoodItemsByIds(Collection<Integer> foodItemIds) throws SQLException {
+        long start = System.nanoTime();
+        Map<Integer, FoodItem> foodItems = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(foodItemIds));
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        Deadline.Scope deadline = Deadline.within(READ_DEADLINE_MILLIS);
+        try {
+            conn = DatabaseManager.getReadConnection(sessionId);
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+                StringBuilder sql = new StringBuilder("SELECT f.FoodItemID, f.Name, f.Price, f.Description, c.CategoryName, c.CategoryID " +
+                        "FROM FoodItems f JOIN Categories c ON f.CategoryID = c.CategoryID " +
+                        "WHERE f.RestaurantID = ? AND f.FoodItemID IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                pstmt = conn.prepareStatement(sql.append(')').toString());
+                pstmt.setInt(1, restaurantId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 2, chunk.get(i));
+                }
+                rs = pstmt.executeQuery();
+
+                while (rs.next()) {
+                    int foodItemId = rs.getInt("FoodItemID");
+                    foodItems.put(foodItemId, new FoodItem(foodItemId, rs.getString("Name"), rs.getDouble("Price"),
+                            rs.getString("Description"), rs.getString("CategoryName"), rs.getInt("CategoryID")));
+                }
+                rs.close();
+                rs = null;
+                pstmt.close();
+                pstmt = null;
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching " + ids.size() + " food items by ID from database.", e);
+            throw e;
+        } finally {
+            closeResources(conn, pstmt, rs);
+            deadline.close();
+            GET_BY_IDS.observeNanos(System.nanoTime() - start);
+        }
+        return foodItems;
+    }
+
+    /**
+     * Retrieves the restaurant's whole menu in one query, e.g. to load it into a cache.
+     * @return Every food item of the restaurant, grouped by category.
+     * @throws SQLException If a database access error occurs.
+     */
+    public List<FoodItem> getAllFoodItems() throws SQLException {
+        long start = System.nanoTime();
+        List<FoodItem> foodItems = new ArrayList<>();
+        String sql = "SELECT f.FoodItemID, f.Name, f.Price, f.Description, c.CategoryName, c.CategoryID " +
+                "FROM FoodItems f JOIN Categories c ON f.CategoryID = c.CategoryID " +
+                "WHERE f.RestaurantID = ? ORDER BY f.CategoryID, f.FoodItemID";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        Deadline.Scope deadline = Deadline.within(READ_DEADLINE_MILLIS);
+        try {
+            conn = DatabaseManager.getReadConnection(sessionId);
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, restaurantId);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                foodItems.add(new FoodItem(rs.getInt("FoodItemID"), rs.getString("Name"), rs.getDouble("Price"),
+                        rs.getString("Description"), rs.getString("CategoryName"), rs.getInt("CategoryID")));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching the menu of restaurant " + restaurantId + " from database.", e);
+            throw e;
+        } finally {
+            closeResources(conn, pstmt, rs);
+            deadline.close();
+            GET_ALL_ITEMS.observeNanos(System.nanoTime() - start);
+        }
+        return foodItems;
+    }
+
     /**
      * A helper method to close database resources (Connection, PreparedStatement, ResultSet) safely.
      * This method suppresses SQLExceptions during closing, as it's typically used in finally blocks
@@ -4,16 +4,19 @@ package com.foodordering.system;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.text.NumberFormat; // Import for currency formatting
 import java.util.Locale;       // Import for locale for currency formatting
 
-public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListener {
+public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListener, CatalogChangeListener {
     private JTextField searchField;
     private JPanel categoryPanel;
     private JPanel menuDisplayPanel;
@@ -25,14 +28,29 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
     private MenuCategory rootMenu;
     private OrderProcessor orderProcessor;
     private FoodItemDAO foodItemDAO;
+    private SalesAnalytics salesAnalytics;
+    private CoOccurrenceRecommender recommender; // Null until built from the order history; read and set on the EDT
+    private KitchenDispatcher kitchenDispatcher; // Routes committed orders to the kitchen stations
+    private TenantCatalogCache catalogCache; // This restaurant's menu, also used for checkout revalidation
+    private CatalogChangePoller catalogPoller; // Live price/availability changes from other sessions
+    private final Map<Integer, MenuCategory> categoriesById = new HashMap<>();
+    private final Map<Integer, JButton> categoryButtons = new HashMap<>();
+    private final Map<Integer, JPanel> visibleCards = new HashMap<>(); // FoodItemID -> card currently on screen
+    private MenuCategory displayedCategory; // Category shown in the menu panel; null while showing search results
 
     private List<FoodItem> allIndividualFoodItemsForSearch;
+    private Map<Integer, FoodItem> foodItemsById; // For resolving recommended FoodItemIDs to names
 
     private static final Logger LOGGER = Logger.getLogger(FoodOrderingSystemGUI.class.getName());
+    private static final MetricsRegistry.Counter SEARCHES = MetricsRegistry.getInstance().counter(
+            "foodordering_search_total", "Menu searches run from the search field");
+    private static final MetricsRegistry.Histogram SEARCH_LATENCY = MetricsRegistry.getInstance().histogram(
+            "foodordering_search_seconds", "Time to filter the menu and lay out the results of a search");
 
     // UI Components for Cart Display
     private JTextArea cartTextArea; // To display items in the cart
     private JLabel totalLabel;     // To display the total price
+    private JLabel suggestionsLabel; // "Frequently bought together" add-ons for the cart
     private JButton checkoutButton;
 
     public FoodOrderingSystemGUI() {
@@ -49,12 +67,38 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
 
         orderProcessor = new OrderProcessor();
         foodItemDAO = new FoodItemDAO();
+        foodItemDAO.setSessionId(cart.getCartId()); // Reads from the primary right after this session orders
+        salesAnalytics = new SalesAnalytics();
+        orderProcessor.addOrderListener(salesAnalytics); // Feed live sales figures from committed orders
+        kitchenDispatcher = new KitchenDispatcher();
+        orderProcessor.addOrderListener(kitchenDispatcher); // Queue each committed order's lines at the kitchen stations
+        kitchenDispatcher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(kitchenDispatcher::stop, "kitchen-dispatcher-shutdown"));
+        applySchemaMigrations(); // Bring the schema up to date before the outbox delivers orders or anything reads from it
+        openCommandJournal();
+        openOrderOutbox();
+        int restaurantId = foodItemDAO.getRestaurantId();
+        catalogCache = new TenantCatalogCache(id -> id == restaurantId ? foodItemDAO : new FoodItemDAO(id));
+        orderProcessor.setCheckoutValidator(new CheckoutValidator(catalogCache, restaurantId)); // Revalidate cart prices at checkout
+        AdmissionController admission = new AdmissionController();
+        orderProcessor.setAdmissionController(admission); // Shed checkouts before they swamp the database
+        startMetricsServer(admission);
 
         // Initialize UI Components
         setupNorthPanel();
         setupMenuPanel();
         setupCartPanel();
+        openInventory();
+        loadPromotions();
+        catalogPoller = new CatalogChangePoller(foodItemDAO.getRestaurantId()); // Only this restaurant's changes
+        catalogPoller.addListener(this);
+        boolean catalogFeed = initializeCatalogFeed(); // Before loading, so no change is missed in between
         loadMenuData(); // Load menu from database
+        if (catalogFeed) {
+            catalogPoller.start();
+        }
+        seedSalesAnalytics();
+        buildRecommendations();
 
         // Initial cart display update
         cartUpdated(); // Call immediately to set up initial cart state
@@ -63,6 +107,97 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
         ((JPanel) getContentPane()).setBorder(new EmptyBorder(10, 10, 10, 10));
     }
 
+    /**
+     * Records executed cart commands in the on-disk journal. The GUI works without it if it cannot be opened.
+     */
+    private void openCommandJournal() {
+        try {
+            CommandJournal journal = CommandJournal.open(CommandJournal.defaultDirectory());
+            CommandBus.getInstance().setJournal(journal);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "command-journal-shutdown"));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the command journal; commands will not be recorded.", e);
+        }
+    }
+
+    /**
+     * Accepts orders into the durable outbox so checkout keeps working while the database is unreachable.
+     * Without it, orders are written to the database directly as before.
+     */
+    private void openOrderOutbox() {
+        try {
+            OrderOutbox outbox = new OrderOutbox(OrderOutbox.defaultDirectory(), orderProcessor);
+            orderProcessor.setOutbox(outbox);
+            outbox.start();
+            MetricsRegistry.getInstance().gauge("foodordering_outbox_depth", "Orders accepted but not yet written to the database", outbox::getDepth);
+            MetricsRegistry.getInstance().gauge("foodordering_outbox_lag_seconds", "Age of the oldest undelivered order",
+                    () -> outbox.getLagMillis() / 1000.0);
+            Runtime.getRuntime().addShutdownHook(new Thread(outbox::close, "order-outbox-shutdown"));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the order outbox; orders will be written to the database directly.", e);
+        }
+    }
+
+    /**
+     * Exposes the application's metrics for scraping, adding gauges for the queues this window owns.
+     * Disabled with {@code -Dfoodordering.metrics.enabled=false}; the GUI works without it.
+     */
+    private void startMetricsServer(AdmissionController admission) {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("foodordering_admission_limit", "Concurrent checkouts currently admitted at most", admission::getLimit);
+        metrics.gauge("foodordering_admission_in_flight", "Checkouts currently being processed", admission::getInFlight);
+        metrics.gauge("foodordering_command_queue_depth", "Commands waiting on the CommandBus lanes",
+                () -> CommandBus.getInstance().getTotalQueueDepth());
+        metrics.gauge("foodordering_kitchen_open_orders", "Orders with tickets still at a kitchen station",
+                kitchenDispatcher::getOpenOrders);
+        for (String station : kitchenDispatcher.getStationNames()) {
+            metrics.gauge("foodordering_kitchen_queue_depth", "Tickets waiting at a kitchen station",
+                    () -> kitchenDispatcher.getQueueDepth(station), "station", station);
+        }
+        if (!Boolean.parseBoolean(System.getProperty("foodordering.metrics.enabled", "true"))) {
+            return;
+        }
+        try {
+            MetricsServer server = MetricsServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "metrics-server-shutdown"));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not start the metrics server; metrics will not be exposed.", e);
+        }
+    }
+
+    /**
+     * Loads stock levels so items are reserved as they enter the cart. Without the Inventory table,
+     * items are sold without stock limits as before.
+     */
+    private void openInventory() {
+        InventoryManager inventory = new InventoryManager();
+        try {
+            inventory.load();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not load inventory; stock will not be tracked.", e);
+            return;
+        }
+        cart.setInventory(inventory);
+        orderProcessor.setInventory(inventory);
+        inventory.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(inventory::stop, "inventory-shutdown"));
+    }
+
+    /**
+     * Prices the cart with the promotions in the database. Without the Promotions table the cart
+     * charges list prices as before.
+     */
+    private void loadPromotions() {
+        PromotionEngine promotions = new PromotionEngine();
+        try {
+            promotions.load();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not load promotions; list prices will be charged.", e);
+            return;
+        }
+        cart.setPromotions(promotions);
+    }
+
     private void setupNorthPanel() {
         JPanel northPanel = new JPanel(new BorderLayout(5, 5));
         northPanel.setBackground(new Color(25, 25, 112)); // Midnight Blue
@@ -140,6 +275,12 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
         totalLabel.setBorder(new EmptyBorder(5, 5, 5, 5));
         southCartPanel.add(totalLabel, BorderLayout.NORTH);
 
+        suggestionsLabel = new JLabel(" ");
+        suggestionsLabel.setFont(new Font("Arial", Font.ITALIC, 12));
+        suggestionsLabel.setForeground(new Color(105, 105, 105)); // DimGray
+        suggestionsLabel.setBorder(new EmptyBorder(0, 5, 5, 5));
+        southCartPanel.add(suggestionsLabel, BorderLayout.CENTER);
+
         checkoutButton = new JButton("Checkout");
         checkoutButton.setBackground(new Color(60, 179, 113)); // Medium Sea Green
         checkoutButton.setForeground(Color.WHITE);
@@ -157,23 +298,18 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
         try {
             rootMenu = new MenuCategory("Root Menu", 0); // Root category
             allIndividualFoodItemsForSearch = new ArrayList<>();
+            foodItemsById = new HashMap<>();
 
-            List<MenuCategory> categories = foodItemDAO.getAllCategories();
+            // The whole menu in two queries; it stays cached, so checkout validation starts warm
+            List<MenuCategory> categories = catalogCache.getMenu(foodItemDAO.getRestaurantId());
             for (MenuCategory category : categories) {
-                // Add category button
-                JButton categoryButton = new JButton(category.getName());
-                styleCategoryButton(categoryButton);
-                categoryButton.addActionListener(e -> displayMenuItems(category));
-                categoryPanel.add(categoryButton);
-                categoryPanel.add(Box.createRigidArea(new Dimension(0, 5))); // Spacer
-
-                // Add food items to the category using the new DAO method
-                List<FoodItem> itemsInCategory = foodItemDAO.getFoodItemsByCategory(category.getCategoryId());
-                for (FoodItem item : itemsInCategory) {
-                    category.add(item); // Add food item to the MenuCategory composite
+                addCategory(category); // Add to the menu tree with its button
+                for (FoodItem item : category.getItems()) {
                     allIndividualFoodItemsForSearch.add(item); // For overall search
+                    foodItemsById.put(item.getFoodItemId(), item);
                 }
             }
+
             // Display the first category's items by default if available
             if (!categories.isEmpty()) {
                 displayMenuItems(categories.get(0));
@@ -185,6 +321,233 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
         }
     }
 
+    /**
+     * Adds a category to the menu tree and gives it a button in the category panel.
+     */
+    private void addCategory(MenuCategory category) {
+        rootMenu.add(category);
+        categoriesById.put(category.getCategoryId(), category);
+
+        JButton categoryButton = new JButton(category.getName());
+        styleCategoryButton(categoryButton);
+        categoryButton.addActionListener(e -> displayMenuItems(category));
+        categoryPanel.add(categoryButton);
+        categoryPanel.add(Box.createRigidArea(new Dimension(0, 5))); // Spacer
+        categoryButtons.put(category.getCategoryId(), categoryButton);
+    }
+
+    private boolean initializeCatalogFeed() {
+        try {
+            catalogPoller.initialize();
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Catalog change feed unavailable; prices will refresh on restart only.", e);
+            return false;
+        }
+    }
+
+    // Called on the poller thread; the menu and cart are updated on the Event Dispatch Thread.
+    @Override
+    public void catalogChanged(List<CatalogChange> changes) {
+        SwingUtilities.invokeLater(() -> applyCatalogChanges(changes));
+    }
+
+    /**
+     * Applies catalog deltas to the menu tree, search list, lookup maps, catalog cache and cart,
+     * and redraws only the cards of items that changed. Categories are added or renamed first so
+     * new items have somewhere to go; deleted categories are removed last, after their items.
+     */
+    private void applyCatalogChanges(List<CatalogChange> changes) {
+        if (rootMenu == null) {
+            return; // Menu never loaded
+        }
+        Map<Integer, FoodItem> cartItemsById = new HashMap<>();
+        for (FoodItem item : cart.getCartItems().keySet()) {
+            cartItemsById.put(item.getFoodItemId(), item);
+        }
+        Map<FoodItem, FoodItem> cartReplacements = new HashMap<>();
+
+        for (CatalogChange change : changes) {
+            if (change.getKind() == CatalogChange.Kind.CATEGORY_UPSERTED) {
+                applyCategoryUpsert(change.getCategoryId(), change.getCategoryName(), cartItemsById, cartReplacements);
+            }
+        }
+        for (CatalogChange change : changes) {
+            if (change.getKind() == CatalogChange.Kind.ITEM_UPSERTED) {
+                applyItemUpsert(change.getItem(), cartItemsById, cartReplacements);
+            } else if (change.getKind() == CatalogChange.Kind.ITEM_DELETED) {
+                applyItemDelete(change.getFoodItemId(), cartItemsById, cartReplacements);
+            }
+        }
+        for (CatalogChange change : changes) {
+            if (change.getKind() == CatalogChange.Kind.CATEGORY_DELETED) {
+                applyCategoryDelete(change.getCategoryId());
+            }
+        }
+
+        if (!cartReplacements.isEmpty()) {
+            cart.replaceItems(cartReplacements); // Cart shows current prices; checkout validation stays quiet
+        }
+        categoryPanel.revalidate();
+        categoryPanel.repaint();
+        menuDisplayPanel.revalidate();
+        menuDisplayPanel.repaint();
+        LOGGER.info("Applied " + changes.size() + " live catalog changes.");
+    }
+
+    private void applyCategoryUpsert(int categoryId, String name, Map<Integer, FoodItem> cartItemsById,
+                                     Map<FoodItem, FoodItem> cartReplacements) {
+        MenuCategory category = categoriesById.get(categoryId);
+        if (category == null) {
+            addCategory(new MenuCategory(name, categoryId));
+            return;
+        }
+        if (category.getName().equals(name)) {
+            return;
+        }
+        category.setName(name);
+        categoryButtons.get(categoryId).setText(name);
+        // Items carry their category name (used by search and the packaging message)
+        for (MenuItem child : new ArrayList<>(category.getChildren())) {
+            if (child instanceof FoodItem) {
+                FoodItem item = (FoodItem) child;
+                applyItemUpsert(new FoodItem(item.getFoodItemId(), item.getName(), item.getPrice(), item.getDescription(),
+                        name, categoryId), cartItemsById, cartReplacements);
+            }
+        }
+    }
+
+    private void applyCategoryDelete(int categoryId) {
+        MenuCategory category = categoriesById.remove(categoryId);
+        JButton button = categoryButtons.remove(categoryId);
+        if (category == null) {
+            return;
+        }
+        rootMenu.remove(category);
+        if (button != null) {
+            int index = categoryPanel.getComponentZOrder(button);
+            categoryPanel.remove(index + 1); // Spacer added after the button
+            categoryPanel.remove(index);
+        }
+        if (displayedCategory == category) {
+            menuDisplayPanel.removeAll();
+            visibleCards.clear();
+        }
+    }
+
+    private void applyItemUpsert(FoodItem item, Map<Integer, FoodItem> cartItemsById, Map<FoodItem, FoodItem> cartReplacements) {
+        int id = item.getFoodItemId();
+        FoodItem old = foodItemsById.put(id, item);
+        MenuCategory target = categoriesById.get(item.getCategoryId());
+        if (old != null) {
+            MenuCategory from = categoriesById.get(old.getCategoryId());
+            if (from != null && from == target) {
+                from.replace(old, item);
+            } else {
+                if (from != null) {
+                    from.remove(old);
+                }
+                if (target != null) {
+                    target.add(item);
+                }
+            }
+            int searchIndex = allIndividualFoodItemsForSearch.indexOf(old);
+            if (searchIndex >= 0) {
+                allIndividualFoodItemsForSearch.set(searchIndex, item);
+            } else {
+                allIndividualFoodItemsForSearch.add(item);
+            }
+        } else {
+            if (target != null) {
+                target.add(item);
+            }
+            allIndividualFoodItemsForSearch.add(item);
+        }
+        catalogCache.invalidate(foodItemDAO.getRestaurantId(), id); // Reloaded on the next checkout that needs it
+
+        JPanel card = visibleCards.get(id);
+        if (card != null) {
+            if (displayedCategory == null || displayedCategory == target) {
+                card.removeAll();
+                item.display(card, cart, this);
+                card.revalidate();
+                card.repaint();
+            } else {
+                menuDisplayPanel.remove(card); // Moved out of the category on screen
+                visibleCards.remove(id);
+            }
+        } else if (displayedCategory != null && displayedCategory == target) {
+            addItemCard(item);
+        }
+
+        FoodItem inCart = cartItemsById.get(id);
+        if (inCart != null) {
+            cartReplacements.put(inCart, inCart instanceof FoodWrapper ? new FoodWrapperBuilder().withFoodItem(item).build() : item);
+        }
+    }
+
+    private void applyItemDelete(int foodItemId, Map<Integer, FoodItem> cartItemsById, Map<FoodItem, FoodItem> cartReplacements) {
+        FoodItem old = foodItemsById.remove(foodItemId);
+        if (old != null) {
+            MenuCategory from = categoriesById.get(old.getCategoryId());
+            if (from != null) {
+                from.remove(old);
+            }
+            allIndividualFoodItemsForSearch.remove(old);
+        }
+        catalogCache.invalidate(foodItemDAO.getRestaurantId(), foodItemId);
+
+        JPanel card = visibleCards.remove(foodItemId);
+        if (card != null) {
+            menuDisplayPanel.remove(card);
+        }
+        FoodItem inCart = cartItemsById.get(foodItemId);
+        if (inCart != null) {
+            cartReplacements.put(inCart, null); // No longer sold
+        }
+    }
+
+    private void applySchemaMigrations() {
+        try {
+            new SchemaMigrator().migrate();
+        } catch (SQLException | java.io.IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to apply schema migrations.", e);
+            JOptionPane.showMessageDialog(this, "Error updating database schema: " + e.getMessage(), "Database Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void seedSalesAnalytics() {
+        try {
+            salesAnalytics.seed();
+        } catch (SQLException e) {
+            // Analytics are best-effort; the window simply starts empty and fills from live orders.
+            LOGGER.log(Level.WARNING, "Could not seed sales analytics; starting with an empty window.", e);
+        }
+    }
+
+    /**
+     * Builds the recommender from the order history off the EDT, so a long history does not hold up the
+     * window, and publishes it once built. Until then the cart shows no suggestions.
+     */
+    private void buildRecommendations() {
+        Thread builder = new Thread(() -> {
+            CoOccurrenceRecommender built = new CoOccurrenceRecommender();
+            try {
+                built.build();
+            } catch (SQLException e) {
+                // Suggestions are best-effort; the matrix fills from live orders instead.
+                LOGGER.log(Level.WARNING, "Could not build recommendations from order history.", e);
+            }
+            orderProcessor.addOrderListener(built); // Learn new item pairings as orders are committed
+            SwingUtilities.invokeLater(() -> {
+                recommender = built;
+                updateSuggestions();
+            });
+        }, "recommender-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
     private void styleCategoryButton(JButton button) {
         button.setAlignmentX(Component.CENTER_ALIGNMENT);
         button.setMaximumSize(new Dimension(Integer.MAX_VALUE, button.getMinimumSize().height));
@@ -198,21 +561,33 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
 
     private void displayMenuItems(MenuCategory category) {
         menuDisplayPanel.removeAll(); // Clear previous items
+        visibleCards.clear();
+        displayedCategory = category;
 
         for (MenuItem item : category.getChildren()) {
-            JPanel itemCard = new JPanel(new BorderLayout());
-            itemCard.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1));
-            itemCard.setBackground(Color.WHITE);
-
-            // Use the display method from MenuItem (FoodItem or SizedFoodItem)
-            item.display(itemCard, cart, this); // 'this' refers to the parent JFrame for dialogs
-
-            menuDisplayPanel.add(itemCard);
+            addItemCard(item);
         }
         menuDisplayPanel.revalidate();
         menuDisplayPanel.repaint();
     }
 
+    /**
+     * Adds one item's card to the menu panel and remembers it so live catalog changes can redraw it alone.
+     */
+    private void addItemCard(MenuItem item) {
+        JPanel itemCard = new JPanel(new BorderLayout());
+        itemCard.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1));
+        itemCard.setBackground(Color.WHITE);
+
+        // Use the display method from MenuItem (FoodItem or SizedFoodItem)
+        item.display(itemCard, cart, this); // 'this' refers to the parent JFrame for dialogs
+
+        menuDisplayPanel.add(itemCard);
+        if (item instanceof FoodItem) {
+            visibleCards.put(((FoodItem) item).getFoodItemId(), itemCard);
+        }
+    }
+
     private void performSearch(String query) {
         if (query.equals("Search menu...") || query.trim().isEmpty()) {
             // If search field is empty or default text, redisplay the first category
@@ -229,22 +604,23 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
             return;
         }
 
+        SEARCHES.increment();
+        long start = System.nanoTime();
         menuDisplayPanel.removeAll();
+        visibleCards.clear();
+        displayedCategory = null;
         String lowerCaseQuery = query.toLowerCase();
 
         // Search through all individual FoodItems collected for search
         for (FoodItem item : allIndividualFoodItemsForSearch) {
             if (item.contains(lowerCaseQuery)) {
-                JPanel itemCard = new JPanel(new BorderLayout());
-                itemCard.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1));
-                itemCard.setBackground(Color.WHITE);
-                item.display(itemCard, cart, this);
-                menuDisplayPanel.add(itemCard);
+                addItemCard(item);
             }
         }
 
         menuDisplayPanel.revalidate();
         menuDisplayPanel.repaint();
+        SEARCH_LATENCY.observeNanos(System.nanoTime() - start);
 
         if (menuDisplayPanel.getComponentCount() == 0) {
             JOptionPane.showMessageDialog(this, "No items found matching your search.", "Search Results", JOptionPane.INFORMATION_MESSAGE);
@@ -260,6 +636,7 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
         }
 
         JDialog paymentDialog = new JDialog(this, "Complete Your Order", true);
+        String checkoutKey = UUID.randomUUID().toString(); // One idempotency key per checkout, however often it is submitted
         paymentDialog.setLayout(new BorderLayout(10, 10));
         paymentDialog.setSize(400, 350);
         paymentDialog.setLocationRelativeTo(this);
@@ -305,10 +682,12 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
                 return;
             }
 
-            // Command Pattern: Invoker (Button) executing a Command
+            placeOrderBtn.setEnabled(false); // Guard against double-clicks; the key catches anything that slips through
+
+            // Command Pattern: Invoker (Button) queuing a Command on the CommandBus
             // Pass customer details to the PlaceOrderCommand which will pass to OrderProcessor
-            Command placeOrderCommand = new PlaceOrderCommand(cart, orderProcessor, this, customerName, customerAddress);
-            placeOrderCommand.execute();
+            Command placeOrderCommand = new PlaceOrderCommand(cart, orderProcessor, this, customerName, customerAddress, checkoutKey);
+            CommandBus.getInstance().dispatch(placeOrderCommand);
             paymentDialog.dispose(); // Close dialog after order attempt
         });
 
@@ -330,7 +709,12 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
     // This method is called by the ShoppingCart whenever its contents change.
     @Override
     public void cartUpdated() {
-        updateCartDisplay(); // Delegate to a helper method to update the UI
+        // Cart commands run on the CommandBus, so marshal the refresh onto the Event Dispatch Thread
+        if (SwingUtilities.isEventDispatchThread()) {
+            updateCartDisplay(); // Delegate to a helper method to update the UI
+        } else {
+            SwingUtilities.invokeLater(this::updateCartDisplay);
+        }
     }
 
     /**
@@ -360,6 +744,13 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
             currentTotal += subtotal; // Accumulate total
         }
 
+        // Promotions the cart currently qualifies for
+        for (Map.Entry<Promotion, Double> promotion : cart.getAppliedPromotions().entrySet()) {
+            cartContent.append(String.format("%s: -%s%n", promotion.getKey().getName(),
+                    currencyFormat.format(promotion.getValue())));
+        }
+        currentTotal -= cart.getDiscount();
+
         // Set the text area content
         cartTextArea.setText(cartContent.toString());
 
@@ -368,9 +759,37 @@ public class FoodOrderingSystemGUI extends JFrame implements ShoppingCartListene
 
         // Enable/disable checkout button based on cart content
         checkoutButton.setEnabled(!cart.getCartItems().isEmpty());
+
+        updateSuggestions();
+    }
+
+    /**
+     * Shows add-ons frequently bought together with the items currently in the cart.
+     */
+    private void updateSuggestions() {
+        if (recommender == null || foodItemsById == null) {
+            return;
+        }
+        List<Integer> cartItemIds = new ArrayList<>();
+        for (FoodItem item : cart.getCartItems().keySet()) {
+            cartItemIds.add(item.getFoodItemId());
+        }
+        StringBuilder names = new StringBuilder();
+        for (int id : recommender.suggestForCart(cartItemIds, 3)) {
+            FoodItem suggested = foodItemsById.get(id);
+            if (suggested != null) {
+                names.append(names.length() == 0 ? "" : ", ").append(suggested.getName());
+            }
+        }
+        suggestionsLabel.setText(names.length() == 0 ? " " : "<html>You may also like: " + names + "</html>");
     }
 
     public static void main(String[] args) {
+        try {
+            AsyncLogHandler.install(); // Log to rolling files off the UI and checkout threads
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not open the log directory; logging to the console only.", e);
+        }
         // Ensure GUI updates are done on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             new FoodOrderingSystemGUI().setVisible(true);
@@ -10,9 +10,13 @@ import java.util.ArrayList;
  * A wrapper class that extends FoodItem to include a specific message
  * indicating how the food item is "wrapped" or prepared for delivery.
  * This acts as a decorator for FoodItem with an added message property.
+ * A wrapper built from a FoodItem copies the item's field values (references to the same strings
+ * and category descriptor, not copies of them) and renders its message from the category's
+ * PackagingTemplate only when it is shown.
  */
 class FoodWrapper extends FoodItem {
-    private String wrapperMessage;
+    private final PackagingTemplate packaging; // Null when the message was given up front
+    private String wrapperMessage; // Rendered on first use when built from a template
 
     /**
      * Constructor for FoodWrapper using the detailed FoodItem constructor.
@@ -20,15 +24,27 @@ class FoodWrapper extends FoodItem {
      */
     public FoodWrapper(int foodItemId, String name, double price, String description, String categoryName, int categoryId, String wrapperMessage) {
         super(foodItemId, name, price, description, categoryName, categoryId);
+        this.packaging = null;
         this.wrapperMessage = wrapperMessage;
     }
 
+    /**
+     * Wraps an item; the message is rendered from the template when first asked for.
+     * @param item The original item.
+     * @param packaging The template for the item's packaging message.
+     */
+    FoodWrapper(FoodItem item, PackagingTemplate packaging) {
+        super(item.getFoodItemId(), item.getName(), item.getPrice(), item.getDescription(), item.getCategory(), item.getCategoryId());
+        this.packaging = packaging;
+    }
+
     /**
      * Constructor for FoodWrapper using the simpler FoodItem constructor.
      * Useful for items not fetched from DB or for testing.
      */
     public FoodWrapper(String name, double price, String description, String categoryName, String wrapperMessage) {
         super(name, price, description, categoryName);
+        this.packaging = null;
         this.wrapperMessage = wrapperMessage;
     }
 
@@ -37,7 +53,12 @@ class FoodWrapper extends FoodItem {
      * @return The wrapper message string.
      */
     public String getWrapperMessage() {
-        return wrapperMessage;
+        String message = wrapperMessage;
+        if (message == null) {
+            message = packaging.render(this); // Rendering twice on a race is harmless
+            wrapperMessage = message;
+        }
+        return message;
     }
 
     /**
@@ -7,6 +7,6 @@ package com.foodordering.system;
 class FriedChickenFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Fried Chicken");
+        return CategoryRegistry.FRIED_CHICKEN.createFoodItem(name, price, description);
     }
 }
@@ -7,6 +7,6 @@ package com.foodordering.system;
 class FriesFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Fries");
+        return CategoryRegistry.FRIES.createFoodItem(name, price, description);
     }
 }
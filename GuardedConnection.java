@@ -0,0 +1,117 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a JDBC connection so every statement it creates runs with a query timeout taken from the
+ * current Deadline (or {@code foodordering.db.queryTimeoutSeconds}, default 0 for none), and so the
+ * outcome and duration of every execute and commit are reported to a CircuitBreaker. DAOs keep using
+ * plain JDBC; DatabaseManager hands out the wrapped connections.
+ */
+final class GuardedConnection implements InvocationHandler {
+    private static final int DEFAULT_QUERY_TIMEOUT_SECONDS = Integer.getInteger("foodordering.db.queryTimeoutSeconds", 0);
+    private static final AtomicInteger OPEN = new AtomicInteger(); // Wrapped connections not yet closed
+
+    private final Connection target;
+    private final CircuitBreaker breaker; // Null: timeouts only
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Connection proxy;
+
+    private GuardedConnection(Connection target, CircuitBreaker breaker) {
+        this.target = target;
+        this.breaker = breaker;
+    }
+
+    /**
+     * @param breaker Receives call outcomes, or null to only apply timeouts.
+     */
+    static Connection wrap(Connection connection, CircuitBreaker breaker) {
+        GuardedConnection handler = new GuardedConnection(connection, breaker);
+        handler.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+        OPEN.incrementAndGet();
+        return handler.proxy;
+    }
+
+    /**
+     * @return Connections handed out by DatabaseManager and not closed yet.
+     */
+    static int getOpenCount() {
+        return OPEN.get();
+    }
+
+    @Override
+    public Object invoke(Object self, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("commit")) {
+            return timed(target, method, args);
+        }
+        if (name.equals("close") && closed.compareAndSet(false, true)) {
+            OPEN.decrementAndGet();
+        }
+        Object result = invokeTarget(target, method, args);
+        if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            // Proxy the interface the caller asked for: Statement, PreparedStatement or CallableStatement
+            return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{method.getReturnType()},
+                    new StatementHandler((Statement) result));
+        }
+        return result;
+    }
+
+    /**
+     * Applies the deadline to each execute call and reports how it went.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+
+        StatementHandler(Statement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                statement.setQueryTimeout(Deadline.timeoutSeconds(DEFAULT_QUERY_TIMEOUT_SECONDS));
+                return timed(statement, method, args);
+            }
+            if (name.equals("getConnection")) {
+                return proxy;
+            }
+            return invokeTarget(statement, method, args);
+        }
+    }
+
+    private Object timed(Object on, Method method, Object[] args) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = invokeTarget(on, method, args);
+            if (breaker != null) {
+                breaker.onSuccess(System.nanoTime() - start);
+            }
+            return result;
+        } catch (SQLException e) {
+            if (breaker != null) {
+                breaker.onError(System.nanoTime() - start, e);
+            }
+            throw e;
+        }
+    }
+
+    private static Object invokeTarget(Object on, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(on, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause(); // The driver's own exception, as the caller would have seen it
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU memory of recently submitted idempotency keys, so a double-click or client retry is
+ * answered without a database round trip. A key is claimed before the order is written; a second
+ * submission of a claimed key is reported as a duplicate, even while the first is still in flight.
+ * The unique index on Orders.IdempotencyKey remains the authority once a key has been evicted.
+ */
+class IdempotencyCache {
+    private static final OrderResult IN_FLIGHT = OrderResult.duplicate(0);
+
+    private final Map<String, OrderResult> keys;
+
+    IdempotencyCache(int capacity) {
+        keys = new LinkedHashMap<String, OrderResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrderResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Claims a key for a new submission.
+     * @return null if the key was free and is now claimed, otherwise the duplicate result to report.
+     */
+    public synchronized OrderResult claim(String key) {
+        OrderResult previous = keys.get(key);
+        if (previous == null) {
+            keys.put(key, IN_FLIGHT);
+            return null;
+        }
+        return previous == IN_FLIGHT ? previous : OrderResult.duplicate(previous.getOrderId());
+    }
+
+    /**
+     * Records the outcome of a claimed key. A failed submission releases the key so it can be retried.
+     */
+    public synchronized void complete(String key, OrderResult result) {
+        if (result.isSuccessful() || result.getStatus() == OrderResult.Status.DUPLICATE) {
+            keys.put(key, result);
+        } else {
+            keys.remove(key);
+        }
+    }
+}
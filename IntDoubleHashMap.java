@@ -0,0 +1,161 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive int keys to primitive double values.
+ * Avoids the boxing and per-entry objects of a HashMap&lt;Integer, Double&gt; on hot counting paths.
+ * Uses linear probing with backward-shift deletion, so removals leave no tombstones behind.
+ * Not thread-safe; callers synchronize externally.
+ */
+class IntDoubleHashMap {
+    private static final int EMPTY = Integer.MIN_VALUE; // Reserved key marking a free slot
+
+    private int[] keys;
+    private double[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Callback used to iterate over entries without allocating.
+     */
+    interface EntryConsumer {
+        void accept(int key, double value);
+    }
+
+    public IntDoubleHashMap() {
+        this(16);
+    }
+
+    public IntDoubleHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new double[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(int key) {
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the value for the key, or 0.0 if absent.
+     */
+    public double get(int key) {
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : 0.0;
+    }
+
+    public void put(int key, double value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key " + key + " is reserved.");
+        }
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Adds delta to the value stored for key (treating a missing key as 0.0).
+     * The entry is removed when the result reaches zero, which keeps sliding-window totals compact.
+     * @return The new value.
+     */
+    public double addTo(int key, double delta) {
+        double updated = get(key) + delta;
+        if (Math.abs(updated) < 1e-9) {
+            remove(key);
+            return 0.0;
+        }
+        put(key, updated);
+        return updated;
+    }
+
+    public void remove(int key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return;
+        }
+        // Backward-shift deletion: pull later entries of the probe chain into the gap.
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = mix(keys[j]) & mask;
+            boolean movable = gap <= j ? (home <= gap || home > j) : (home <= gap && home > j);
+            if (movable) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0.0;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0.0);
+        size = 0;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,405 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory stock for items listed in the Inventory table. Adding an item to a cart reserves a unit
+ * and removing it releases the unit, so popular items stop selling the moment they run out instead of
+ * being cancelled after checkout.
+ *
+ * The per-item available count is an AtomicInteger updated with compare-and-set, so thousands of
+ * sessions reserving the same item never block each other and the count can never go below zero.
+ * Each cart's reservation record is only touched by its own session and the expiry sweep, which
+ * synchronize on that record alone.
+ *
+ * Reservations of carts left untouched for {@code foodordering.inventory.reservationMinutes}
+ * (default 15) are released by a sweep; checkout re-reserves anything that expired. Units sold are
+ * written to the database in one batch per reconciliation ({@code foodordering.inventory.reconcileSeconds},
+ * default 10), which also picks up restocks and sales made by other application instances.
+ * Items without an Inventory row are untracked and always available.
+ */
+class InventoryManager {
+    private static final Logger LOGGER = Logger.getLogger(InventoryManager.class.getName());
+
+    private static final String LOAD_SQL = "SELECT FoodItemID, QuantityAvailable FROM Inventory";
+    // Never drive stock negative, even if other instances oversold between reconciliations
+    private static final String SOLD_SQL = "UPDATE Inventory SET QuantityAvailable = " +
+            "CASE WHEN QuantityAvailable >= ? THEN QuantityAvailable - ? ELSE 0 END, UpdatedAt = ? WHERE FoodItemID = ?";
+
+    /**
+     * Units one cart holds, by FoodItemID.
+     */
+    private static class CartReservation {
+        final Map<Integer, Integer> units = new HashMap<>(); // Guarded by this
+        volatile long lastTouchedMillis = System.currentTimeMillis();
+        boolean released; // Set by the sweep or checkout; guarded by this
+    }
+
+    private final Map<Integer, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> lastDatabaseStock = new ConcurrentHashMap<>(); // As of the last reconciliation
+    private final Map<Integer, AtomicInteger> soldSinceReconcile = new ConcurrentHashMap<>();
+    private final Map<Long, CartReservation> reservations = new ConcurrentHashMap<>();
+    private final long reservationMillis;
+    private ScheduledExecutorService scheduler;
+
+    public InventoryManager() {
+        this(TimeUnit.MINUTES.toMillis(Long.getLong("foodordering.inventory.reservationMinutes", 15L)));
+    }
+
+    public InventoryManager(long reservationMillis) {
+        this.reservationMillis = reservationMillis;
+    }
+
+    /**
+     * Loads stock levels from the Inventory table.
+     * @throws SQLException If the table cannot be read.
+     */
+    public void load() throws SQLException {
+        Map<Integer, Integer> stock = readStock();
+        for (Map.Entry<Integer, Integer> entry : stock.entrySet()) {
+            available.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+            lastDatabaseStock.put(entry.getKey(), entry.getValue());
+        }
+        LOGGER.info("Loaded stock for " + stock.size() + " tracked items.");
+    }
+
+    /**
+     * Sets the in-memory stock of an item directly, without a database (used by PerformanceBenchmarks).
+     */
+    void setStock(int foodItemId, int quantity) {
+        available.put(foodItemId, new AtomicInteger(quantity));
+        lastDatabaseStock.put(foodItemId, quantity);
+    }
+
+    /**
+     * Starts the expiry sweep and periodic reconciliation.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        long reconcileSeconds = Long.getLong("foodordering.inventory.reconcileSeconds", 10L);
+        scheduler.scheduleWithFixedDelay(this::expireAbandoned, 30, 30, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Inventory reconciliation failed; sold units will be retried.", e);
+            }
+        }, reconcileSeconds, reconcileSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops background work and writes any unreconciled sales.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        try {
+            reconcile();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Final inventory reconciliation failed.", e);
+        }
+    }
+
+    /**
+     * @return Whether the item's stock is tracked at all.
+     */
+    public boolean isTracked(int foodItemId) {
+        return available.containsKey(foodItemId);
+    }
+
+    /**
+     * @return Units that can still be reserved, or Integer.MAX_VALUE for untracked items.
+     */
+    public int getAvailable(int foodItemId) {
+        AtomicInteger count = available.get(foodItemId);
+        return count == null ? Integer.MAX_VALUE : count.get();
+    }
+
+    /**
+     * Lock-free: takes units from the shared count only if enough are left.
+     */
+    private static boolean take(AtomicInteger count, int quantity) {
+        while (true) {
+            int current = count.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (count.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserves units of an item for a cart.
+     * @return false if not enough stock is left; nothing is reserved in that case.
+     */
+    public boolean reserve(long cartId, int foodItemId, int quantity) {
+        AtomicInteger count = available.get(foodItemId);
+        if (count == null) {
+            return true; // Untracked
+        }
+        if (!take(count, quantity)) {
+            return false;
+        }
+        while (true) {
+            CartReservation reservation = reservations.computeIfAbsent(cartId, id -> new CartReservation());
+            synchronized (reservation) {
+                if (reservation.released) {
+                    continue; // Swept or checked out concurrently; start a fresh record
+                }
+                reservation.units.merge(foodItemId, quantity, Integer::sum);
+                reservation.lastTouchedMillis = System.currentTimeMillis();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code quantity} reserved units of an item from a cart to the shared stock.
+     */
+    public void release(long cartId, int foodItemId, int quantity) {
+        CartReservation reservation = reservations.get(cartId);
+        if (reservation == null) {
+            return;
+        }
+        int released;
+        synchronized (reservation) {
+            if (reservation.released) {
+                return;
+            }
+            Integer held = reservation.units.get(foodItemId);
+            if (held == null) {
+                return;
+            }
+            released = Math.min(held, quantity);
+            if (held > released) {
+                reservation.units.put(foodItemId, held - released);
+            } else {
+                reservation.units.remove(foodItemId);
+            }
+            reservation.lastTouchedMillis = System.currentTimeMillis();
+        }
+        giveBack(foodItemId, released);
+    }
+
+    /**
+     * Releases everything a cart holds (cart cleared or abandoned).
+     */
+    public void releaseAll(long cartId) {
+        Map<Integer, Integer> held = detach(cartId);
+        for (Map.Entry<Integer, Integer> entry : held.entrySet()) {
+            giveBack(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Makes sure the cart holds a reservation for every line before checkout, re-reserving units whose
+     * reservation expired. Nothing changes for lines that are already covered.
+     * @param items The cart lines about to be ordered.
+     * @return The items that cannot be covered; empty if the whole cart is in stock.
+     */
+    public List<FoodItem> confirm(long cartId, Map<FoodItem, Integer> items) {
+        List<FoodItem> shortItems = new ArrayList<>();
+        Map<Integer, Integer> held = heldBy(cartId);
+        for (Map.Entry<FoodItem, Integer> line : items.entrySet()) {
+            int foodItemId = line.getKey().getFoodItemId();
+            int shortfall = line.getValue() - held.getOrDefault(foodItemId, 0);
+            if (shortfall > 0 && !reserve(cartId, foodItemId, shortfall)) {
+                shortItems.add(line.getKey());
+            }
+        }
+        return shortItems;
+    }
+
+    /**
+     * Turns a cart's reservations into sales after its order was placed or accepted.
+     * The units stay out of the shared stock and are written to the database at the next reconciliation.
+     */
+    public void commit(long cartId) {
+        Map<Integer, Integer> held = detach(cartId);
+        for (Map.Entry<Integer, Integer> entry : held.entrySet()) {
+            soldSinceReconcile.computeIfAbsent(entry.getKey(), id -> new AtomicInteger()).addAndGet(entry.getValue());
+        }
+    }
+
+    /**
+     * Marks a cart's record as released and removes it, returning what it held.
+     */
+    private Map<Integer, Integer> detach(long cartId) {
+        CartReservation reservation = reservations.remove(cartId);
+        if (reservation == null) {
+            return new HashMap<>();
+        }
+        synchronized (reservation) {
+            reservation.released = true;
+            return new HashMap<>(reservation.units);
+        }
+    }
+
+    private Map<Integer, Integer> heldBy(long cartId) {
+        CartReservation reservation = reservations.get(cartId);
+        if (reservation == null) {
+            return new HashMap<>();
+        }
+        synchronized (reservation) {
+            return new HashMap<>(reservation.units);
+        }
+    }
+
+    private void giveBack(int foodItemId, int quantity) {
+        AtomicInteger count = available.get(foodItemId);
+        if (count != null && quantity > 0) {
+            count.addAndGet(quantity);
+        }
+    }
+
+    /**
+     * Releases the reservations of carts that have not been touched within the reservation window.
+     * @return The number of carts released.
+     */
+    public int expireAbandoned() {
+        long cutoff = System.currentTimeMillis() - reservationMillis;
+        int expired = 0;
+        for (Map.Entry<Long, CartReservation> entry : reservations.entrySet()) {
+            if (entry.getValue().lastTouchedMillis < cutoff) {
+                releaseAll(entry.getKey());
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            LOGGER.info("Released stock held by " + expired + " abandoned carts.");
+        }
+        return expired;
+    }
+
+    /**
+     * Writes units sold since the last run in one batched update, then re-reads stock levels and
+     * applies any difference made outside this instance (restocks, other instances' sales).
+     * @throws SQLException If the database cannot be updated; unwritten sales are kept for the next run.
+     */
+    public synchronized void reconcile() throws SQLException {
+        Map<Integer, Integer> sold = new HashMap<>();
+        for (Map.Entry<Integer, AtomicInteger> entry : soldSinceReconcile.entrySet()) {
+            int units = entry.getValue().getAndSet(0);
+            if (units > 0) {
+                sold.put(entry.getKey(), units);
+            }
+        }
+
+        Connection conn = null;
+        Map<Integer, Integer> stock;
+        try {
+            conn = DatabaseManager.getConnection();
+            conn.setAutoCommit(false);
+            if (!sold.isEmpty()) {
+                try (PreparedStatement pstmt = conn.prepareStatement(SOLD_SQL)) {
+                    Timestamp now = new Timestamp(System.currentTimeMillis());
+                    for (Map.Entry<Integer, Integer> entry : sold.entrySet()) {
+                        pstmt.setInt(1, entry.getValue());
+                        pstmt.setInt(2, entry.getValue());
+                        pstmt.setTimestamp(3, now);
+                        pstmt.setInt(4, entry.getKey());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+            }
+            stock = readStock(conn);
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.WARNING, "Error rolling back inventory reconciliation.", ex);
+                }
+            }
+            // Put the sales back so the next run writes them
+            for (Map.Entry<Integer, Integer> entry : sold.entrySet()) {
+                soldSinceReconcile.get(entry.getKey()).addAndGet(entry.getValue());
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error resetting auto-commit.", e);
+                }
+            }
+            DatabaseManager.closeConnection(conn);
+        }
+
+        Set<Integer> untracked = new HashSet<>(available.keySet());
+        for (Map.Entry<Integer, Integer> entry : stock.entrySet()) {
+            int foodItemId = entry.getKey();
+            int databaseStock = entry.getValue();
+            untracked.remove(foodItemId);
+            Integer previous = lastDatabaseStock.put(foodItemId, databaseStock);
+            AtomicInteger count = available.get(foodItemId);
+            if (previous == null || count == null) {
+                available.put(foodItemId, new AtomicInteger(databaseStock)); // Newly tracked item
+                continue;
+            }
+            // What the database should hold if only this instance had sold since the last run
+            int expected = previous - sold.getOrDefault(foodItemId, 0);
+            int externalChange = databaseStock - Math.max(0, expected);
+            if (externalChange != 0) {
+                count.addAndGet(externalChange);
+            }
+        }
+        for (Integer foodItemId : untracked) {
+            available.remove(foodItemId); // Inventory row deleted: no longer stock-tracked
+            lastDatabaseStock.remove(foodItemId);
+        }
+    }
+
+    private Map<Integer, Integer> readStock() throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            return readStock(conn);
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+    }
+
+    private static Map<Integer, Integer> readStock(Connection conn) throws SQLException {
+        Map<Integer, Integer> stock = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(LOAD_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                stock.put(rs.getInt("FoodItemID"), rs.getInt("QuantityAvailable"));
+            }
+        }
+        return stock;
+    }
+}
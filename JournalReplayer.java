@@ -0,0 +1,294 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Replays a CommandJournal by memory-mapping each segment and walking its records sequentially.
+ * Decoding uses absolute reads on the mapped buffer and reuses its line arrays between records, so
+ * replay allocates almost nothing per event. A record that is truncated or fails its checksum marks
+ * the end of the intact journal.
+ * Usage: {@code JournalReplayer [dir]} replays and reports throughput;
+ * {@code JournalReplayer generate <events> [dir]} first writes a synthetic journal.
+ */
+class JournalReplayer {
+
+    /**
+     * Receives decoded records in journal order.
+     */
+    interface Visitor {
+        default void onAddToCart(long seq, long timestampMillis, long cartId, int foodItemId, int quantity) {
+        }
+
+        /**
+         * The line arrays are reused between records; only the first {@code lines} entries are valid
+         * and they must be copied if kept.
+         */
+        default void onOrderPlaced(long seq, long timestampMillis, long cartId, boolean success, String customerName,
+                                   int lines, int[] foodItemIds, int[] quantities, double[] prices) {
+        }
+    }
+
+    /**
+     * Decides whether copySegment keeps a record.
+     */
+    interface RecordFilter {
+        boolean keep(byte type, long seq, long cartId);
+    }
+
+    /**
+     * Outcome of scanning one segment.
+     */
+    static class SegmentScan {
+        long records;
+        long lastSeq;
+        long validBytes; // Offset just past the last intact record
+    }
+
+    /**
+     * Rebuilds the open carts and order totals that the journal describes: adds accumulate per cart and
+     * a successful order empties that cart, just like PlaceOrderCommand does.
+     */
+    static class StateRebuilder implements Visitor {
+        final Map<Long, Map<Integer, Integer>> openCarts = new HashMap<>();
+        long addEvents;
+        long ordersPlaced;
+        long ordersFailed;
+        long itemsOrdered;
+        double revenue;
+
+        @Override
+        public void onAddToCart(long seq, long timestampMillis, long cartId, int foodItemId, int quantity) {
+            addEvents++;
+            openCarts.computeIfAbsent(cartId, id -> new HashMap<>()).merge(foodItemId, quantity, Integer::sum);
+        }
+
+        @Override
+        public void onOrderPlaced(long seq, long timestampMillis, long cartId, boolean success, String customerName,
+                                  int lines, int[] foodItemIds, int[] quantities, double[] prices) {
+            if (!success) {
+                ordersFailed++;
+                return;
+            }
+            ordersPlaced++;
+            for (int i = 0; i < lines; i++) {
+                itemsOrdered += quantities[i];
+                revenue += quantities[i] * prices[i];
+            }
+            openCarts.remove(cartId);
+        }
+    }
+
+    private int[] foodItemIds = new int[16];
+    private int[] quantities = new int[16];
+    private double[] prices = new double[16];
+
+    /**
+     * @return The segment files in the directory, oldest first.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                CommandJournal.SEGMENT_PREFIX + "*" + CommandJournal.SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments); // Zero-padded first sequence numbers sort lexically
+        return segments;
+    }
+
+    /**
+     * Replays every segment in the directory.
+     * @return The total number of records replayed.
+     */
+    public static long replay(Path directory, Visitor visitor) throws IOException {
+        JournalReplayer replayer = new JournalReplayer();
+        long records = 0;
+        for (Path segment : listSegments(directory)) {
+            records += replayer.replay(segment, visitor, true).records;
+        }
+        return records;
+    }
+
+    /**
+     * Scans one segment, passing each intact record to the visitor (which may be null).
+     */
+    static SegmentScan replaySegment(Path segment, Visitor visitor, boolean verifyChecksums) throws IOException {
+        return new JournalReplayer().replay(segment, visitor, verifyChecksums);
+    }
+
+    private SegmentScan replay(Path segment, Visitor visitor, boolean verifyChecksums) throws IOException {
+        SegmentScan scan = new SegmentScan();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return scan;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer view = buffer.duplicate();
+            CRC32 crc = new CRC32();
+            int limit = (int) size;
+            int offset = 0;
+            while (offset + CommandJournal.HEADER_BYTES <= limit) {
+                int length = buffer.getInt(offset);
+                int payload = offset + CommandJournal.HEADER_BYTES;
+                if (length < CommandJournal.PAYLOAD_PREFIX_BYTES || payload + length > limit) {
+                    break; // Torn or zero-filled tail
+                }
+                if (verifyChecksums) {
+                    crc.reset();
+                    view.limit(payload + length).position(payload);
+                    crc.update(view);
+                    if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                        break;
+                    }
+                }
+                long seq = buffer.getLong(payload + 1);
+                if (visitor != null) {
+                    decode(buffer, payload, length, seq, visitor);
+                }
+                scan.records++;
+                scan.lastSeq = seq;
+                offset = payload + length;
+            }
+            scan.validBytes = offset;
+        }
+        return scan;
+    }
+
+    private void decode(ByteBuffer buffer, int payload, int length, long seq, Visitor visitor) {
+        byte type = buffer.get(payload);
+        long timestamp = buffer.getLong(payload + 9);
+        long cartId = buffer.getLong(payload + 17);
+        int body = payload + CommandJournal.PAYLOAD_PREFIX_BYTES;
+        if (type == CommandJournal.ADD_TO_CART) {
+            visitor.onAddToCart(seq, timestamp, cartId, buffer.getInt(body), buffer.getInt(body + 4));
+        } else if (type == CommandJournal.ORDER_PLACED) {
+            boolean success = buffer.get(body) != 0;
+            int nameLength = buffer.getShort(body + 1) & 0xFFFF;
+            byte[] name = new byte[nameLength];
+            for (int i = 0; i < nameLength; i++) {
+                name[i] = buffer.get(body + 3 + i);
+            }
+            int position = body + 3 + nameLength;
+            int lines = buffer.getInt(position);
+            position += 4;
+            if (lines > foodItemIds.length) {
+                foodItemIds = new int[lines];
+                quantities = new int[lines];
+                prices = new double[lines];
+            }
+            for (int i = 0; i < lines; i++) {
+                foodItemIds[i] = buffer.getInt(position);
+                quantities[i] = buffer.getInt(position + 4);
+                prices[i] = buffer.getDouble(position + 8);
+                position += 16;
+            }
+            visitor.onOrderPlaced(seq, timestamp, cartId, success, new String(name, StandardCharsets.UTF_8),
+                    lines, foodItemIds, quantities, prices);
+        }
+        // Unknown record types are skipped so older replayers can read newer journals
+    }
+
+    /**
+     * Copies the intact records of a segment that pass the filter into a new file, byte for byte.
+     * @return {records kept, records dropped}
+     */
+    static long[] copySegment(Path source, Path target, RecordFilter filter) throws IOException {
+        long[] counts = new long[2];
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long validBytes = replaySegment(source, null, true).validBytes;
+            if (validBytes == 0) {
+                return counts;
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, validBytes);
+            int offset = 0;
+            while (offset < validBytes) {
+                int length = buffer.getInt(offset);
+                int payload = offset + CommandJournal.HEADER_BYTES;
+                int end = payload + length;
+                if (filter.keep(buffer.get(payload), buffer.getLong(payload + 1), buffer.getLong(payload + 17))) {
+                    ByteBuffer record = buffer.duplicate();
+                    record.limit(end).position(offset);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                    counts[0]++;
+                } else {
+                    counts[1]++;
+                }
+                offset = end;
+            }
+            out.force(false);
+        }
+        return counts;
+    }
+
+    /**
+     * Writes a synthetic journal: customers adding a few items each, then ordering.
+     */
+    private static void generate(Path directory, long events) throws IOException {
+        List<FoodItem> items = PerformanceBenchmarks.syntheticMenu(200).getItems();
+        try (CommandJournal journal = CommandJournal.open(directory)) {
+            long cartId = 1;
+            Map<FoodItem, Integer> lines = new HashMap<>();
+            for (long i = 0; i < events; i++) {
+                if (i % 5 == 4) {
+                    journal.appendOrderPlaced(cartId, true, "Replay Customer " + cartId, lines);
+                    lines.clear();
+                    cartId++;
+                } else {
+                    FoodItem item = items.get((int) (i % items.size()));
+                    lines.merge(item, 1, Integer::sum);
+                    journal.appendAddToCart(cartId, item.getFoodItemId(), 1);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = CommandJournal.defaultDirectory();
+        int argIndex = 0;
+        if (args.length > 0 && args[0].equals("generate")) {
+            long events = Long.parseLong(args[1]);
+            argIndex = 2;
+            if (args.length > argIndex) {
+                directory = java.nio.file.Paths.get(args[argIndex]);
+            }
+            long start = System.nanoTime();
+            generate(directory, events);
+            System.out.printf(Locale.US, "Wrote %d events in %.2f s%n", events, (System.nanoTime() - start) / 1e9);
+        } else if (args.length > 0) {
+            directory = java.nio.file.Paths.get(args[0]);
+        }
+
+        StateRebuilder state = new StateRebuilder();
+        long start = System.nanoTime();
+        long records = replay(directory, state);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.US, "Replayed %d records in %.3f s (%.0f events/s)%n", records, seconds, records / seconds);
+        System.out.printf(Locale.US, "Orders placed: %d, failed: %d, items ordered: %d, revenue: %.2f, open carts: %d%n",
+                state.ordersPlaced, state.ordersFailed, state.itemsOrdered, state.revenue, state.openCarts.size());
+    }
+}
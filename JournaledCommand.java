@@ -0,0 +1,13 @@
+// Main package for the application
+package com.foodordering.system;
+
+/**
+ * A Command that leaves a record in the CommandJournal once it has executed successfully.
+ */
+interface JournaledCommand extends Command {
+    /**
+     * Appends this command's record to the journal. Called by the CommandBus after execute().
+     * @param journal The journal to append to.
+     */
+    void journal(CommandJournal journal);
+}
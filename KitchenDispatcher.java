@@ -0,0 +1,436 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Routes committed orders to the kitchen. Each order line becomes a ticket for the station that
+ * cooks its category, and every station works through its own priority queue.
+ *
+ * With the FINISH_TOGETHER policy an order gets one target finish time: the latest of its lines'
+ * earliest possible finishes, given the work each station has planned. Every ticket is then due to
+ * start at target minus its own prep time, and stations order their queues by that latest start.
+ * Fries for an order that also has a pizza therefore wait until the pizza is nearly done instead
+ * of going cold. A cook is never handed a ticket more than {@code maxEarlyMillis} before its latest
+ * start ({@code foodordering.kitchen.maxEarlySeconds}, default 60); raising it trades a wider finish
+ * spread for less idle time at busy stations. FIFO keeps the old first-come first-served behaviour
+ * for comparison.
+ *
+ * Kitchen displays call next() when a cook is free and complete() when the ticket is done.
+ * Times are passed in explicitly so KitchenSimulation can drive the same code on a simulated clock.
+ * In the application, committed orders arrive through orderPlaced, which only queues them so the
+ * commit path never waits on the dispatcher. Once started, a background tick
+ * ({@code foodordering.kitchen.tickMillis}, default 1000) routes the queued orders, takes a ticket
+ * as done when its estimated prep time has passed (no kitchen display reports completions yet), and
+ * starts the next due tickets, so every order leaves the dispatcher.
+ */
+class KitchenDispatcher implements OrderListener {
+    private static final Logger LOGGER = Logger.getLogger(KitchenDispatcher.class.getName());
+
+    static final String GENERAL_STATION = "General";
+
+    enum Policy {
+        FIFO, FINISH_TOGETHER
+    }
+
+    /**
+     * One order line waiting for, or being cooked at, a station.
+     */
+    static class Ticket {
+        final int orderId;
+        final FoodItem item;
+        final int quantity;
+        final Station station;
+        final long prepMillis;    // Estimated
+        final long enqueuedAt;
+        final long latestStart;   // Queue priority
+        final long targetFinish;  // Shared by every ticket of the order
+        long startedAt;
+        long finishedAt;
+
+        Ticket(int orderId, FoodItem item, int quantity, Station station, long prepMillis, long enqueuedAt,
+               long latestStart, long targetFinish) {
+            this.orderId = orderId;
+            this.item = item;
+            this.quantity = quantity;
+            this.station = station;
+            this.prepMillis = prepMillis;
+            this.enqueuedAt = enqueuedAt;
+            this.latestStart = latestStart;
+            this.targetFinish = targetFinish;
+        }
+
+        @Override
+        public String toString() {
+            return "Order " + orderId + ": " + quantity + " x " + item.getName();
+        }
+    }
+
+    /**
+     * A kitchen station: the categories it cooks, how many cooks work it, and its queue and metrics.
+     */
+    static class Station {
+        final String name;
+        final int cooks;
+        final long prepMillis;       // Estimated prep of one unit
+        final long extraUnitMillis;  // Added per further unit on the same ticket (cooked in the same batch)
+        final List<String> categories;
+
+        private final PriorityQueue<Ticket> queue = new PriorityQueue<>((a, b) -> a.latestStart != b.latestStart
+                ? Long.compare(a.latestStart, b.latestStart) : Integer.compare(a.orderId, b.orderId));
+        private final List<Ticket> inProgress = new ArrayList<>();
+
+        private final LatencyHistogram waitMillis = new LatencyHistogram();     // Enqueued -> started
+        private final LatencyHistogram latenessMillis = new LatencyHistogram(); // Finished after target (0 if on time)
+        private long completed;
+        private long firstEnqueuedAt = -1;
+        private long lastFinishedAt;
+
+        Station(String name, int cooks, long prepMillis, String... categories) {
+            this.name = name;
+            this.cooks = cooks;
+            this.prepMillis = prepMillis;
+            this.extraUnitMillis = prepMillis / 4;
+            this.categories = Collections.unmodifiableList(Arrays.asList(categories));
+        }
+
+        long estimatePrep(int quantity) {
+            return prepMillis + (quantity - 1) * extraUnitMillis;
+        }
+
+        /**
+         * Plans the station's work and finds the earliest a new ticket could be done. Tickets in
+         * progress run to their estimated end and queued tickets are booked from their latest start
+         * (as soon as a cook is free if they are already due); the new ticket takes the first gap
+         * long enough on any cook. Gaps matter: fries held back for a later pizza leave the fryer
+         * free for an order that needs fries now.
+         */
+        long earliestFinish(long now, long prep) {
+            List<List<long[]>> plan = new ArrayList<>(cooks);
+            for (int c = 0; c < cooks; c++) {
+                plan.add(new ArrayList<>());
+            }
+            int cook = 0;
+            for (Ticket ticket : inProgress) {
+                plan.get(cook++ % cooks).add(new long[]{now, Math.max(now, ticket.startedAt + ticket.prepMillis)});
+            }
+            Ticket[] queued = queue.toArray(new Ticket[0]);
+            Arrays.sort(queued, queue.comparator());
+            for (Ticket ticket : queued) {
+                book(plan, Math.max(now, ticket.latestStart), ticket.prepMillis);
+            }
+            return book(plan, now, prep) + prep;
+        }
+
+        /**
+         * Books the earliest slot of the given length starting no sooner than {@code notBefore}.
+         * @return The slot's start.
+         */
+        private static long book(List<List<long[]>> plan, long notBefore, long length) {
+            List<long[]> bestCook = null;
+            long bestStart = Long.MAX_VALUE;
+            for (List<long[]> intervals : plan) {
+                long start = notBefore;
+                for (long[] busy : intervals) { // Sorted by start
+                    if (busy[1] <= start) {
+                        continue;
+                    }
+                    if (busy[0] >= start + length) {
+                        break; // Fits in the gap before this interval
+                    }
+                    start = busy[1];
+                }
+                if (start < bestStart) {
+                    bestStart = start;
+                    bestCook = intervals;
+                }
+            }
+            int position = 0;
+            while (position < bestCook.size() && bestCook.get(position)[0] < bestStart) {
+                position++;
+            }
+            bestCook.add(position, new long[]{bestStart, bestStart + length});
+            return bestStart;
+        }
+    }
+
+    /**
+     * Point-in-time metrics for one station.
+     */
+    static class StationStats {
+        final String station;
+        final int queued;
+        final int inProgress;
+        final long completed;
+        final double throughputPerMinute;
+        final long waitP50Millis;
+        final long waitP95Millis;
+        final long waitMaxMillis;
+        final long latenessP95Millis;
+
+        StationStats(Station station) {
+            this.station = station.name;
+            this.queued = station.queue.size();
+            this.inProgress = station.inProgress.size();
+            this.completed = station.completed;
+            long elapsed = station.lastFinishedAt - station.firstEnqueuedAt;
+            this.throughputPerMinute = station.completed == 0 || elapsed <= 0 ? 0.0
+                    : station.completed * 60_000.0 / elapsed;
+            this.waitP50Millis = station.waitMillis.getValueAtPercentile(50);
+            this.waitP95Millis = station.waitMillis.getValueAtPercentile(95);
+            this.waitMaxMillis = station.waitMillis.getMax();
+            this.latenessP95Millis = station.latenessMillis.getValueAtPercentile(95);
+        }
+    }
+
+    /**
+     * Tracks an order until its last ticket is done.
+     */
+    private static class OrderProgress {
+        final long placedAt;
+        int remaining;
+        long firstFinish = Long.MAX_VALUE;
+        long lastFinish;
+
+        OrderProgress(long placedAt, int remaining) {
+            this.placedAt = placedAt;
+            this.remaining = remaining;
+        }
+    }
+
+    private final Policy policy;
+    private final long maxEarlyMillis;
+    private final Map<String, Station> stations = new LinkedHashMap<>();
+    private final Map<String, Station> stationsByCategory = new HashMap<>();
+    private final Map<Integer, OrderProgress> openOrders = new HashMap<>();
+    private final Queue<Runnable> placed = new ConcurrentLinkedQueue<>(); // Committed orders not yet routed
+    private final LatencyHistogram finishSpreadMillis = new LatencyHistogram(); // Last minus first ticket of an order
+    private final LatencyHistogram orderMillis = new LatencyHistogram();        // Placed -> last ticket done
+    private long ordersCompleted;
+    private ScheduledExecutorService ticker;
+
+    public KitchenDispatcher() {
+        this(defaultStations(), Policy.FINISH_TOGETHER,
+                TimeUnit.SECONDS.toMillis(Long.getLong("foodordering.kitchen.maxEarlySeconds", 60L)));
+    }
+
+    KitchenDispatcher(List<Station> stationList, Policy policy, long maxEarlyMillis) {
+        this.policy = policy;
+        this.maxEarlyMillis = maxEarlyMillis;
+        for (Station station : stationList) {
+            stations.put(station.name, station);
+            for (String category : station.categories) {
+                // Keyed by the name items report, so a station listing an alias such as "Wraps & Rolls" still gets them
+                stationsByCategory.put(CategoryRegistry.getInstance().forName(category).getName(), station);
+            }
+        }
+        if (!stations.containsKey(GENERAL_STATION)) {
+            stations.put(GENERAL_STATION, new Station(GENERAL_STATION, 1, TimeUnit.MINUTES.toMillis(5)));
+        }
+    }
+
+    /**
+     * @return The stations for the menu's categories, with typical prep times.
+     */
+    static List<Station> defaultStations() {
+        List<Station> list = new ArrayList<>();
+        list.add(new Station("Grill", 2, TimeUnit.MINUTES.toMillis(8), "Burgers", "Sandwiches"));
+        list.add(new Station("Pizza Oven", 2, TimeUnit.MINUTES.toMillis(12), "Pizzas"));
+        list.add(new Station("Fryer", 2, TimeUnit.MINUTES.toMillis(10), "Fried Chicken"));
+        list.add(new Station("Fries", 1, TimeUnit.MINUTES.toMillis(4), "Fries"));
+        list.add(new Station("Wok", 1, TimeUnit.MINUTES.toMillis(7), "Noodles"));
+        list.add(new Station("Cold Prep", 1, TimeUnit.MINUTES.toMillis(4), "Salads", "Wrap & Rolls", "Desserts"));
+        list.add(new Station("Drinks", 1, TimeUnit.MINUTES.toMillis(1), "Cold Drinks"));
+        return list;
+    }
+
+    /**
+     * Starts the background tick that routes committed orders and works their tickets off.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kitchen-dispatcher");
+            t.setDaemon(true);
+            return t;
+        });
+        long tickMillis = Long.getLong("foodordering.kitchen.tickMillis", 1000L);
+        ticker.scheduleWithFixedDelay(() -> advance(System.currentTimeMillis()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Queues a committed order; the next tick splits it into tickets.
+     */
+    @Override
+    public void orderPlaced(int orderId, Map<FoodItem, Integer> items, long timestampMillis) {
+        placed.add(() -> submit(orderId, items, System.currentTimeMillis()));
+    }
+
+    /**
+     * Routes the queued orders, completes the tickets whose estimated prep has passed and starts
+     * every ticket that is due at a free cook.
+     */
+    synchronized void advance(long now) {
+        Runnable order;
+        while ((order = placed.poll()) != null) {
+            order.run();
+        }
+        for (Station station : stations.values()) {
+            for (Ticket ticket : new ArrayList<>(station.inProgress)) {
+                if (now - ticket.startedAt >= ticket.prepMillis) {
+                    complete(ticket, now);
+                }
+            }
+            while (next(station.name, now) != null) {
+                // Started; it is completed by a later tick
+            }
+        }
+    }
+
+    /**
+     * Splits an order into station tickets and queues them.
+     * @param now The current time; the order is scheduled from here.
+     */
+    public synchronized void submit(int orderId, Map<FoodItem, Integer> items, long now) {
+        if (items.isEmpty() || openOrders.containsKey(orderId)) {
+            return; // Redelivered order
+        }
+        List<Ticket> tickets = new ArrayList<>(items.size());
+        long targetFinish = now;
+        for (Map.Entry<FoodItem, Integer> line : items.entrySet()) {
+            Station station = stationFor(line.getKey());
+            long finish = station.earliestFinish(now, station.estimatePrep(line.getValue()));
+            targetFinish = Math.max(targetFinish, finish);
+        }
+        for (Map.Entry<FoodItem, Integer> line : items.entrySet()) {
+            Station station = stationFor(line.getKey());
+            long prep = station.estimatePrep(line.getValue());
+            long latestStart = policy == Policy.FIFO ? now : targetFinish - prep;
+            tickets.add(new Ticket(orderId, line.getKey(), line.getValue(), station, prep, now, latestStart, targetFinish));
+        }
+        for (Ticket ticket : tickets) {
+            Station station = ticket.station;
+            station.queue.add(ticket);
+            if (station.firstEnqueuedAt < 0) {
+                station.firstEnqueuedAt = now;
+            }
+        }
+        openOrders.put(orderId, new OrderProgress(now, tickets.size()));
+        LOGGER.fine("Order " + orderId + " split into " + tickets.size() + " tickets, target finish in "
+                + (targetFinish - now) / 1000 + " s");
+    }
+
+    private Station stationFor(FoodItem item) {
+        Station station = stationsByCategory.get(item.getCategoryName());
+        return station != null ? station : stations.get(GENERAL_STATION);
+    }
+
+    /**
+     * Hands a free cook at the station the most urgent ticket, if one should be started now.
+     * @return The ticket, now in progress, or null if nothing is due yet.
+     */
+    public synchronized Ticket next(String stationName, long now) {
+        Station station = stations.get(stationName);
+        if (station == null || station.inProgress.size() >= station.cooks) {
+            return null;
+        }
+        Ticket head = station.queue.peek();
+        if (head == null || (policy == Policy.FINISH_TOGETHER && now < head.latestStart - maxEarlyMillis)) {
+            return null; // Starting now would only make it wait at the pass
+        }
+        station.queue.poll();
+        head.startedAt = now;
+        station.inProgress.add(head);
+        station.waitMillis.record(now - head.enqueuedAt);
+        return head;
+    }
+
+    /**
+     * Marks a ticket as done and records its metrics; the order is complete with its last ticket.
+     */
+    public synchronized void complete(Ticket ticket, long now) {
+        Station station = ticket.station;
+        if (!station.inProgress.remove(ticket)) {
+            return;
+        }
+        ticket.finishedAt = now;
+        station.completed++;
+        station.lastFinishedAt = now;
+        station.latenessMillis.record(Math.max(0, now - ticket.targetFinish));
+
+        OrderProgress order = openOrders.get(ticket.orderId);
+        if (order == null) {
+            return;
+        }
+        order.firstFinish = Math.min(order.firstFinish, now);
+        order.lastFinish = Math.max(order.lastFinish, now);
+        if (--order.remaining == 0) {
+            openOrders.remove(ticket.orderId);
+            ordersCompleted++;
+            finishSpreadMillis.record(order.lastFinish - order.firstFinish);
+            orderMillis.record(order.lastFinish - order.placedAt);
+            LOGGER.fine("Order " + ticket.orderId + " is ready.");
+        }
+    }
+
+    public synchronized List<StationStats> getStationStats() {
+        List<StationStats> stats = new ArrayList<>();
+        for (Station station : stations.values()) {
+            stats.add(new StationStats(station));
+        }
+        return stats;
+    }
+
+    public synchronized List<String> getStationNames() {
+        return new ArrayList<>(stations.keySet());
+    }
+
+    public synchronized int getQueueDepth(String stationName) {
+        Station station = stations.get(stationName);
+        return station == null ? 0 : station.queue.size();
+    }
+
+    public synchronized long getOrdersCompleted() {
+        return ordersCompleted;
+    }
+
+    public synchronized int getOpenOrders() {
+        return openOrders.size();
+    }
+
+    /**
+     * @return Time between the first and the last ticket of an order finishing, per completed order.
+     */
+    LatencyHistogram getFinishSpreadMillis() {
+        return finishSpreadMillis;
+    }
+
+    /**
+     * @return Time from an order reaching the kitchen until its last ticket finished.
+     */
+    LatencyHistogram getOrderMillis() {
+        return orderMillis;
+    }
+}
@@ -0,0 +1,139 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Discrete-event simulation of the kitchen for tuning KitchenDispatcher: station staffing, prep
+ * estimates and {@code maxEarlyMillis}. Generates a random order stream (Poisson arrivals of one to
+ * four lines across the menu's categories) and replays the identical stream and cooking times under
+ * each policy on a simulated clock, one-second resolution, then prints per-station and per-order metrics.
+ * Usage: {@code KitchenSimulation [ordersPerMinute] [minutes] [seed]} (defaults 2, 180, 42).
+ * Actual prep times vary +/-20% around the stations' estimates.
+ */
+class KitchenSimulation {
+
+    private static final String[] CATEGORIES = {"Burgers", "Pizzas", "Fried Chicken", "Fries", "Cold Drinks",
+            "Desserts", "Noodles", "Salads", "Sandwiches", "Wrap & Rolls"};
+    // Relative popularity of each category above
+    private static final int[] WEIGHTS = {18, 14, 12, 20, 16, 5, 5, 3, 4, 3};
+
+    /**
+     * A generated order: when it arrives and what it contains.
+     */
+    private static class SimulatedOrder {
+        final long arrivalMillis;
+        final Map<FoodItem, Integer> items;
+
+        SimulatedOrder(long arrivalMillis, Map<FoodItem, Integer> items) {
+            this.arrivalMillis = arrivalMillis;
+            this.items = items;
+        }
+    }
+
+    private static List<SimulatedOrder> generateOrders(double ordersPerMinute, int minutes, Random random) {
+        int totalWeight = 0;
+        for (int weight : WEIGHTS) {
+            totalWeight += weight;
+        }
+        List<SimulatedOrder> orders = new ArrayList<>();
+        long end = minutes * 60_000L;
+        long time = 0;
+        while (true) {
+            time += (long) (-Math.log(1 - random.nextDouble()) / ordersPerMinute * 60_000); // Exponential gaps
+            if (time >= end) {
+                return orders;
+            }
+            Map<FoodItem, Integer> items = new HashMap<>();
+            int lines = 1 + random.nextInt(4);
+            for (int l = 0; l < lines; l++) {
+                int pick = random.nextInt(totalWeight);
+                int c = 0;
+                while (pick >= WEIGHTS[c]) {
+                    pick -= WEIGHTS[c++];
+                }
+                FoodItem item = new FoodItem(c + 1, CATEGORIES[c] + " item", 5.0, "", CATEGORIES[c], c + 1);
+                items.merge(item, 1 + (random.nextInt(4) == 0 ? 1 : 0), Integer::sum);
+            }
+            orders.add(new SimulatedOrder(time, items));
+        }
+    }
+
+    /**
+     * Runs the order stream through a dispatcher. Each ticket's cooking time noise depends only on the
+     * seed, order and item, so every policy sees identical conditions whatever order it cooks in.
+     */
+    private static KitchenDispatcher simulate(List<SimulatedOrder> orders, KitchenDispatcher.Policy policy,
+                                              long maxEarlyMillis, long seed) {
+        KitchenDispatcher dispatcher = new KitchenDispatcher(KitchenDispatcher.defaultStations(), policy, maxEarlyMillis);
+        PriorityQueue<KitchenDispatcher.Ticket> cooking = new PriorityQueue<>(
+                (a, b) -> Long.compare(a.finishedAt, b.finishedAt)); // finishedAt holds the planned finish while cooking
+        List<String> stations = dispatcher.getStationNames();
+        int next = 0;
+        long now = 0;
+        while (next < orders.size() || dispatcher.getOpenOrders() > 0) {
+            while (!cooking.isEmpty() && cooking.peek().finishedAt <= now) {
+                dispatcher.complete(cooking.poll(), now);
+            }
+            while (next < orders.size() && orders.get(next).arrivalMillis <= now) {
+                dispatcher.submit(next + 1, orders.get(next).items, now);
+                next++;
+            }
+            for (String station : stations) {
+                KitchenDispatcher.Ticket ticket;
+                while ((ticket = dispatcher.next(station, now)) != null) {
+                    Random noise = new Random(seed * 31 + ticket.orderId * 1_000_003L + ticket.item.getFoodItemId());
+                    ticket.finishedAt = now + (long) (ticket.prepMillis * (0.8 + 0.4 * noise.nextDouble()));
+                    cooking.add(ticket);
+                }
+            }
+            now += 1000;
+        }
+        return dispatcher;
+    }
+
+    private static void report(String title, KitchenDispatcher dispatcher) {
+        System.out.println();
+        System.out.println(title);
+        System.out.printf(Locale.US, "%-12s %9s %10s %10s %10s %10s %12s%n",
+                "station", "completed", "items/min", "wait p50", "wait p95", "wait max", "late p95");
+        for (KitchenDispatcher.StationStats stats : dispatcher.getStationStats()) {
+            if (stats.completed == 0) {
+                continue;
+            }
+            System.out.printf(Locale.US, "%-12s %9d %10.2f %9.1fm %9.1fm %9.1fm %11.1fm%n",
+                    stats.station, stats.completed, stats.throughputPerMinute, minutes(stats.waitP50Millis),
+                    minutes(stats.waitP95Millis), minutes(stats.waitMaxMillis), minutes(stats.latenessP95Millis));
+        }
+        LatencyHistogram spread = dispatcher.getFinishSpreadMillis();
+        LatencyHistogram total = dispatcher.getOrderMillis();
+        System.out.printf(Locale.US, "orders: %d, finish spread p50 %.1fm p95 %.1fm max %.1fm, order time p50 %.1fm p95 %.1fm%n",
+                dispatcher.getOrdersCompleted(), minutes(spread.getValueAtPercentile(50)),
+                minutes(spread.getValueAtPercentile(95)), minutes(spread.getMax()),
+                minutes(total.getValueAtPercentile(50)), minutes(total.getValueAtPercentile(95)));
+    }
+
+    private static double minutes(long millis) {
+        return millis / 60_000.0;
+    }
+
+    public static void main(String[] args) {
+        double ordersPerMinute = args.length > 0 ? Double.parseDouble(args[0]) : 2.0;
+        int minutes = args.length > 1 ? Integer.parseInt(args[1]) : 180;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        long maxEarlyMillis = Long.getLong("foodordering.kitchen.maxEarlySeconds", 60L) * 1000;
+
+        List<SimulatedOrder> orders = generateOrders(ordersPerMinute, minutes, new Random(seed));
+        System.out.printf(Locale.US, "%d orders over %d minutes (%.1f/min), seed %d%n", orders.size(), minutes,
+                ordersPerMinute, seed);
+        report("FIFO", simulate(orders, KitchenDispatcher.Policy.FIFO, maxEarlyMillis, seed));
+        report("FINISH_TOGETHER (maxEarly " + maxEarlyMillis / 1000 + " s)",
+                simulate(orders, KitchenDispatcher.Policy.FINISH_TOGETHER, maxEarlyMillis, seed));
+    }
+}
@@ -0,0 +1,270 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless load driver that simulates concurrent customers against the real DAO and checkout code.
+ * Each customer journey browses the categories through FoodItemDAO, searches the loaded items,
+ * adds a few of them to its own cart and checks out through PlaceOrderCommand/OrderProcessor.
+ *
+ * The driver is open-loop: journeys arrive at a fixed rate on a precomputed schedule and wait in a
+ * queue for a free session, and every latency is measured from the moment the step <i>should</i>
+ * have started. A stalled system therefore shows up as growing latency instead of silently fewer
+ * requests (coordinated omission).
+ *
+ * Configured with system properties: {@code load.sessions} (default 16), {@code load.rate} journeys/s
+ * (default 20), {@code load.durationSeconds} (60), {@code load.thinkMillis} (200) and
+ * {@code load.reportSeconds} (5). Point {@code foodordering.db.url} at an embedded database to run
+ * without SQL Server; its schema and a synthetic catalog are created on start.
+ */
+class LoadGenerator {
+    private static final Logger LOGGER = Logger.getLogger(LoadGenerator.class.getName());
+
+    private static final String[] SEARCH_TERMS = {"burger", "pizza", "chicken", "item 1", "spicy", "large", "cola"};
+
+    /**
+     * The steps of a customer journey, each with its own latency histogram.
+     */
+    enum Step {
+        BROWSE, SEARCH, ADD_TO_CART, CHECKOUT, JOURNEY
+    }
+
+    /**
+     * Latency and error counts for one reporting interval.
+     */
+    private static class Interval {
+        final LatencyHistogram[] latencies = new LatencyHistogram[Step.values().length];
+        final AtomicLong[] errors = new AtomicLong[Step.values().length];
+
+        Interval() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+                errors[i] = new AtomicLong();
+            }
+        }
+    }
+
+    private final int sessions;
+    private final double arrivalsPerSecond;
+    private final long durationSeconds;
+    private final long thinkMillis;
+    private final long reportSeconds;
+
+    private final FoodItemDAO foodItemDAO = new FoodItemDAO();
+    private final OrderProcessor orderProcessor = new OrderProcessor();
+    private final BlockingQueue<Long> arrivals = new LinkedBlockingQueue<>(); // Intended start times (nanos)
+    private final AtomicReference<Interval> current = new AtomicReference<>(new Interval());
+    private final Interval overall = new Interval();
+    private volatile boolean running = true;
+
+    public LoadGenerator(int sessions, double arrivalsPerSecond, long durationSeconds, long thinkMillis, long reportSeconds) {
+        this.sessions = sessions;
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.durationSeconds = durationSeconds;
+        this.thinkMillis = thinkMillis;
+        this.reportSeconds = reportSeconds;
+    }
+
+    /**
+     * Runs the load test to completion, printing one report line per interval and a summary at the end.
+     */
+    public void run() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(sessions, r -> {
+            Thread t = new Thread(r, "load-session");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < sessions; i++) {
+            int sessionId = i;
+            workers.submit(() -> sessionLoop(sessionId));
+        }
+
+        System.out.println("elapsed(s)  checkouts/s  err%   checkout p50/p90/p99/p99.9/max (ms)   journey p99 (ms)  queued");
+        long start = System.nanoTime();
+        long intervalNanos = Math.max(1L, (long) (1_000_000_000L / arrivalsPerSecond));
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long nextReport = start + TimeUnit.SECONDS.toNanos(reportSeconds);
+        long nextArrival = start;
+
+        // The arrival schedule is fixed up front; it never waits for the system under test.
+        while (nextArrival < end) {
+            long now = System.nanoTime();
+            while (nextArrival <= now && nextArrival < end) {
+                arrivals.add(nextArrival);
+                nextArrival += intervalNanos;
+            }
+            if (now >= nextReport) {
+                report(now - start);
+                nextReport += TimeUnit.SECONDS.toNanos(reportSeconds);
+            }
+            long sleepNanos = Math.min(nextArrival, nextReport) - System.nanoTime();
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+        }
+        // Let the queue drain so late journeys are still counted, then stop the sessions.
+        while (!arrivals.isEmpty()) {
+            Thread.sleep(100);
+        }
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        report(System.nanoTime() - start);
+        printSummary(System.nanoTime() - start);
+    }
+
+    private void sessionLoop(int sessionId) {
+        ShoppingCart cart = new ShoppingCart(false);
+        String customer = "Load Customer " + sessionId;
+        while (running) {
+            Long intendedStart;
+            try {
+                intendedStart = arrivals.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (intendedStart != null) {
+                runJourney(cart, customer, intendedStart);
+            }
+        }
+    }
+
+    /**
+     * One customer journey. Each step's latency is measured from its intended start: the journey's
+     * scheduled arrival for the first step, and the previous step's end plus think time afterwards.
+     */
+    private void runJourney(ShoppingCart cart, String customer, long intendedStart) {
+        Random random = ThreadLocalRandom.current();
+        long stepStart = intendedStart;
+        try {
+            // Browse: list categories, open one
+            List<MenuCategory> categories = foodItemDAO.getAllCategories();
+            if (categories.isEmpty()) {
+                throw new IllegalStateException("Catalog is empty.");
+            }
+            MenuCategory category = categories.get(random.nextInt(categories.size()));
+            List<FoodItem> items = foodItemDAO.getFoodItemsByCategory(category.getCategoryId());
+            stepStart = record(Step.BROWSE, stepStart);
+
+            // Search the items the customer has seen
+            String term = SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)];
+            List<FoodItem> matches = new ArrayList<>();
+            for (FoodItem item : items) {
+                if (item.contains(term)) {
+                    matches.add(item);
+                }
+            }
+            stepStart = record(Step.SEARCH, stepStart);
+
+            // Add one to three items, falling back to the browsed list when the search found nothing
+            List<FoodItem> candidates = matches.isEmpty() ? items : matches;
+            int count = 1 + random.nextInt(3);
+            for (int i = 0; i < count && !candidates.isEmpty(); i++) {
+                new AddToCartCommand(candidates.get(random.nextInt(candidates.size())), cart).execute();
+            }
+            stepStart = record(Step.ADD_TO_CART, stepStart);
+
+            // Checkout
+            PlaceOrderCommand placeOrder = new PlaceOrderCommand(cart, orderProcessor, null, customer, "1 Load Test Lane");
+            placeOrder.execute();
+            if (placeOrder.isSuccessful()) {
+                record(Step.CHECKOUT, stepStart);
+            } else {
+                recordError(Step.CHECKOUT, stepStart);
+                cart.clearCart();
+            }
+            record(Step.JOURNEY, intendedStart);
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Journey failed.", e);
+            recordError(Step.JOURNEY, intendedStart);
+            cart.clearCart();
+        }
+    }
+
+    /**
+     * Records a successful step and sleeps for the think time.
+     * @return The intended start of the next step.
+     */
+    private long record(Step step, long intendedStart) {
+        long now = System.nanoTime();
+        long micros = (now - intendedStart) / 1000;
+        current.get().latencies[step.ordinal()].record(micros);
+        overall.latencies[step.ordinal()].record(micros);
+        if (step != Step.JOURNEY && step != Step.CHECKOUT && thinkMillis > 0) {
+            try {
+                Thread.sleep(thinkMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return now + TimeUnit.MILLISECONDS.toNanos(thinkMillis);
+    }
+
+    private void recordError(Step step, long intendedStart) {
+        current.get().errors[step.ordinal()].incrementAndGet();
+        overall.errors[step.ordinal()].incrementAndGet();
+        // Failed calls still took time; keep them in the latency picture
+        long micros = (System.nanoTime() - intendedStart) / 1000;
+        current.get().latencies[step.ordinal()].record(micros);
+        overall.latencies[step.ordinal()].record(micros);
+    }
+
+    private void report(long elapsedNanos) {
+        Interval interval = current.getAndSet(new Interval());
+        LatencyHistogram checkout = interval.latencies[Step.CHECKOUT.ordinal()];
+        long errors = interval.errors[Step.CHECKOUT.ordinal()].get() + interval.errors[Step.JOURNEY.ordinal()].get();
+        long attempts = checkout.getCount() + interval.errors[Step.JOURNEY.ordinal()].get();
+        System.out.printf(Locale.US, "%9.1f  %11.1f  %5.1f   %7.1f %7.1f %7.1f %7.1f %7.1f   %14.1f  %6d%n",
+                elapsedNanos / 1e9,
+                (checkout.getCount() - interval.errors[Step.CHECKOUT.ordinal()].get()) / (double) reportSeconds,
+                attempts == 0 ? 0.0 : 100.0 * errors / attempts,
+                checkout.getValueAtPercentile(50) / 1000.0, checkout.getValueAtPercentile(90) / 1000.0,
+                checkout.getValueAtPercentile(99) / 1000.0, checkout.getValueAtPercentile(99.9) / 1000.0,
+                checkout.getMax() / 1000.0,
+                interval.latencies[Step.JOURNEY.ordinal()].getValueAtPercentile(99) / 1000.0,
+                arrivals.size());
+    }
+
+    private void printSummary(long elapsedNanos) {
+        System.out.println();
+        System.out.println("step          count   errors      p50      p90      p99    p99.9      max (ms)");
+        for (Step step : Step.values()) {
+            LatencyHistogram h = overall.latencies[step.ordinal()];
+            System.out.printf(Locale.US, "%-12s %6d   %6d  %7.1f  %7.1f  %7.1f  %7.1f  %7.1f%n",
+                    step, h.getCount(), overall.errors[step.ordinal()].get(),
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0, h.getMax() / 1000.0);
+        }
+        LatencyHistogram checkout = overall.latencies[Step.CHECKOUT.ordinal()];
+        long placed = checkout.getCount() - overall.errors[Step.CHECKOUT.ordinal()].get();
+        System.out.printf(Locale.US, "%nSustained throughput: %.1f orders/s over %.1f s%n", placed / (elapsedNanos / 1e9), elapsedNanos / 1e9);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (EmbeddedDatabase.isEmbedded()) {
+            EmbeddedDatabase.install();
+            EmbeddedDatabase.seedCatalog(10, 50);
+        }
+        new LoadGenerator(
+                Integer.getInteger("load.sessions", 16),
+                Double.parseDouble(System.getProperty("load.rate", "20")),
+                Long.getLong("load.durationSeconds", 60L),
+                Long.getLong("load.thinkMillis", 200L),
+                Long.getLong("load.reportSeconds", 5L)).run();
+    }
+}
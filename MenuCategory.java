@@ -39,6 +39,26 @@ class MenuCategory implements MenuItem {
         items.remove(item);
     }
 
+    /**
+     * Swaps a child for an updated version in the same position (e.g. after a live catalog change).
+     * @return false if the old item is not a child of this category.
+     */
+    public boolean replace(MenuItem oldItem, MenuItem newItem) {
+        int index = items.indexOf(oldItem);
+        if (index < 0) {
+            return false;
+        }
+        items.set(index, newItem);
+        return true;
+    }
+
+    /**
+     * Renames the category in place, so existing references (such as its menu button) stay valid.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
     @Override
     public String getName() {
         return name;
@@ -0,0 +1,854 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bulk-loads a restaurant's menu from a CSV or newline-delimited JSON file.
+ * The file is read on one thread and cut into chunks of lines that are parsed in parallel; parsed
+ * chunks are written in file order on the calling thread while later chunks are still being parsed.
+ * Items are built by their category's descriptor from the CategoryRegistry, which also resolves
+ * category aliases (sized items through SizedFoodItemFactory, one row per size as in DataBase.sql),
+ * and upserted with JDBC batches, each
+ * batch in its own transaction. A row that cannot be parsed or written is rejected on its own and
+ * reported with its line number; the rest of the import carries on.
+ *
+ * CSV files need a header naming the columns {@code category,name,description} and either {@code price}
+ * or {@code small,medium,large}; fields may be quoted but not span lines. NDJSON lines are objects with
+ * the same keys, where a sized item has {@code "sizes": {"Small": 5.99, "Medium": 7.99, "Large": 9.99}}.
+ */
+class MenuImporter {
+    private static final Logger LOGGER = Logger.getLogger(MenuImporter.class.getName());
+
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int CHUNK_LINES = 2000; // Lines handed to a parser thread at a time
+    private static final int MAX_REPORTED_REJECTS = 1000;
+    private static final int MAX_NAME_LENGTH = 200; // FoodItems.Name
+    private static final int MAX_DESCRIPTION_LENGTH = 500; // FoodItems.Description
+    private static final List<String> SIZES = Arrays.asList("Small", "Medium", "Large");
+
+    // Only touches the row when something changed, so re-importing a file does not fire the catalog
+    // triggers for every item. HOLDLOCK keeps two concurrent imports from inserting the same item twice.
+    private static final String UPSERT_ITEM_SQL =
+            "MERGE FoodItems WITH (HOLDLOCK) AS t " +
+            "USING (VALUES (?, ?, ?, ?, ?)) AS s (RestaurantID, CategoryID, Name, Description, Price) " +
+            "ON t.RestaurantID = s.RestaurantID AND t.CategoryID = s.CategoryID AND t.Name = s.Name " +
+            "WHEN MATCHED AND (t.Price <> s.Price OR ISNULL(t.Description, N'') <> ISNULL(s.Description, N'')) THEN " +
+            "  UPDATE SET Description = s.Description, Price = s.Price " +
+            "WHEN NOT MATCHED THEN " +
+            "  INSERT (RestaurantID, CategoryID, Name, Description, Price) " +
+            "  VALUES (s.RestaurantID, s.CategoryID, s.Name, s.Description, s.Price);";
+
+    /**
+     * Input formats supported by the importer.
+     */
+    enum Format {
+        CSV,   // Header line, then one item per line
+        NDJSON // One JSON object per line
+    }
+
+    /**
+     * A line that was not imported, and why.
+     */
+    static class Reject {
+        private final long lineNumber;
+        private final String reason;
+
+        Reject(long lineNumber, String reason) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + ": " + reason;
+        }
+    }
+
+    /**
+     * Summary of a finished import run.
+     */
+    static class ImportResult {
+        private final long linesRead;
+        private final long itemsWritten; // Database rows upserted; a sized line writes one per size
+        private final long rejectedLines;
+        private final List<Reject> rejects; // The first MAX_REPORTED_REJECTS of them
+        private final long elapsedMillis;
+
+        ImportResult(long linesRead, long itemsWritten, long rejectedLines, List<Reject> rejects, long elapsedMillis) {
+            this.linesRead = linesRead;
+            this.itemsWritten = itemsWritten;
+            this.rejectedLines = rejectedLines;
+            this.rejects = rejects;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getLinesRead() {
+            return linesRead;
+        }
+
+        public long getItemsWritten() {
+            return itemsWritten;
+        }
+
+        public long getRejectedLines() {
+            return rejectedLines;
+        }
+
+        public List<Reject> getRejects() {
+            return rejects;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? linesRead : linesRead * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines read, %d items written, %d rejected in %d ms (%.0f rows/s)",
+                    linesRead, itemsWritten, rejectedLines, elapsedMillis, getRowsPerSecond());
+        }
+    }
+
+    /**
+     * One item ready to be written, with the line it came from.
+     */
+    private static final class Row {
+        final long lineNumber;
+        final FoodItem item;
+
+        Row(long lineNumber, FoodItem item) {
+            this.lineNumber = lineNumber;
+            this.item = item;
+        }
+    }
+
+    /**
+     * The outcome of parsing one chunk of lines, in line order.
+     */
+    private static final class ParsedChunk {
+        final List<Row> rows = new ArrayList<>();
+        final List<Reject> rejects = new ArrayList<>();
+        int lines;
+    }
+
+    private static final Future<ParsedChunk> END_OF_FILE = CompletableFuture.completedFuture(null);
+
+    private final int restaurantId;
+    private final int batchSize;
+    private final int parserThreads;
+    private final SizedFoodItemFactory sizedFactory = new SizedFoodItemFactory();
+
+    public MenuImporter(int restaurantId) {
+        this(restaurantId, DEFAULT_BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param restaurantId The restaurant whose menu is loaded.
+     * @param batchSize Items per JDBC batch and per transaction.
+     * @param parserThreads Threads parsing lines while earlier chunks are written.
+     */
+    public MenuImporter(int restaurantId, int batchSize, int parserThreads) {
+        this.restaurantId = restaurantId;
+        this.batchSize = batchSize;
+        this.parserThreads = Math.max(1, parserThreads);
+    }
+
+    /**
+     * Imports every line of the file, inserting new items and updating the price and description of
+     * items the restaurant already has (matched by category and name).
+     * @param input The menu file, UTF-8.
+     * @return A summary of the run, including the rejected lines.
+     * @throws IOException If the file cannot be read.
+     * @throws SQLException If the database fails for a reason other than a bad row; batches committed
+     *                      before the failure stay imported.
+     */
+    public ImportResult importFrom(Path input, Format format) throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, daemonThreads("menu-import-parser"));
+        BlockingQueue<Future<ParsedChunk>> parsed = new ArrayBlockingQueue<>(parserThreads * 2); // Back-pressure on the reader
+        ChunkReader reader = new ChunkReader(input, format, parsers, parsed);
+        Thread readerThread = new Thread(reader, "menu-import-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        long lines = 0;
+        Writer writer = null;
+        try {
+            writer = new Writer();
+            while (true) {
+                Future<ParsedChunk> next = parsed.take();
+                if (next == END_OF_FILE) {
+                    break;
+                }
+                ParsedChunk chunk = next.get();
+                lines += chunk.lines;
+                writer.reject(chunk.rejects);
+                for (Row row : chunk.rows) {
+                    writer.add(row);
+                }
+            }
+            writer.flush();
+            if (reader.failure != null) {
+                throw reader.failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Menu import interrupted.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parsing the menu file failed.", e.getCause()); // Parsers reject rows, they do not throw
+        } finally {
+            reader.cancelled = true;
+            parsers.shutdownNow();
+            if (writer != null) {
+                writer.close();
+            }
+        }
+
+        ImportResult result = new ImportResult(lines, writer.written, writer.rejected, writer.rejects, System.currentTimeMillis() - start);
+        LOGGER.log(Level.INFO, "Imported menu for restaurant {0,number,#} from {1}: {2}", new Object[]{restaurantId, input, result});
+        return result;
+    }
+
+    /**
+     * Reads the file sequentially and queues a parse task per chunk of lines, in file order.
+     */
+    private final class ChunkReader implements Runnable {
+        private final Path input;
+        private final Format format;
+        private final ExecutorService parsers;
+        private final BlockingQueue<Future<ParsedChunk>> parsed;
+        volatile boolean cancelled;
+        volatile IOException failure;
+
+        ChunkReader(Path input, Format format, ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> parsed) {
+            this.input = input;
+            this.format = format;
+            this.parsers = parsers;
+            this.parsed = parsed;
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                long lineNumber = 0;
+                Map<String, Integer> columns = null;
+                if (format == Format.CSV) {
+                    String header = in.readLine();
+                    lineNumber++;
+                    columns = csvColumns(header);
+                }
+                Map<String, Integer> layout = columns;
+                List<String> chunk = new ArrayList<>(CHUNK_LINES);
+                long chunkStart = lineNumber + 1;
+                String line;
+                while (!cancelled && (line = in.readLine()) != null) {
+                    lineNumber++;
+                    chunk.add(line);
+                    if (chunk.size() == CHUNK_LINES) {
+                        submit(chunk, chunkStart, layout);
+                        chunk = new ArrayList<>(CHUNK_LINES);
+                        chunkStart = lineNumber + 1;
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    submit(chunk, chunkStart, layout);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            put(END_OF_FILE);
+        }
+
+        private void submit(List<String> lines, long firstLineNumber, Map<String, Integer> columns) throws InterruptedException {
+            List<String> chunk = lines;
+            Future<ParsedChunk> future = parsers.submit(() -> parse(chunk, firstLineNumber, format, columns));
+            if (!put(future)) {
+                throw new InterruptedException();
+            }
+        }
+
+        private boolean put(Future<ParsedChunk> future) {
+            try {
+                while (!cancelled) {
+                    if (parsed.offer(future, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false; // The import stopped and nobody is taking chunks any more
+        }
+    }
+
+    /**
+     * Turns a chunk of lines into items. Runs on a parser thread and touches no shared state.
+     */
+    private ParsedChunk parse(List<String> lines, long firstLineNumber, Format format, Map<String, Integer> columns) {
+        ParsedChunk chunk = new ParsedChunk();
+        long lineNumber = firstLineNumber;
+        for (String line : lines) {
+            chunk.lines++;
+            long current = lineNumber++;
+            if (line.trim().isEmpty()) {
+                chunk.lines--; // Blank lines are not rows
+                continue;
+            }
+            try {
+                Map<String, Object> fields = format == Format.CSV ? csvFields(line, columns) : JsonLine.parse(line);
+                for (FoodItem item : build(fields)) {
+                    chunk.rows.add(new Row(current, item));
+                }
+            } catch (IllegalArgumentException e) {
+                chunk.rejects.add(new Reject(current, e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Builds the item (or, for a sized item, one item per size) described by a line's fields.
+     * @throws IllegalArgumentException With the reason the line is rejected.
+     */
+    private List<FoodItem> build(Map<String, Object> fields) {
+        String categoryName = text(fields, "category", true);
+        String name = text(fields, "name", true);
+        String description = text(fields, "description", false);
+        if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("Description is longer than " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+        CategoryDescriptor category = CategoryRegistry.getInstance().find(categoryName);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown category '" + categoryName + "'");
+        }
+
+        List<FoodItem> items = new ArrayList<>();
+        Object sizes = fields.get("sizes");
+        if (fields.get("price") != null) {
+            items.add(category.createFoodItem(checkName(name), price(fields.get("price"), "price"), description));
+        } else if (sizes instanceof Map) {
+            Map<?, ?> sizePrices = (Map<?, ?>) sizes;
+            SizedFoodItem sized = sizedFactory.createSizedFoodItem(name, description, category.getName(),
+                    price(sizePrices.get("Small"), "Small price"), price(sizePrices.get("Medium"), "Medium price"),
+                    price(sizePrices.get("Large"), "Large price"));
+            for (String size : SIZES) {
+                // Stored as one row per size, e.g. "Classic Beef Burger (Small)"
+                items.add(category.createFoodItem(checkName(sized.getName() + " (" + size + ")"),
+                        sized.getSizePrices().get(size), sized.getDescription()));
+            }
+        } else {
+            throw new IllegalArgumentException("Missing price (or small, medium and large prices)");
+        }
+        return items;
+    }
+
+    private static String text(Map<String, Object> fields, String key, boolean required) {
+        Object value = fields.get(key);
+        String text = value == null ? null : value.toString().trim();
+        if (required && (text == null || text.isEmpty())) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    private static String checkName(String name) {
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Name is longer than " + MAX_NAME_LENGTH + " characters");
+        }
+        return name;
+    }
+
+    private static double price(Object value, String label) {
+        if (value == null || value.toString().trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing " + label);
+        }
+        double price;
+        try {
+            price = value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + label + " '" + value + "'");
+        }
+        if (!(price >= 0.0) || price >= 1e8) { // DECIMAL(10, 2); also rejects NaN
+            throw new IllegalArgumentException("Invalid " + label + " '" + value + "'");
+        }
+        return price;
+    }
+
+    /**
+     * @return Column name (lower case) to its index.
+     * @throws IOException If the header does not name the columns an item needs.
+     */
+    private static Map<String, Integer> csvColumns(String header) throws IOException {
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            List<String> names = splitCsv(header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        boolean priced = columns.containsKey("price")
+                || (columns.containsKey("small") && columns.containsKey("medium") && columns.containsKey("large"));
+        if (!columns.containsKey("category") || !columns.containsKey("name") || !priced) {
+            throw new IOException("The CSV header must name category, name, description and price "
+                    + "(or small, medium and large) columns; found: " + header);
+        }
+        return columns;
+    }
+
+    /**
+     * Maps a CSV line onto the JSON field names, so both formats are built the same way.
+     */
+    private static Map<String, Object> csvFields(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        Map<String, Object> fields = new HashMap<>();
+        for (String key : Arrays.asList("category", "name", "description", "price")) {
+            fields.put(key, column(values, columns, key));
+        }
+        if (fields.get("price") == null || fields.get("price").toString().trim().isEmpty()) {
+            fields.remove("price");
+            Map<String, Object> sizes = new HashMap<>();
+            for (String size : SIZES) {
+                sizes.put(size, column(values, columns, size.toLowerCase(Locale.ROOT)));
+            }
+            fields.put("sizes", sizes);
+        }
+        return fields;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= values.size() ? null : values.get(index);
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with "" as an escaped quote.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Upserts items on one connection in batches, one transaction per batch. Runs on the importing thread.
+     */
+    private final class Writer implements AutoCloseable {
+        private final Connection conn;
+        private final PreparedStatement upsert;
+        private final Map<String, Integer> categoryIds = new HashMap<>(); // Category name -> CategoryID
+        private final List<Row> batch = new ArrayList<>();
+        final List<Reject> rejects = new ArrayList<>(); // The first MAX_REPORTED_REJECTS
+        long written;
+        long rejected;
+
+        Writer() throws SQLException {
+            conn = DatabaseManager.getConnection();
+            try {
+                conn.setAutoCommit(false);
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT CategoryID, CategoryName FROM Categories WHERE RestaurantID = ?")) {
+                    pstmt.setInt(1, restaurantId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            categoryIds.put(rs.getString("CategoryName"), rs.getInt("CategoryID"));
+                        }
+                    }
+                }
+                conn.commit();
+                upsert = conn.prepareStatement(UPSERT_ITEM_SQL);
+            } catch (SQLException e) {
+                DatabaseManager.closeConnection(conn);
+                throw e;
+            }
+        }
+
+        /**
+         * Queues a row, flushing first once the batch is full. A batch only ends between lines, so
+         * the rows of a sized line are always written in the same transaction.
+         */
+        void add(Row row) throws SQLException {
+            if (batch.size() >= batchSize && batch.get(batch.size() - 1).lineNumber != row.lineNumber) {
+                flush();
+            }
+            batch.add(row);
+        }
+
+        void reject(List<Reject> lines) {
+            rejected += lines.size();
+            for (Reject reject : lines) {
+                if (rejects.size() < MAX_REPORTED_REJECTS) {
+                    rejects.add(reject);
+                }
+            }
+        }
+
+        /**
+         * Writes the pending batch in one transaction. If a row fails, the batch is rolled back and
+         * replayed line by line, so only the bad lines are rejected.
+         */
+        void flush() throws SQLException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                for (Row row : batch) {
+                    bind(row);
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+                conn.commit();
+                written += batch.size();
+            } catch (BatchUpdateException e) {
+                conn.rollback();
+                upsert.clearBatch();
+                writeLineByLine();
+            }
+            batch.clear();
+        }
+
+        /**
+         * Replays the batch with one transaction per input line: a sized line is written for all its
+         * sizes or, if the database rejects any of them, for none.
+         */
+        private void writeLineByLine() throws SQLException {
+            List<Reject> failed = new ArrayList<>();
+            int start = 0;
+            while (start < batch.size()) {
+                long lineNumber = batch.get(start).lineNumber;
+                int end = start;
+                try {
+                    while (end < batch.size() && batch.get(end).lineNumber == lineNumber) {
+                        bind(batch.get(end));
+                        upsert.executeUpdate();
+                        end++;
+                    }
+                    conn.commit();
+                    written += end - start;
+                } catch (SQLException e) {
+                    if (!isDataError(e)) {
+                        throw e;
+                    }
+                    conn.rollback();
+                    failed.add(new Reject(lineNumber, "Database rejected the row: " + e.getMessage()));
+                    while (end < batch.size() && batch.get(end).lineNumber == lineNumber) {
+                        end++;
+                    }
+                }
+                start = end;
+            }
+            reject(failed);
+        }
+
+        private void bind(Row row) throws SQLException {
+            upsert.setInt(1, restaurantId);
+            upsert.setInt(2, categoryId(row.item.getCategoryName()));
+            upsert.setString(3, row.item.getName());
+            upsert.setString(4, row.item.getDescription());
+            upsert.setDouble(5, row.item.getPrice());
+        }
+
+        /**
+         * Looks up the restaurant's category, creating it on first use.
+         */
+        private int categoryId(String name) throws SQLException {
+            Integer id = categoryIds.get(name);
+            if (id != null) {
+                return id;
+            }
+            try (Connection categoryConn = DatabaseManager.getConnection()) { // Committed at once, outside the item batch
+                try (PreparedStatement insert = categoryConn.prepareStatement(
+                        "INSERT INTO Categories (CategoryName, RestaurantID) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+                    insert.setString(1, name);
+                    insert.setInt(2, restaurantId);
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        keys.next();
+                        id = keys.getInt(1);
+                    }
+                    LOGGER.log(Level.INFO, "Created category {0} for restaurant {1,number,#}", new Object[]{name, restaurantId});
+                } catch (SQLException e) {
+                    if (!RetryPolicy.isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    id = findCategory(categoryConn, name); // Created by a concurrent import
+                }
+            }
+            categoryIds.put(name, id);
+            return id;
+        }
+
+        private int findCategory(Connection categoryConn, String name) throws SQLException {
+            try (PreparedStatement pstmt = categoryConn.prepareStatement(
+                    "SELECT CategoryID FROM Categories WHERE RestaurantID = ? AND CategoryName = ?")) {
+                pstmt.setInt(1, restaurantId);
+                pstmt.setString(2, name);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Category " + name + " disappeared while importing.");
+                    }
+                    return rs.getInt(1);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                upsert.close();
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Error resetting the import connection.", e);
+            }
+            DatabaseManager.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Constraint violations, truncation and bad values (SQLSTATE classes 22 and 23) are the row's
+     * fault; anything else means the database itself is in trouble and the import should stop.
+     */
+    private static boolean isDataError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Command-line entry point: {@code MenuImporter <input-file> [csv|ndjson] [restaurant-id]}.
+     * The format defaults to the file's extension, the restaurant to {@code foodordering.restaurantId}.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: MenuImporter <input-file> [csv|ndjson] [restaurant-id]");
+            System.exit(1);
+        }
+        Path input = Paths.get(args[0]);
+        Format format = args.length > 1 ? Format.valueOf(args[1].toUpperCase())
+                : input.toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV : Format.NDJSON;
+        int restaurantId = args.length > 2 ? Integer.parseInt(args[2]) : FoodItemDAO.DEFAULT_RESTAURANT_ID;
+        ImportResult result = new MenuImporter(restaurantId).importFrom(input, format);
+        System.out.println(result);
+        for (Reject reject : result.getRejects()) {
+            System.out.println("  " + reject);
+        }
+    }
+
+    /**
+     * Parser for one NDJSON line: an object of strings, numbers and nulls, with nested objects for
+     * "sizes". A menu line needs neither arrays nor booleans, so they are rejected.
+     */
+    private static final class JsonLine {
+        private final String text;
+        private int pos;
+
+        private JsonLine(String text) {
+            this.text = text;
+        }
+
+        static Map<String, Object> parse(String line) {
+            JsonLine parser = new JsonLine(line);
+            Map<String, Object> object = parser.object();
+            parser.skipWhitespace();
+            if (parser.pos != line.length()) {
+                throw parser.error("Unexpected text after the object");
+            }
+            return object;
+        }
+
+        private Map<String, Object> object() {
+            expect('{');
+            Map<String, Object> object = new HashMap<>();
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                object.put(key, value());
+                skipWhitespace();
+                char c = next();
+                if (c == '}') {
+                    return object;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+            }
+        }
+
+        private Object value() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (c == '{') {
+                return object();
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Unsupported value");
+            }
+            try {
+                return Double.valueOf(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number");
+            }
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Invalid escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: value.append(escaped); // \" \\ \/
+                }
+            }
+        }
+
+        private void expect(char expected) {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private char next() {
+            if (pos >= text.length()) {
+                throw error("Unexpected end of line");
+            }
+            return text.charAt(pos++);
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw error("Unexpected end of line");
+            }
+            return text.charAt(pos);
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at column " + (pos + 1) + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * In-process metrics, exposed in Prometheus text format by MetricsServer.
+ * Counters and histogram buckets are LongAdders, so concurrent updates land on separate cells
+ * instead of contending on one value. An update is a few nanoseconds and allocates nothing; all
+ * formatting happens when the registry is scraped. Gauges are callbacks read at scrape time, so they
+ * cost nothing between scrapes.
+ *
+ * Metrics are registered once, typically into static fields, and registering the same name and
+ * labels again returns the existing metric. Labels are fixed at registration as key/value pairs.
+ */
+class MetricsRegistry {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    /**
+     * Upper bounds, in seconds, of the default latency buckets: 0.5 ms to 10 s.
+     */
+    static final double[] LATENCY_BUCKETS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private enum Type {
+        COUNTER("counter"), GAUGE("gauge"), HISTOGRAM("histogram");
+
+        final String text;
+
+        Type(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * A monotonically increasing count.
+     */
+    static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        void increment() {
+            value.increment();
+        }
+
+        void add(long amount) {
+            value.add(amount);
+        }
+
+        long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Distribution of durations over fixed buckets, reported in seconds.
+     */
+    static final class Histogram {
+        private final long[] boundsNanos;
+        private final double[] boundsSeconds;
+        private final LongAdder[] buckets; // Per bucket, not cumulative; the last one is +Inf
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram(double[] boundsSeconds) {
+            this.boundsSeconds = boundsSeconds.clone();
+            this.boundsNanos = new long[boundsSeconds.length];
+            for (int i = 0; i < boundsSeconds.length; i++) {
+                boundsNanos[i] = (long) (boundsSeconds[i] * TimeUnit.SECONDS.toNanos(1));
+            }
+            this.buckets = new LongAdder[boundsSeconds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void observeNanos(long nanos) {
+            int i = 0;
+            while (i < boundsNanos.length && nanos > boundsNanos[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sumNanos.add(nanos);
+        }
+
+        long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * One labelled instance of a metric.
+     */
+    private static final class Child {
+        final String labels; // Rendered, e.g. {method="getAllCategories"}, or empty
+        final Object metric; // Counter, Histogram or DoubleSupplier
+
+        Child(String labels, Object metric) {
+            this.labels = labels;
+            this.metric = metric;
+        }
+    }
+
+    /**
+     * All instances of a metric name, sharing one HELP and TYPE line.
+     */
+    private static final class Family {
+        final String name;
+        final String help;
+        final Type type;
+        final Map<String, Child> children = new LinkedHashMap<>();
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private final Map<String, Family> families = new LinkedHashMap<>(); // Guarded by this
+
+    static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param labels Label names and values, alternating.
+     */
+    synchronized Counter counter(String name, String help, String... labels) {
+        return (Counter) register(name, help, Type.COUNTER, labels, Counter::new);
+    }
+
+    synchronized Histogram histogram(String name, String help, String... labels) {
+        return histogram(name, help, LATENCY_BUCKETS, labels);
+    }
+
+    synchronized Histogram histogram(String name, String help, double[] bucketsSeconds, String... labels) {
+        return (Histogram) register(name, help, Type.HISTOGRAM, labels, () -> new Histogram(bucketsSeconds));
+    }
+
+    /**
+     * Registers a gauge read at scrape time. Registering the same name and labels again replaces the
+     * callback, e.g. when the component it reads from is recreated.
+     */
+    synchronized void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        Family family = family(name, help, Type.GAUGE);
+        String rendered = renderLabels(labels);
+        family.children.put(rendered, new Child(rendered, value));
+    }
+
+    private Object register(String name, String help, Type type, String[] labels, Supplier<Object> create) {
+        Family family = family(name, help, type);
+        String rendered = renderLabels(labels);
+        Child child = family.children.get(rendered);
+        if (child == null) {
+            child = new Child(rendered, create.get());
+            family.children.put(rendered, child);
+        }
+        return child.metric;
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = new Family(name, help, type);
+            families.put(name, family);
+        } else if (family.type != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type.text);
+        }
+        return family;
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format (version 0.0.4).
+     */
+    String scrape() {
+        List<Family> snapshot;
+        Map<Family, List<Child>> children = new LinkedHashMap<>();
+        synchronized (this) {
+            snapshot = new ArrayList<>(families.values());
+            for (Family family : snapshot) {
+                children.put(family, new ArrayList<>(family.children.values()));
+            }
+        }
+        StringBuilder out = new StringBuilder(4096);
+        for (Family family : snapshot) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type.text).append('\n');
+            for (Child child : children.get(family)) {
+                switch (family.type) {
+                    case COUNTER:
+                        out.append(family.name).append(child.labels).append(' ').append(((Counter) child.metric).get()).append('\n');
+                        break;
+                    case GAUGE:
+                        double value;
+                        try {
+                            value = ((DoubleSupplier) child.metric).getAsDouble();
+                        } catch (RuntimeException e) {
+                            continue; // A gauge whose source is gone is left out rather than failing the scrape
+                        }
+                        out.append(family.name).append(child.labels).append(' ').append(formatDouble(value)).append('\n');
+                        break;
+                    default:
+                        appendHistogram(out, family.name, child.labels, (Histogram) child.metric);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, String labels, Histogram histogram) {
+        String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        long cumulative = 0;
+        for (int i = 0; i < histogram.buckets.length; i++) {
+            cumulative += histogram.buckets[i].sum();
+            String le = i < histogram.boundsSeconds.length ? formatDouble(histogram.boundsSeconds[i]) : "+Inf";
+            out.append(name).append("_bucket").append(prefix).append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        out.append(name).append("_sum").append(labels).append(' ')
+                .append(formatDouble(histogram.sumNanos.sum() / 1e9)).append('\n');
+        out.append(name).append("_count").append(labels).append(' ').append(cumulative).append('\n');
+    }
+
+    private static String renderLabels(String[] labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder rendered = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            rendered.append(i == 0 ? "" : ",").append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return rendered.append('}').toString();
+    }
+
+    private static String formatDouble(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
@@ -7,6 +7,6 @@ package com.foodordering.system;
 class NoodlesFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Noodles");
+        return CategoryRegistry.NOODLES.createFoodItem(name, price, description);
     }
 }
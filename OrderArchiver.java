@@ -0,0 +1,264 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves orders older than a retention window from Orders/OrderDetails into the archive tables.
+ * Work is done in small, throttled batches, each in its own short transaction, so the hot tables
+ * never see long-held or escalated locks and OrderProcessor's inserts (which always land at the
+ * end of the OrderID range) keep flowing. Rows locked by someone else are skipped (READPAST)
+ * and picked up by a later batch instead of being waited for.
+ */
+class OrderArchiver {
+    private static final Logger LOGGER = Logger.getLogger(OrderArchiver.class.getName());
+
+    private static final int LOCK_TIMEOUT_ERROR = 1222;
+
+    // One round trip per batch. The batch's OrderIDs are captured once so every statement works on
+    // exactly the same set; NOCOUNT keeps the final SELECT as the only result.
+    private static final String ARCHIVE_BATCH_SQL =
+            "SET NOCOUNT ON; " +
+            "DECLARE @Batch TABLE (OrderID INT PRIMARY KEY); " +
+            "INSERT INTO @Batch (OrderID) " +
+            "  SELECT TOP (?) OrderID FROM Orders WITH (ROWLOCK, READPAST) WHERE OrderDate < ? ORDER BY OrderID; " +
+            "INSERT INTO OrdersArchive (OrderID, CustomerName, CustomerAddress, OrderDate, TotalAmount) " +
+            "  SELECT o.OrderID, o.CustomerName, o.CustomerAddress, o.OrderDate, o.TotalAmount " +
+            "  FROM Orders o JOIN @Batch b ON b.OrderID = o.OrderID; " +
+            "INSERT INTO OrderDetailsArchive (OrderDetailID, OrderID, FoodItemID, Quantity, PricePerItem) " +
+            "  SELECT d.OrderDetailID, d.OrderID, d.FoodItemID, d.Quantity, d.PricePerItem " +
+            "  FROM OrderDetails d JOIN @Batch b ON b.OrderID = d.OrderID; " +
+            "DECLARE @Details INT = @@ROWCOUNT; " +
+            "DELETE d FROM OrderDetails d WITH (ROWLOCK) JOIN @Batch b ON b.OrderID = d.OrderID; " +
+            "DELETE o FROM Orders o WITH (ROWLOCK) JOIN @Batch b ON b.OrderID = o.OrderID; " +
+            "SELECT (SELECT COUNT(*) FROM @Batch) AS Orders, @Details AS Details;";
+
+    private static final String LOCK_WAIT_SQL =
+            "SELECT COALESCE(SUM(wait_time_ms), 0) FROM sys.dm_exec_session_wait_stats " +
+            "WHERE session_id = @@SPID AND wait_type LIKE 'LCK%'";
+
+    /**
+     * Progress report for one archived batch.
+     */
+    static class BatchReport {
+        private final int batchNumber;
+        private final int ordersMoved;
+        private final int detailRowsMoved;
+        private final long lockWaitMillis; // -1 if the server does not expose session wait stats
+        private final long elapsedMillis;
+
+        BatchReport(int batchNumber, int ordersMoved, int detailRowsMoved, long lockWaitMillis, long elapsedMillis) {
+            this.batchNumber = batchNumber;
+            this.ordersMoved = ordersMoved;
+            this.detailRowsMoved = detailRowsMoved;
+            this.lockWaitMillis = lockWaitMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getOrdersMoved() {
+            return ordersMoved;
+        }
+
+        public int getDetailRowsMoved() {
+            return detailRowsMoved;
+        }
+
+        public long getLockWaitMillis() {
+            return lockWaitMillis;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getOrdersPerSecond() {
+            return elapsedMillis == 0 ? ordersMoved : ordersMoved * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("batch %d: %d orders / %d details in %d ms (%.1f orders/s, lock waits %s)",
+                    batchNumber, ordersMoved, detailRowsMoved, elapsedMillis, getOrdersPerSecond(),
+                    lockWaitMillis < 0 ? "n/a" : lockWaitMillis + " ms");
+        }
+    }
+
+    private final int retentionDays;
+    private final int batchSize;
+    private final long pauseBetweenBatchesMillis;
+    private final int lockTimeoutMillis;
+    private volatile boolean lockStatsAvailable = true;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param retentionDays Orders older than this many days are archived.
+     * @param batchSize Orders per batch; kept well below SQL Server's 5000-lock escalation threshold.
+     * @param pauseBetweenBatchesMillis Throttle between batches, leaving the hot tables to live traffic.
+     * @param lockTimeoutMillis How long a batch may wait for a lock before giving up until the next run.
+     */
+    public OrderArchiver(int retentionDays, int batchSize, long pauseBetweenBatchesMillis, int lockTimeoutMillis) {
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.pauseBetweenBatchesMillis = pauseBetweenBatchesMillis;
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    public OrderArchiver() {
+        this(90, 500, 200, 2000);
+    }
+
+    /**
+     * Archives batches until no order older than the retention window is left (or a batch times out on locks).
+     * @return The total number of orders archived by this run.
+     * @throws SQLException If a batch fails for a reason other than a lock timeout.
+     */
+    public int runOnce() throws SQLException {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        int total = 0;
+        int batchNumber = 0;
+        long start = System.currentTimeMillis();
+        Connection conn = null;
+
+        try {
+            conn = DatabaseManager.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET LOCK_TIMEOUT " + lockTimeoutMillis);
+                stmt.execute("SET DEADLOCK_PRIORITY LOW"); // Lose deadlocks to live orders, never the other way round
+            }
+            while (true) {
+                BatchReport report;
+                try {
+                    report = archiveBatch(conn, cutoff, ++batchNumber);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() == LOCK_TIMEOUT_ERROR) {
+                        LOGGER.warning("Archive batch " + batchNumber + " timed out waiting for locks; resuming next run.");
+                        break;
+                    }
+                    throw e;
+                }
+                total += report.getOrdersMoved();
+                LOGGER.info("Order archival " + report);
+                if (report.getOrdersMoved() < batchSize) {
+                    break;
+                }
+                sleep(pauseBetweenBatchesMillis);
+                if (Thread.currentThread().isInterrupted()) {
+                    break; // stop() was called between batches
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Order archival failed after " + total + " orders.", e);
+            throw e;
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+        LOGGER.info("Order archival run finished: " + total + " orders older than " + cutoff
+                + " archived in " + (System.currentTimeMillis() - start) + " ms.");
+        return total;
+    }
+
+    private BatchReport archiveBatch(Connection conn, Timestamp cutoff, int batchNumber) throws SQLException {
+        long lockWaitBefore = readLockWaitMillis(conn);
+        long start = System.currentTimeMillis();
+        int orders = 0;
+        int details = 0;
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(ARCHIVE_BATCH_SQL)) {
+            pstmt.setInt(1, batchSize);
+            pstmt.setTimestamp(2, cutoff);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    orders = rs.getInt("Orders");
+                    details = rs.getInt("Details");
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        long lockWaitAfter = readLockWaitMillis(conn);
+        long lockWait = lockWaitBefore < 0 || lockWaitAfter < 0 ? -1 : lockWaitAfter - lockWaitBefore;
+        return new BatchReport(batchNumber, orders, details, lockWait, elapsed);
+    }
+
+    /**
+     * Reads this session's cumulative lock wait time. Needs SQL Server 2016+ and VIEW SERVER STATE;
+     * if either is missing the figure is reported as unavailable instead of failing the run.
+     */
+    private long readLockWaitMillis(Connection conn) {
+        if (!lockStatsAvailable) {
+            return -1;
+        }
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(LOCK_WAIT_SQL)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.INFO, "Session wait stats unavailable; lock waits will not be reported.", e);
+            lockStatsAvailable = false;
+            return -1;
+        }
+    }
+
+    /**
+     * Runs the archiver periodically on a background thread.
+     * @param period The time between runs.
+     * @param unit The unit of the period.
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-archiver");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (SQLException e) {
+                // Already logged; the next scheduled run simply tries again.
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Command-line entry point for cron-style runs: {@code OrderArchiver [retention-days]}.
+     */
+    public static void main(String[] args) throws Exception {
+        int retentionDays = args.length > 0 ? Integer.parseInt(args[0]) : 90;
+        int archived = new OrderArchiver(retentionDays, 500, 200, 2000).runOnce();
+        System.out.println("Archived " + archived + " orders.");
+    }
+}
@@ -0,0 +1,460 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the order history (Orders joined with OrderDetails) to a CSV or
+ * newline-delimited JSON file without ever holding more than one order in memory.
+ * Rows are read through a forward-only, read-only cursor with a fixed fetch size and
+ * encoded straight into a reusable NIO buffer, so memory use stays flat regardless
+ * of how many orders are exported.
+ * An export can be resumed: the last fully written OrderID is kept in a checkpoint file
+ * next to the output, and the next run continues after it.
+ */
+class OrderExporter {
+    private static final Logger LOGGER = Logger.getLogger(OrderExporter.class.getName());
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Orders are read in OrderID order so the checkpoint is a simple high-water mark.
+    private static final String EXPORT_SQL =
+            "SELECT o.OrderID, o.CustomerName, o.CustomerAddress, o.OrderDate, o.TotalAmount, " +
+            "d.FoodItemID, d.Quantity, d.PricePerItem " +
+            "FROM Orders o JOIN OrderDetails d ON d.OrderID = o.OrderID " +
+            "WHERE o.OrderID > ? " +
+            "ORDER BY o.OrderID, d.OrderDetailID";
+
+    /**
+     * Output formats supported by the exporter.
+     */
+    enum Format {
+        CSV,   // One line per order detail, order columns repeated
+        NDJSON // One JSON object per order with an embedded "items" array
+    }
+
+    /**
+     * Summary of a finished export run.
+     */
+    static class ExportResult {
+        private final int ordersExported;
+        private final long rowsExported;
+        private final int lastOrderId;
+        private final long elapsedMillis;
+
+        ExportResult(int ordersExported, long rowsExported, int lastOrderId, long elapsedMillis) {
+            this.ordersExported = ordersExported;
+            this.rowsExported = rowsExported;
+            this.lastOrderId = lastOrderId;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getOrdersExported() {
+            return ordersExported;
+        }
+
+        public long getRowsExported() {
+            return rowsExported;
+        }
+
+        public int getLastOrderId() {
+            return lastOrderId;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d orders (%d rows) exported in %d ms, last OrderID %d",
+                    ordersExported, rowsExported, elapsedMillis, lastOrderId);
+        }
+    }
+
+    private final Format format;
+    private final boolean gzip;
+    private final int fetchSize;
+
+    public OrderExporter(Format format, boolean gzip) {
+        this(format, gzip, DEFAULT_FETCH_SIZE);
+    }
+
+    public OrderExporter(Format format, boolean gzip, int fetchSize) {
+        this.format = format;
+        this.gzip = gzip;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Exports every order after the last checkpointed OrderID to the given file.
+     * When a checkpoint exists the output is cut back to the checkpointed size and appended to (as a
+     * new gzip member when compressed), otherwise the file is created from scratch. A compressed export
+     * is only checkpointed once its member is complete, so a crashed one resumes from the previous run.
+     * @param output The file to write.
+     * @return A summary of the run.
+     * @throws SQLException If reading the order history fails.
+     * @throws IOException If writing the output or checkpoint fails.
+     */
+    public ExportResult exportTo(Path output) throws SQLException, IOException {
+        Path checkpointFile = checkpointFor(output);
+        Checkpoint checkpoint = readCheckpoint(checkpointFile);
+        boolean append = checkpoint.lastOrderId > 0 && Files.exists(output);
+        if (!append) {
+            checkpoint = new Checkpoint(0, 0);
+        } else {
+            LOGGER.info("Resuming order export after OrderID " + checkpoint.lastOrderId);
+            // Drop a torn tail (or a torn gzip member) left by a crash after the last checkpoint.
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+                if (channel.size() > checkpoint.byteOffset) {
+                    channel.truncate(checkpoint.byteOffset);
+                }
+            }
+        }
+
+        OutputStream out = Files.newOutputStream(output, StandardOpenOption.CREATE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        if (gzip) {
+            // Appending starts a new gzip member; concatenated members are still a valid gzip stream.
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        ExportResult result;
+        try (ChannelWriter writer = new ChannelWriter(Channels.newChannel(out), checkpoint.byteOffset)) {
+            if (!append && format == Format.CSV) {
+                writer.append("OrderID,CustomerName,CustomerAddress,OrderDate,TotalAmount,FoodItemID,Quantity,PricePerItem\n");
+                writer.commit();
+            }
+            result = export(checkpoint.lastOrderId, writer, checkpointFile);
+        }
+        if (gzip) {
+            // Closing wrote the member's trailer; the compressed size now ends on a member boundary.
+            writeCheckpoint(checkpointFile, new Checkpoint(result.getLastOrderId(), Files.size(output)));
+        }
+        return result;
+    }
+
+    /**
+     * Streams orders after the given OrderID into the writer. Each order is staged in full before it is
+     * committed to the output buffer, so the file only ever contains complete orders when the
+     * export stops on a database error.
+     */
+    private ExportResult export(int afterOrderId, ChannelWriter writer, Path checkpointFile) throws SQLException, IOException {
+        long start = System.currentTimeMillis();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        int orders = 0;
+        long rows = 0;
+        int currentOrderId = afterOrderId;
+        int lastCompletedOrderId = afterOrderId;
+        boolean firstItem = true;
+
+        try {
+            conn = DatabaseManager.getConnection();
+            // Some drivers only honour the fetch size inside a transaction.
+            conn.setAutoCommit(false);
+            pstmt = conn.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            pstmt.setInt(1, afterOrderId);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                int orderId = rs.getInt(1);
+                if (orderId != currentOrderId) {
+                    if (orders > 0) {
+                        int flushedUpTo = lastCompletedOrderId;
+                        endOrder(writer);
+                        lastCompletedOrderId = currentOrderId;
+                        if (writer.commit() && !gzip) {
+                            // Everything before the order just committed has reached the file.
+                            writeCheckpoint(checkpointFile, new Checkpoint(flushedUpTo, writer.committedOffsetBeforeLastOrder()));
+                        }
+                    }
+                    currentOrderId = orderId;
+                    orders++;
+                    firstItem = true;
+                    if (format == Format.NDJSON) {
+                        writeJsonOrderHeader(writer, rs);
+                    }
+                }
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, rs);
+                } else {
+                    writeJsonItem(writer, rs, firstItem);
+                }
+                firstItem = false;
+                rows++;
+            }
+            if (orders > 0) {
+                endOrder(writer);
+                writer.commit();
+                lastCompletedOrderId = currentOrderId;
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error exporting order history after OrderID " + lastCompletedOrderId + ".", e);
+            throw e;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (pstmt != null) pstmt.close();
+                if (conn != null) conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error closing resources after order export.", e);
+            }
+            DatabaseManager.closeConnection(conn);
+            // Discard a partially read order, persist the complete ones, then checkpoint them.
+            writer.discardStaged();
+            writer.flush();
+            if (!gzip) { // A compressed export is checkpointed by exportTo once the stream is closed
+                writeCheckpoint(checkpointFile, new Checkpoint(lastCompletedOrderId, writer.getBytesWritten()));
+            }
+        }
+
+        ExportResult result = new ExportResult(orders, rows, lastCompletedOrderId, System.currentTimeMillis() - start);
+        LOGGER.info("Order export finished: " + result);
+        return result;
+    }
+
+    private void endOrder(ChannelWriter writer) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.append("]}\n");
+        }
+    }
+
+    private void writeCsvRow(ChannelWriter writer, ResultSet rs) throws SQLException, IOException {
+        writer.append(rs.getInt(1)).append(',');
+        writer.appendCsv(rs.getString(2)).append(',');
+        writer.appendCsv(rs.getString(3)).append(',');
+        writer.append(formatTimestamp(rs.getTimestamp(4))).append(',');
+        writer.append(rs.getBigDecimal(5).toPlainString()).append(',');
+        writer.append(rs.getInt(6)).append(',');
+        writer.append(rs.getInt(7)).append(',');
+        writer.append(rs.getBigDecimal(8).toPlainString()).append('\n');
+    }
+
+    private void writeJsonOrderHeader(ChannelWriter writer, ResultSet rs) throws SQLException, IOException {
+        writer.append("{\"orderId\":").append(rs.getInt(1));
+        writer.append(",\"customerName\":").appendJson(rs.getString(2));
+        writer.append(",\"customerAddress\":").appendJson(rs.getString(3));
+        writer.append(",\"orderDate\":").appendJson(formatTimestamp(rs.getTimestamp(4)));
+        writer.append(",\"totalAmount\":").append(rs.getBigDecimal(5).toPlainString());
+        writer.append(",\"items\":[");
+    }
+
+    private void writeJsonItem(ChannelWriter writer, ResultSet rs, boolean first) throws SQLException, IOException {
+        if (!first) {
+            writer.append(',');
+        }
+        writer.append("{\"foodItemId\":").append(rs.getInt(6));
+        writer.append(",\"quantity\":").append(rs.getInt(7));
+        writer.append(",\"pricePerItem\":").append(rs.getBigDecimal(8).toPlainString()).append('}');
+    }
+
+    private static String formatTimestamp(Timestamp timestamp) {
+        return timestamp == null ? "" : timestamp.toLocalDateTime().toString();
+    }
+
+    static Path checkpointFor(Path output) {
+        return output.resolveSibling(output.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Export high-water mark: the last fully written OrderID and the output size at that point
+     * (the compressed size for a gzip export).
+     */
+    private static class Checkpoint {
+        final int lastOrderId;
+        final long byteOffset;
+
+        Checkpoint(int lastOrderId, long byteOffset) {
+            this.lastOrderId = lastOrderId;
+            this.byteOffset = byteOffset;
+        }
+    }
+
+    private static Checkpoint readCheckpoint(Path checkpointFile) throws IOException {
+        if (!Files.exists(checkpointFile)) {
+            return new Checkpoint(0, 0);
+        }
+        String content = new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8).trim();
+        try {
+            if (content.isEmpty()) {
+                return new Checkpoint(0, 0);
+            }
+            String[] parts = content.split(",");
+            return new Checkpoint(Integer.parseInt(parts[0]), parts.length > 1 ? Long.parseLong(parts[1]) : 0);
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt export checkpoint " + checkpointFile + ": " + content, e);
+        }
+    }
+
+    private static void writeCheckpoint(Path checkpointFile, Checkpoint checkpoint) throws IOException {
+        // Write-then-rename so a crash never leaves a half-written checkpoint behind.
+        Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.write(tmp, (checkpoint.lastOrderId + "," + checkpoint.byteOffset).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Minimal character sink that stages the current order in a reusable builder, then encodes
+     * committed orders as UTF-8 into a reusable ByteBuffer that is drained into a channel.
+     */
+    private static class ChannelWriter implements AutoCloseable {
+        private final WritableByteChannel channel;
+        private final StringBuilder staged = new StringBuilder(1024);
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private long bytesWritten;           // Bytes handed to the channel, including the resumed prefix
+        private long offsetBeforeLastOrder;  // bytesWritten + buffered bytes before the last commit
+
+        ChannelWriter(WritableByteChannel channel, long initialOffset) {
+            this.channel = channel;
+            this.bytesWritten = initialOffset;
+        }
+
+        ChannelWriter append(char c) {
+            staged.append(c);
+            return this;
+        }
+
+        ChannelWriter append(String text) {
+            staged.append(text);
+            return this;
+        }
+
+        ChannelWriter append(int value) {
+            staged.append(value);
+            return this;
+        }
+
+        ChannelWriter appendCsv(String value) {
+            if (value == null) {
+                return this;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                return append(value);
+            }
+            staged.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    staged.append('"');
+                }
+                staged.append(c);
+            }
+            staged.append('"');
+            return this;
+        }
+
+        ChannelWriter appendJson(String value) {
+            if (value == null) {
+                return append("null");
+            }
+            staged.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': staged.append("\\\""); break;
+                    case '\\': staged.append("\\\\"); break;
+                    case '\n': staged.append("\\n"); break;
+                    case '\r': staged.append("\\r"); break;
+                    case '\t': staged.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            staged.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            staged.append(c);
+                        }
+                }
+            }
+            staged.append('"');
+            return this;
+        }
+
+        /**
+         * Moves the staged order into the output buffer.
+         * @return true if the buffer had to be drained to the channel while doing so.
+         */
+        boolean commit() throws IOException {
+            offsetBeforeLastOrder = bytesWritten + bytes.position();
+            boolean drained = false;
+            CharBuffer chars = CharBuffer.wrap(staged);
+            while (encoder.encode(chars, bytes, false).isOverflow()) {
+                drainBytes();
+                drained = true;
+            }
+            staged.setLength(0);
+            return drained;
+        }
+
+        long committedOffsetBeforeLastOrder() {
+            return offsetBeforeLastOrder;
+        }
+
+        long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        void discardStaged() {
+            staged.setLength(0);
+        }
+
+        private void drainBytes() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                bytesWritten += channel.write(bytes);
+            }
+            bytes.clear();
+        }
+
+        void flush() throws IOException {
+            drainBytes();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /**
+     * Command-line entry point: {@code OrderExporter <output-file> [csv|ndjson] [gzip]}.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: OrderExporter <output-file> [csv|ndjson] [gzip]");
+            System.exit(1);
+        }
+        Format format = args.length > 1 ? Format.valueOf(args[1].toUpperCase()) : Format.CSV;
+        boolean gzip = args.length > 2 && "gzip".equalsIgnoreCase(args[2]);
+        ExportResult result = new OrderExporter(format, gzip).exportTo(Paths.get(args[0]));
+        System.out.println(result);
+    }
+}
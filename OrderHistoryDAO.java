@@ -0,0 +1,140 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Access Object for reading placed orders across hot and cold storage.
+ * Lookups go to the live Orders/OrderDetails tables first and only fall back to
+ * OrdersArchive/OrderDetailsArchive when the hot tables cannot answer on their own,
+ * so callers never need to know whether OrderArchiver has moved an order yet.
+ */
+public class OrderHistoryDAO {
+    private static final Logger LOGGER = Logger.getLogger(OrderHistoryDAO.class.getName());
+
+    /**
+     * Table names for one storage tier.
+     */
+    private enum Tier {
+        HOT("Orders", "OrderDetails", false),
+        ARCHIVE("OrdersArchive", "OrderDetailsArchive", true);
+
+        final String orders;
+        final String details;
+        final boolean archived;
+
+        Tier(String orders, String details, boolean archived) {
+            this.orders = orders;
+            this.details = details;
+            this.archived = archived;
+        }
+    }
+
+    /**
+     * Retrieves a single order with its detail lines, looking in the archive if it is no longer hot.
+     * @param orderId The ID of the order.
+     * @return The order, or null if it exists in neither tier.
+     * @throws SQLException If a database access error occurs.
+     */
+    public OrderRecord getOrder(int orderId) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            OrderRecord order = findOrder(conn, Tier.HOT, orderId);
+            if (order == null) {
+                order = findOrder(conn, Tier.ARCHIVE, orderId);
+            }
+            return order;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching order ID " + orderId + " from database.", e);
+            throw e;
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Retrieves a customer's most recent orders, newest first. The archive is only queried when
+     * the hot tables hold fewer than the requested number of orders.
+     * @param customerName The customer's name as entered at checkout.
+     * @param limit The maximum number of orders to return.
+     * @return Up to {@code limit} orders with their detail lines.
+     * @throws SQLException If a database access error occurs.
+     */
+    public List<OrderRecord> getOrdersForCustomer(String customerName, int limit) throws SQLException {
+        List<OrderRecord> orders = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            orders.addAll(findCustomerOrders(conn, Tier.HOT, customerName, limit));
+            if (orders.size() < limit) {
+                orders.addAll(findCustomerOrders(conn, Tier.ARCHIVE, customerName, limit - orders.size()));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error fetching orders for customer " + customerName + " from database.", e);
+            throw e;
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+        return orders;
+    }
+
+    private OrderRecord findOrder(Connection conn, Tier tier, int orderId) throws SQLException {
+        String sql = "SELECT o.OrderID, o.CustomerName, o.CustomerAddress, o.OrderDate, o.TotalAmount, " +
+                "d.FoodItemID, d.Quantity, d.PricePerItem " +
+                "FROM " + tier.orders + " o LEFT JOIN " + tier.details + " d ON d.OrderID = o.OrderID " +
+                "WHERE o.OrderID = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, orderId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Map<Integer, OrderRecord> orders = readOrders(rs, tier);
+                return orders.isEmpty() ? null : orders.values().iterator().next();
+            }
+        }
+    }
+
+    private List<OrderRecord> findCustomerOrders(Connection conn, Tier tier, String customerName, int limit) throws SQLException {
+        String sql = "SELECT o.OrderID, o.CustomerName, o.CustomerAddress, o.OrderDate, o.TotalAmount, " +
+                "d.FoodItemID, d.Quantity, d.PricePerItem " +
+                "FROM (SELECT TOP (?) * FROM " + tier.orders + " WHERE CustomerName = ? ORDER BY OrderDate DESC, OrderID DESC) o " +
+                "LEFT JOIN " + tier.details + " d ON d.OrderID = o.OrderID " +
+                "ORDER BY o.OrderDate DESC, o.OrderID DESC";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            pstmt.setString(2, customerName);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return new ArrayList<>(readOrders(rs, tier).values());
+            }
+        }
+    }
+
+    /**
+     * Folds joined order/detail rows into OrderRecords, preserving the query's order.
+     */
+    private Map<Integer, OrderRecord> readOrders(ResultSet rs, Tier tier) throws SQLException {
+        Map<Integer, OrderRecord> orders = new LinkedHashMap<>();
+        while (rs.next()) {
+            int orderId = rs.getInt("OrderID");
+            OrderRecord order = orders.get(orderId);
+            if (order == null) {
+                order = new OrderRecord(orderId, rs.getString("CustomerName"), rs.getString("CustomerAddress"),
+                        rs.getTimestamp("OrderDate"), rs.getDouble("TotalAmount"), tier.archived);
+                orders.put(orderId, order);
+            }
+            int foodItemId = rs.getInt("FoodItemID");
+            if (!rs.wasNull()) {
+                order.addLine(new OrderRecord.Line(foodItemId, rs.getInt("Quantity"), rs.getDouble("PricePerItem")));
+            }
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,18 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.Map;
+
+/**
+ * Interface for components that want to be notified after an order has been committed.
+ * This is the 'Observer' interface for OrderProcessor, mirroring ShoppingCartListener for the cart.
+ */
+interface OrderListener {
+    /**
+     * Called once the order and all of its details have been committed.
+     * @param orderId The database ID of the new order.
+     * @param items The ordered items and their quantities.
+     * @param timestampMillis The time the order was placed, in epoch milliseconds.
+     */
+    void orderPlaced(int orderId, Map<FoodItem, Integer> items, long timestampMillis);
+}
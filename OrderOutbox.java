@@ -0,0 +1,489 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Durable local queue of accepted orders (transactional outbox). OrderProcessor appends each order
+ * here, fsynced, before confirming it to the customer; a background drainer then delivers queued
+ * orders to the database in batches, one transaction per batch.
+ *
+ * Every order carries an idempotency key stored in Orders.IdempotencyKey. The delivered position
+ * is only advanced after the batch commits, so a crash in between redelivers the batch; the key
+ * lookup then finds the orders that already exist and skips them instead of inserting duplicates.
+ * Connection problems back off exponentially (with jitter) and retry forever; an order the database
+ * rejects outright is moved to a dead-letter file so it cannot block the queue.
+ * Each record also carries the session (cart ID) that placed it; once the order is committed the
+ * session's reads are pinned to the primary (DatabaseManager.recordWrite), so the customer sees it.
+ *
+ * Files in the outbox directory: {@code outbox.log} (records {@code [int length][int crc32][payload]}),
+ * {@code outbox.ack} (byte offset of the first undelivered record) and {@code outbox.dead}.
+ */
+class OrderOutbox implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(OrderOutbox.class.getName());
+
+    private static final int HEADER_BYTES = 8;
+    private static final int BATCH_SIZE = 50;
+    private static final long INITIAL_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    /**
+     * One queued order as read back from the log.
+     */
+    static class Entry {
+        final String idempotencyKey;
+        final String customerName;
+        final String customerAddress;
+        final long acceptedAtMillis;
+        final Map<FoodItem, Integer> items;
+        final double discount;
+        final long sessionId; // DatabaseManager.NO_SESSION in records written before sessions were recorded
+        final long endOffset; // Log offset just past this record
+
+        Entry(String idempotencyKey, String customerName, String customerAddress, long acceptedAtMillis,
+              Map<FoodItem, Integer> items, double discount, long sessionId, long endOffset) {
+            this.idempotencyKey = idempotencyKey;
+            this.customerName = customerName;
+            this.customerAddress = customerAddress;
+            this.acceptedAtMillis = acceptedAtMillis;
+            this.items = items;
+            this.discount = discount;
+            this.sessionId = sessionId;
+            this.endOffset = endOffset;
+        }
+    }
+
+    private final Path logPath;
+    private final Path ackPath;
+    private final Path deadLetterPath;
+    private final OrderProcessor processor;
+
+    private final Object lock = new Object();
+    private final FileChannel log; // Appends are guarded by lock
+    private long ackOffset; // Guarded by lock
+    private long depth; // Undelivered orders; guarded by lock
+    private long oldestPendingMillis; // Acceptance time of the oldest undelivered order, 0 when empty; guarded by lock
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private volatile long lastDeliveryLagMillis;
+    private volatile boolean running;
+    private Thread drainer;
+
+    /**
+     * Opens the outbox in the given directory, counting the orders still waiting from a previous run.
+     * A torn record at the end of the log (crash mid-append) was never confirmed and is cut off.
+     * @param directory The outbox directory.
+     * @param processor Writes delivered orders and notifies its listeners.
+     * @throws IOException If the files cannot be opened.
+     */
+    public OrderOutbox(Path directory, OrderProcessor processor) throws IOException {
+        Files.createDirectories(directory);
+        this.logPath = directory.resolve("outbox.log");
+        this.ackPath = directory.resolve("outbox.ack");
+        this.deadLetterPath = directory.resolve("outbox.dead");
+        this.processor = processor;
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.ackOffset = readAckOffset();
+
+        List<Entry> pending = read(ackOffset, Integer.MAX_VALUE);
+        long validEnd = pending.isEmpty() ? ackOffset : pending.get(pending.size() - 1).endOffset;
+        if (validEnd < log.size()) {
+            LOGGER.warning("Truncating torn outbox record at byte " + validEnd);
+            log.truncate(validEnd);
+        }
+        log.position(validEnd);
+        depth = pending.size();
+        oldestPendingMillis = pending.isEmpty() ? 0 : pending.get(0).acceptedAtMillis;
+        if (depth > 0) {
+            LOGGER.info("Outbox holds " + depth + " undelivered orders from a previous run.");
+        }
+    }
+
+    /**
+     * @return The outbox directory configured by {@code foodordering.outbox.dir} (default "outbox").
+     */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("foodordering.outbox.dir", "outbox"));
+    }
+
+    /**
+     * Durably appends an accepted order and wakes the drainer. Returns once the record is on disk.
+     * @param sessionId The session placing the order (e.g. the cart ID), or DatabaseManager.NO_SESSION.
+     * @throws IOException If the record could not be written and synced.
+     */
+    public void append(String idempotencyKey, String customerName, String customerAddress, long acceptedAtMillis,
+                       Map<FoodItem, Integer> items, double discount, long sessionId) throws IOException {
+        ByteBuffer record = encode(idempotencyKey, customerName, customerAddress, acceptedAtMillis, items, discount, sessionId);
+        synchronized (lock) {
+            long start = log.position();
+            try {
+                while (record.hasRemaining()) {
+                    log.write(record);
+                }
+                log.force(false);
+            } catch (IOException e) {
+                log.truncate(start); // Never leave half a record in front of later appends
+                log.position(start);
+                throw e;
+            }
+            if (depth++ == 0) {
+                oldestPendingMillis = acceptedAtMillis;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Starts the background drainer.
+     */
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "order-outbox-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Stops the drainer after its current batch. Undelivered orders stay in the outbox for the next run.
+     */
+    @Override
+    public void close() {
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        try {
+            if (drainer != null) {
+                drainer.interrupt();
+                drainer.join(5000);
+            }
+            log.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing the order outbox.", e);
+        }
+    }
+
+    private void drainLoop() {
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        while (running) {
+            try {
+                long from;
+                synchronized (lock) {
+                    while (depth == 0 && running) {
+                        lock.wait();
+                    }
+                    from = ackOffset;
+                }
+                if (!running) {
+                    return;
+                }
+                List<Entry> batch = read(from, BATCH_SIZE);
+                try {
+                    deliver(batch);
+                    backoffMillis = INITIAL_BACKOFF_MILLIS;
+                } catch (SQLException e) {
+                    if (!RetryPolicy.isTransient(e)) {
+                        // Something in the batch is rejected; deliver one at a time to isolate it
+                        deliverIndividually(batch);
+                        continue;
+                    }
+                    long sleep = ThreadLocalRandom.current().nextLong(backoffMillis / 2, backoffMillis + 1);
+                    LOGGER.warning("Outbox delivery failed (" + e.getMessage() + "); " + getDepth()
+                            + " orders waiting, lag " + getLagMillis() + " ms. Retrying in " + sleep + " ms.");
+                    Thread.sleep(sleep);
+                    backoffMillis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error reading the order outbox; the drainer is stopping.", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delivers a batch in one transaction, skipping orders whose key is already present,
+     * then advances the delivered position and notifies order listeners.
+     */
+    private void deliver(List<Entry> batch) throws SQLException, IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int[] orderIds = new int[batch.size()];
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            conn.setAutoCommit(false);
+            for (int i = 0; i < batch.size(); i++) {
+                Entry entry = batch.get(i);
+                if (processor.findOrderByIdempotencyKey(conn, entry.idempotencyKey) != 0) {
+                    duplicatesSkipped.incrementAndGet(); // Delivered before a crash, acknowledged now
+                    continue;
+                }
+                orderIds[i] = processor.insertOrder(conn, entry.idempotencyKey, entry.customerName,
+                        entry.customerAddress, entry.acceptedAtMillis, entry.items, entry.discount);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.WARNING, "Error rolling back outbox batch.", ex);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOGGER.log(Level.WARNING, "Error resetting auto-commit.", e);
+                }
+            }
+            DatabaseManager.closeConnection(conn);
+        }
+
+        acknowledge(batch.get(batch.size() - 1).endOffset, batch.size());
+        lastDeliveryLagMillis = System.currentTimeMillis() - batch.get(0).acceptedAtMillis;
+        for (int i = 0; i < batch.size(); i++) {
+            if (orderIds[i] != 0) {
+                delivered.incrementAndGet();
+                DatabaseManager.recordWrite(batch.get(i).sessionId); // The customer's next reads must see this order
+                processor.notifyListeners(orderIds[i], batch.get(i).items, batch.get(i).acceptedAtMillis);
+            }
+        }
+    }
+
+    private void deliverIndividually(List<Entry> batch) throws IOException, InterruptedException {
+        for (Entry entry : batch) {
+            List<Entry> single = new ArrayList<>(1);
+            single.add(entry);
+            try {
+                deliver(single);
+            } catch (SQLException e) {
+                if (RetryPolicy.isTransient(e)) {
+                    return; // The outer loop backs off and retries from this order
+                }
+                LOGGER.log(Level.SEVERE, "Order " + entry.idempotencyKey + " was rejected by the database; moving it to "
+                        + deadLetterPath.getFileName() + ".", e);
+                deadLetter(entry);
+            }
+        }
+    }
+
+    private void deadLetter(Entry entry) throws IOException {
+        ByteBuffer record = encode(entry.idempotencyKey, entry.customerName, entry.customerAddress,
+                entry.acceptedAtMillis, entry.items, entry.discount, entry.sessionId);
+        try (FileChannel dead = FileChannel.open(deadLetterPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) {
+                dead.write(record);
+            }
+            dead.force(false);
+        }
+        deadLettered.incrementAndGet();
+        acknowledge(entry.endOffset, 1);
+    }
+
+    /**
+     * Persists the delivered position. Once everything has been delivered the log is truncated
+     * so it does not grow without bound.
+     */
+    private void acknowledge(long offset, int count) throws IOException {
+        synchronized (lock) {
+            depth -= count;
+            if (depth == 0) {
+                log.truncate(0);
+                log.position(0);
+                offset = 0;
+                oldestPendingMillis = 0;
+            }
+            ackOffset = offset;
+            writeAckOffset(offset);
+            if (depth > 0) {
+                List<Entry> next = read(offset, 1);
+                oldestPendingMillis = next.isEmpty() ? 0 : next.get(0).acceptedAtMillis;
+            }
+        }
+    }
+
+    private long readAckOffset() throws IOException {
+        if (!Files.exists(ackPath)) {
+            return 0;
+        }
+        String text = new String(Files.readAllBytes(ackPath), StandardCharsets.US_ASCII).trim();
+        long offset = text.isEmpty() ? 0 : Long.parseLong(text);
+        return Math.min(offset, log.size());
+    }
+
+    private void writeAckOffset(long offset) throws IOException {
+        Path tmp = ackPath.resolveSibling(ackPath.getFileName() + ".tmp");
+        Files.write(tmp, Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmp, ackPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return The number of accepted orders not yet delivered to the database.
+     */
+    public long getDepth() {
+        synchronized (lock) {
+            return depth;
+        }
+    }
+
+    /**
+     * @return How long the oldest undelivered order has been waiting, in milliseconds (0 when empty).
+     */
+    public long getLagMillis() {
+        synchronized (lock) {
+            return oldestPendingMillis == 0 ? 0 : System.currentTimeMillis() - oldestPendingMillis;
+        }
+    }
+
+    /**
+     * @return Time from acceptance to delivery of the first order in the last delivered batch.
+     */
+    public long getLastDeliveryLagMillis() {
+        return lastDeliveryLagMillis;
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped.get();
+    }
+
+    public long getDeadLetterCount() {
+        return deadLettered.get();
+    }
+
+    private static ByteBuffer encode(String idempotencyKey, String customerName, String customerAddress,
+                                     long acceptedAtMillis, Map<FoodItem, Integer> items, double discount, long sessionId) {
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(idempotencyKey.getBytes(StandardCharsets.UTF_8));
+        strings.add(customerName.getBytes(StandardCharsets.UTF_8));
+        strings.add(customerAddress.getBytes(StandardCharsets.UTF_8));
+        for (FoodItem item : items.keySet()) {
+            strings.add(item.getName().getBytes(StandardCharsets.UTF_8));
+            strings.add(item.getCategoryName() == null ? new byte[0] : item.getCategoryName().getBytes(StandardCharsets.UTF_8));
+        }
+        int payloadBytes = 8 + 4 + items.size() * (4 + 4 + 4 + 8) + 8 + 8;
+        for (byte[] s : strings) {
+            payloadBytes += 4 + s.length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadBytes);
+        record.position(HEADER_BYTES);
+        putString(record, strings.get(0));
+        putString(record, strings.get(1));
+        putString(record, strings.get(2));
+        record.putLong(acceptedAtMillis).putInt(items.size());
+        int s = 3;
+        for (Map.Entry<FoodItem, Integer> line : items.entrySet()) {
+            FoodItem item = line.getKey();
+            record.putInt(item.getFoodItemId()).putInt(item.getCategoryId()).putInt(line.getValue()).putDouble(item.getPrice());
+            putString(record, strings.get(s++));
+            putString(record, strings.get(s++));
+        }
+        record.putDouble(discount).putLong(sessionId);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, payloadBytes);
+        record.putInt(0, payloadBytes).putInt(4, (int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads up to {@code max} intact records starting at the given offset, stopping at a torn or corrupt record.
+     */
+    private List<Entry> read(long offset, int max) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long size = log.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        while (entries.size() < max && offset + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, offset);
+            int length = header.getInt(0);
+            if (length <= 0 || offset + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, offset + HEADER_BYTES);
+            crc.reset();
+            crc.update(payload.array(), 0, length);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            payload.flip();
+            String key = getString(payload);
+            String name = getString(payload);
+            String address = getString(payload);
+            long acceptedAt = payload.getLong();
+            int lines = payload.getInt();
+            Map<FoodItem, Integer> items = new LinkedHashMap<>();
+            for (int i = 0; i < lines; i++) {
+                int foodItemId = payload.getInt();
+                int categoryId = payload.getInt();
+                int quantity = payload.getInt();
+                double price = payload.getDouble();
+                String itemName = getString(payload);
+                String categoryName = getString(payload);
+                items.put(new FoodItem(foodItemId, itemName, price, "", categoryName, categoryId), quantity);
+            }
+            double discount = payload.remaining() >= 8 ? payload.getDouble() : 0.0; // Absent in records from before promotions
+            long sessionId = payload.remaining() >= 8 ? payload.getLong() : DatabaseManager.NO_SESSION;
+            offset += HEADER_BYTES + length;
+            entries.add(new Entry(key, name, address, acceptedAt, items, discount, sessionId, offset));
+        }
+        return entries;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of outbox log.");
+            }
+            position += read;
+        }
+    }
+}
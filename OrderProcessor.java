@@ -1,13 +1,19 @@
 // Main package for the application
 package com.foodordering.system;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,30 +24,293 @@ import java.util.logging.Logger;
  */
 class OrderProcessor {
     private static final Logger LOGGER = Logger.getLogger(OrderProcessor.class.getName());
+    private static final long CHECKOUT_DEADLINE_MILLIS = Long.getLong("foodordering.deadline.checkoutMillis", 5000L);
+    private static final Map<OrderResult.Status, MetricsRegistry.Counter> ORDERS = new EnumMap<>(OrderResult.Status.class);
+    private static final MetricsRegistry.Histogram CHECKOUT_LATENCY = MetricsRegistry.getInstance().histogram(
+            "foodordering_checkout_seconds", "Time to process an admitted checkout, from cart to result");
+    private static final MetricsRegistry.Histogram COMMIT_LATENCY = MetricsRegistry.getInstance().histogram(
+            "foodordering_order_commit_seconds", "Time to insert and commit one order, per attempt");
 
+    static {
+        for (OrderResult.Status status : OrderResult.Status.values()) {
+            ORDERS.put(status, MetricsRegistry.getInstance().counter("foodordering_orders_total",
+                    "Order submissions by outcome", "status", status.name().toLowerCase()));
+        }
+    }
+
+    private final List<OrderListener> listeners = new CopyOnWriteArrayList<>(); // Notified after each commit
+    private volatile OrderOutbox outbox; // When set, orders are accepted into the outbox and delivered later
+    private final IdempotencyCache recentKeys = new IdempotencyCache(10_000);
+    private final RetryPolicy retryPolicy = RetryPolicy.forCheckout();
+    private volatile CheckoutValidator checkoutValidator; // When set, cart lines are revalidated before writing
+    private volatile InventoryManager inventory; // When set, stock is confirmed before and committed after ordering
+    private volatile AdmissionController admission; // When set, sheds submissions under load
+
+    /**
+     * Registers a listener to be notified after every successfully committed order.
+     * @param listener The OrderListener to add.
+     */
+    public void addOrderListener(OrderListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered order listener.
+     * @param listener The OrderListener to remove.
+     */
+    public void removeOrderListener(OrderListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Attaches a durable outbox. From then on accepted orders are written to the outbox and confirmed
+     * immediately; its drainer delivers them to the database, so orders survive database outages.
+     * @param outbox The outbox to use, or null to write orders to the database directly.
+     */
+    public void setOutbox(OrderOutbox outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * Confirms every cart line is covered by a stock reservation before ordering, and turns the
+     * reservations into sales once the order is placed or accepted.
+     * @param inventory The inventory to use, or null if stock is not tracked.
+     */
+    public void setInventory(InventoryManager inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Puts admission control in front of order submission: rate limits per cart and overall, and a
+     * latency-adaptive cap on concurrent submissions. Shed orders come back THROTTLED.
+     * @param admission The controller to use, or null to admit everything.
+     */
+    public void setAdmissionController(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    /**
+     * Revalidates prices and availability of every cart line before an order is written.
+     * @param checkoutValidator The validator to use, or null to trust the cart's prices.
+     */
+    public void setCheckoutValidator(CheckoutValidator checkoutValidator) {
+        this.checkoutValidator = checkoutValidator;
+    }
+
+    /**
+     * Places an order under a fresh idempotency key.
+     * @return true if the order was placed or accepted.
+     */
     public boolean processOrder(ShoppingCart cart, String customerName, String customerAddress) {
-        if (cart.getCartItems().isEmpty()) {
+        return processOrder(cart, customerName, customerAddress, UUID.randomUUID().toString()).isSuccessful();
+    }
+
+    /**
+     * Places an order identified by a client-generated idempotency key. Submitting the same key again
+     * (double-click, retry after a timeout) returns DUPLICATE instead of creating a second order: recent
+     * keys are answered from memory, older ones by the unique index on Orders.IdempotencyKey.
+     * Transient database errors are retried within the RetryPolicy's time budget, and all database
+     * work of one checkout shares a Deadline of {@code foodordering.deadline.checkoutMillis} (default 5000).
+     * Under load the AdmissionController may shed the submission before any work is done.
+     * @param idempotencyKey Key generated once per checkout by the client.
+     * @return The outcome of the submission.
+     */
+    public OrderResult processOrder(ShoppingCart cart, String customerName, String customerAddress, String idempotencyKey) {
+        OrderResult result = admit(cart, customerName, customerAddress, idempotencyKey);
+        ORDERS.get(result.getStatus()).increment();
+        return result;
+    }
+
+    private OrderResult admit(ShoppingCart cart, String customerName, String customerAddress, String idempotencyKey) {
+        AdmissionController gate = admission;
+        if (gate == null) {
+            return processAdmitted(cart, customerName, customerAddress, idempotencyKey, null);
+        }
+        long retryAfterMillis = gate.tryAcquire(cart.getCartId());
+        if (retryAfterMillis > 0) {
+            LOGGER.log(Level.FINE, "Order {0} throttled; retry after {1,number,#} ms", new Object[]{idempotencyKey, retryAfterMillis});
+            return OrderResult.throttled(retryAfterMillis);
+        }
+        try {
+            return processAdmitted(cart, customerName, customerAddress, idempotencyKey, gate);
+        } finally {
+            gate.release();
+        }
+    }
+
+    /**
+     * @param gate The controller that admitted the submission, fed the latency of the database write; may be null.
+     */
+    private OrderResult processAdmitted(ShoppingCart cart, String customerName, String customerAddress,
+                                        String idempotencyKey, AdmissionController gate) {
+        long start = System.nanoTime();
+        Deadline.Scope deadline = Deadline.within(CHECKOUT_DEADLINE_MILLIS);
+        try {
+            return checkout(cart, customerName, customerAddress, idempotencyKey, gate);
+        } finally {
+            deadline.close();
+            CHECKOUT_LATENCY.observeNanos(System.nanoTime() - start);
+        }
+    }
+
+    private OrderResult checkout(ShoppingCart cart, String customerName, String customerAddress, String idempotencyKey,
+                                 AdmissionController gate) {
+        Map<FoodItem, Integer> orderedItems;
+        double discount;
+        synchronized (cart) { // Items and promotion discount from the same cart state
+            orderedItems = cart.getCartItems();
+            discount = cart.getDiscount();
+        }
+        if (orderedItems.isEmpty()) {
             LOGGER.warning("Attempted to process an empty cart.");
-            return false;
+            return OrderResult.failed("The cart is empty.");
         }
 
-        Connection conn = null;
+        OrderResult duplicate = recentKeys.claim(idempotencyKey);
+        if (duplicate != null) {
+            LOGGER.log(Level.INFO, "Rejected duplicate submission of order key {0}", idempotencyKey);
+            return duplicate;
+        }
+        CheckoutValidator validator = checkoutValidator;
+        if (validator != null) {
+            CheckoutValidator.Result validation = validator.validate(orderedItems);
+            if (!validation.isValid()) {
+                LOGGER.log(Level.INFO, "Order {0} rejected: {1}", new Object[]{idempotencyKey, validation.getIssues()});
+                OrderResult rejected = OrderResult.rejected(validation);
+                recentKeys.complete(idempotencyKey, rejected); // Releases the key for the corrected cart
+                return rejected;
+            }
+        }
+        InventoryManager stock = inventory;
+        if (stock != null) {
+            List<FoodItem> soldOut = stock.confirm(cart.getCartId(), orderedItems);
+            if (!soldOut.isEmpty()) {
+                List<CheckoutValidator.LineIssue> issues = new ArrayList<>();
+                for (FoodItem item : soldOut) {
+                    issues.add(new CheckoutValidator.LineIssue(item, CheckoutValidator.LineIssue.Kind.OUT_OF_STOCK, null));
+                }
+                OrderResult rejected = OrderResult.rejected(new CheckoutValidator.Result(issues, true));
+                recentKeys.complete(idempotencyKey, rejected);
+                return rejected;
+            }
+        }
+        OrderResult result = submit(orderedItems, discount, customerName, customerAddress, idempotencyKey,
+                cart.getCartId(), gate);
+        if (result.getStatus() == OrderResult.Status.PLACED) {
+            DatabaseManager.recordWrite(cart.getCartId()); // The customer's next reads must see this order
+        }
+        if (result.isSuccessful() && stock != null) {
+            stock.commit(cart.getCartId());
+        }
+        recentKeys.complete(idempotencyKey, result);
+        return result;
+    }
+
+    private OrderResult submit(Map<FoodItem, Integer> orderedItems, double discount, String customerName,
+                               String customerAddress, String idempotencyKey, long sessionId, AdmissionController gate) {
+        long orderTimestamp = System.currentTimeMillis();
+
+        OrderOutbox currentOutbox = outbox;
+        if (currentOutbox != null) {
+            try {
+                // Durable on local disk before we confirm; the key lets redelivery detect an existing order.
+                // The drainer records the session's write once the order is committed.
+                currentOutbox.append(idempotencyKey, customerName, customerAddress, orderTimestamp, orderedItems, discount, sessionId);
+                return OrderResult.accepted();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Error writing order to the outbox; writing to the database directly.", e);
+            }
+        }
+
+        long writeStart = System.nanoTime(); // Only this path feeds the admission gate's latency samples
+        try {
+            OrderResult result = retryPolicy.execute("Order " + idempotencyKey, attempt -> {
+                Connection conn = null;
+                try {
+                    conn = DatabaseManager.getConnection();
+                    conn.setAutoCommit(false); // Start transaction
+
+                    long start = System.nanoTime();
+                    int orderId = insertOrder(conn, idempotencyKey, customerName, customerAddress, orderTimestamp,
+                            orderedItems, discount);
+                    conn.commit(); // Commit transaction
+                    COMMIT_LATENCY.observeNanos(System.nanoTime() - start);
+
+                    LOGGER.log(Level.INFO, "Order details saved successfully for Order ID: {0,number,#}", orderId);
+                    notifyListeners(orderId, orderedItems, orderTimestamp);
+                    return OrderResult.placed(orderId);
+                } catch (SQLException e) {
+                    if (conn != null) {
+                        try {
+                            LOGGER.warning("Transaction is being rolled back.");
+                            conn.rollback(); // Rollback transaction on error
+                        } catch (SQLException ex) {
+                            LOGGER.log(Level.SEVERE, "Error during transaction rollback.", ex);
+                        }
+                    }
+                    if (!RetryPolicy.isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    int existingId = findOrderByIdempotencyKey(conn, idempotencyKey);
+                    if (attempt == 1) {
+                        return OrderResult.duplicate(existingId);
+                    }
+                    // On a retry the existing order is our own earlier attempt whose commit
+                    // acknowledgement was lost, so it counts as placed rather than duplicated.
+                    notifyListeners(existingId, orderedItems, orderTimestamp);
+                    return OrderResult.placed(existingId);
+                } finally {
+                    try {
+                        if (conn != null) conn.setAutoCommit(true); // Reset auto-commit
+                        DatabaseManager.closeConnection(conn);
+                    } catch (SQLException e) {
+                        LOGGER.log(Level.SEVERE, "Error closing resources after order processing.", e);
+                    }
+                }
+            });
+            if (gate != null) {
+                gate.recordSample(System.nanoTime() - writeStart, true);
+            }
+            return result;
+        } catch (SQLException e) {
+            if (gate != null) {
+                gate.recordSample(System.nanoTime() - writeStart, false); // Retries exhausted: likely overload
+            }
+            LOGGER.log(Level.SEVERE, "Error processing order: " + e.getMessage(), e);
+            return OrderResult.failed("The order could not be saved. Please try again.");
+        }
+    }
+
+    /**
+     * Inserts one order and its lines on the caller's connection and transaction.
+     * Shared by the direct checkout path and the OrderOutbox drainer.
+     * @param idempotencyKey The order's idempotency key, or null for orders written directly.
+     * @param discount Promotion discount taken off the total; lines keep their list prices.
+     * @return The generated OrderID.
+     * @throws SQLException If either insert fails.
+     */
+    int insertOrder(Connection conn, String idempotencyKey, String customerName, String customerAddress,
+                    long orderTimestamp, Map<FoodItem, Integer> orderedItems, double discount) throws SQLException {
         PreparedStatement pstmtOrder = null;
         PreparedStatement pstmtOrderDetail = null;
         ResultSet rs = null; // For getting generated keys
 
-        try {
-            conn = DatabaseManager.getConnection();
-            conn.setAutoCommit(false); // Start transaction
+        double total = 0.0;
+        for (Map.Entry<FoodItem, Integer> entry : orderedItems.entrySet()) {
+            total += entry.getKey().getPrice() * entry.getValue();
+        }
+        total = Math.max(0.0, total - discount);
 
+        try {
             // 1. Insert into Orders table
-            String insertOrderSQL = "INSERT INTO Orders (CustomerName, CustomerAddress, OrderDate, TotalAmount) VALUES (?, ?, ?, ?)";
+            String insertOrderSQL = "INSERT INTO Orders (CustomerName, CustomerAddress, OrderDate, TotalAmount, IdempotencyKey) VALUES (?, ?, ?, ?, ?)";
             pstmtOrder = conn.prepareStatement(insertOrderSQL, Statement.RETURN_GENERATED_KEYS);
 
             pstmtOrder.setString(1, customerName);
             pstmtOrder.setString(2, customerAddress);
-            pstmtOrder.setTimestamp(3, new Timestamp(System.currentTimeMillis())); // Current timestamp
-            pstmtOrder.setDouble(4, cart.getTotal());
+            pstmtOrder.setTimestamp(3, new Timestamp(orderTimestamp)); // Time the order was accepted
+            pstmtOrder.setDouble(4, total);
+            pstmtOrder.setString(5, idempotencyKey);
 
             int affectedRows = pstmtOrder.executeUpdate();
 
@@ -57,13 +326,13 @@ class OrderProcessor {
                 throw new SQLException("Creating order failed, no ID obtained.");
             }
 
-            LOGGER.info("Order placed successfully with ID: " + orderId + " for total: $" + cart.getTotal());
+            LOGGER.log(Level.INFO, "Order placed successfully with ID: {0,number,#} for total: ${1,number,0.00}", new Object[]{orderId, total});
 
             // 2. Insert into OrderDetails table for each item in the cart
             String insertOrderDetailSQL = "INSERT INTO OrderDetails (OrderID, FoodItemID, Quantity, PricePerItem) VALUES (?, ?, ?, ?)";
             pstmtOrderDetail = conn.prepareStatement(insertOrderDetailSQL);
 
-            for (Map.Entry<FoodItem, Integer> entry : cart.getCartItems().entrySet()) {
+            for (Map.Entry<FoodItem, Integer> entry : orderedItems.entrySet()) {
                 FoodItem item = entry.getKey();
                 int quantity = entry.getValue();
 
@@ -76,31 +345,38 @@ class OrderProcessor {
             }
 
             pstmtOrderDetail.executeBatch(); // Execute all batched inserts
-            conn.commit(); // Commit transaction
-
-            LOGGER.info("Order details saved successfully for Order ID: " + orderId);
-            return true;
+            return orderId;
+        } finally {
+            if (rs != null) rs.close();
+            if (pstmtOrder != null) pstmtOrder.close();
+            if (pstmtOrderDetail != null) pstmtOrderDetail.close();
+        }
+    }
 
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error processing order: " + e.getMessage(), e);
-            if (conn != null) {
-                try {
-                    LOGGER.warning("Transaction is being rolled back.");
-                    conn.rollback(); // Rollback transaction on error
-                } catch (SQLException ex) {
-                    LOGGER.log(Level.SEVERE, "Error during transaction rollback.", ex);
-                }
+    /**
+     * Looks up the order that was created with the given idempotency key.
+     * @return The OrderID, or 0 if no order carries the key.
+     * @throws SQLException If the query fails.
+     */
+    int findOrderByIdempotencyKey(Connection conn, String idempotencyKey) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT OrderID FROM Orders WHERE IdempotencyKey = ?")) {
+            pstmt.setString(1, idempotencyKey);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
             }
-            return false;
-        } finally {
+        }
+    }
+
+    /**
+     * Notifies all registered listeners about a committed order.
+     * A failing listener is logged and never affects the order that was already committed.
+     */
+    void notifyListeners(int orderId, Map<FoodItem, Integer> items, long timestampMillis) {
+        for (OrderListener listener : listeners) {
             try {
-                if (rs != null) rs.close();
-                if (pstmtOrder != null) pstmtOrder.close();
-                if (pstmtOrderDetail != null) pstmtOrderDetail.close();
-                if (conn != null) conn.setAutoCommit(true); // Reset auto-commit
-                DatabaseManager.closeConnection(conn);
-            } catch (SQLException e) {
-                LOGGER.log(Level.SEVERE, "Error closing resources after order processing.", e);
+                listener.orderPlaced(orderId, items, timestampMillis);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Order listener failed for Order ID: " + orderId, e);
             }
         }
     }
@@ -0,0 +1,93 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of a stored order and its detail lines, as returned by OrderHistoryDAO.
+ * The same shape is used whether the order was found in the hot tables or in the archive.
+ */
+class OrderRecord {
+    private final int orderId;
+    private final String customerName;
+    private final String customerAddress;
+    private final Timestamp orderDate;
+    private final double totalAmount;
+    private final boolean archived;
+    private final List<Line> lines = new ArrayList<>();
+
+    /**
+     * One OrderDetails row.
+     */
+    static class Line {
+        private final int foodItemId;
+        private final int quantity;
+        private final double pricePerItem;
+
+        Line(int foodItemId, int quantity, double pricePerItem) {
+            this.foodItemId = foodItemId;
+            this.quantity = quantity;
+            this.pricePerItem = pricePerItem;
+        }
+
+        public int getFoodItemId() {
+            return foodItemId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public double getPricePerItem() {
+            return pricePerItem;
+        }
+    }
+
+    public OrderRecord(int orderId, String customerName, String customerAddress, Timestamp orderDate,
+                       double totalAmount, boolean archived) {
+        this.orderId = orderId;
+        this.customerName = customerName;
+        this.customerAddress = customerAddress;
+        this.orderDate = orderDate;
+        this.totalAmount = totalAmount;
+        this.archived = archived;
+    }
+
+    void addLine(Line line) {
+        lines.add(line);
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerAddress() {
+        return customerAddress;
+    }
+
+    public Timestamp getOrderDate() {
+        return orderDate;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * @return true if the order was read from the archive tables rather than the hot ones.
+     */
+    public boolean isArchived() {
+        return archived;
+    }
+
+    public List<Line> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+}
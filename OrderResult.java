@@ -0,0 +1,99 @@
+// Main package for the application
+package com.foodordering.system;
+
+/**
+ * Outcome of submitting an order through OrderProcessor.
+ */
+class OrderResult {
+    /**
+     * PLACED: committed to the database. ACCEPTED: durably queued in the OrderOutbox for delivery.
+     * DUPLICATE: the idempotency key was already submitted, nothing new was created.
+     * REJECTED: refused before anything was written, e.g. because cart prices are out of date.
+     * THROTTLED: shed by admission control under load; retry after getRetryAfterMillis().
+     * FAILED: the order was not taken.
+     */
+    enum Status {
+        PLACED, ACCEPTED, DUPLICATE, REJECTED, THROTTLED, FAILED
+    }
+
+    private final Status status;
+    private final int orderId; // 0 when not (yet) known
+    private final String message;
+    private final CheckoutValidator.Result validation; // Set for orders rejected by checkout validation
+    private final long retryAfterMillis; // Set for THROTTLED orders
+
+    private OrderResult(Status status, int orderId, String message) {
+        this(status, orderId, message, null, 0);
+    }
+
+    private OrderResult(Status status, int orderId, String message, CheckoutValidator.Result validation,
+                        long retryAfterMillis) {
+        this.status = status;
+        this.orderId = orderId;
+        this.message = message;
+        this.validation = validation;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    static OrderResult placed(int orderId) {
+        return new OrderResult(Status.PLACED, orderId, "Order placed.");
+    }
+
+    static OrderResult accepted() {
+        return new OrderResult(Status.ACCEPTED, 0, "Order accepted for delivery.");
+    }
+
+    static OrderResult duplicate(int orderId) {
+        return new OrderResult(Status.DUPLICATE, orderId, "This order has already been submitted.");
+    }
+
+    static OrderResult rejected(CheckoutValidator.Result validation) {
+        return new OrderResult(Status.REJECTED, 0, "Some items in the cart have changed.", validation, 0);
+    }
+
+    static OrderResult throttled(long retryAfterMillis) {
+        return new OrderResult(Status.THROTTLED, 0, "We are receiving a lot of orders right now.", null, retryAfterMillis);
+    }
+
+    static OrderResult failed(String message) {
+        return new OrderResult(Status.FAILED, 0, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The per-line validation problems for a REJECTED order, otherwise null.
+     */
+    public CheckoutValidator.Result getValidation() {
+        return validation;
+    }
+
+    /**
+     * @return How long to wait before retrying a THROTTLED order, otherwise 0.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * @return true if the order was placed or accepted by this submission.
+     */
+    public boolean isSuccessful() {
+        return status == Status.PLACED || status == Status.ACCEPTED;
+    }
+
+    @Override
+    public String toString() {
+        return status + (orderId != 0 ? " (Order ID " + orderId + ")" : "") + ": " + message;
+    }
+}
@@ -0,0 +1,79 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A packaging message such as "Your delicious {item} is securely nestled in a sturdy box!", parsed
+ * once into literal segments and placeholders so rendering is a few appends into a presized
+ * StringBuilder. Placeholders are {@code {item}} (the item's name) and {@code {category}}; any other
+ * text in braces is kept as written.
+ */
+final class PackagingTemplate {
+    private static final String ITEM = "{item}";
+    private static final String CATEGORY = "{category}";
+
+    private final String pattern;
+    private final String[] literals; // One more than there are placeholders; literals[i] comes before placeholders[i]
+    private final boolean[] itemPlaceholders; // True for {item}, false for {category}
+    private final int literalLength;
+
+    private PackagingTemplate(String pattern, String[] literals, boolean[] itemPlaceholders) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.itemPlaceholders = itemPlaceholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    static PackagingTemplate parse(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Boolean> placeholders = new ArrayList<>();
+        int start = 0;
+        int from = 0;
+        while (true) {
+            int brace = pattern.indexOf('{', from);
+            if (brace < 0) {
+                break;
+            }
+            if (pattern.startsWith(ITEM, brace) || pattern.startsWith(CATEGORY, brace)) {
+                boolean item = pattern.startsWith(ITEM, brace);
+                literals.add(pattern.substring(start, brace));
+                placeholders.add(item);
+                start = brace + (item ? ITEM.length() : CATEGORY.length());
+                from = start;
+            } else {
+                from = brace + 1;
+            }
+        }
+        literals.add(pattern.substring(start));
+        boolean[] itemPlaceholders = new boolean[placeholders.size()];
+        for (int i = 0; i < itemPlaceholders.length; i++) {
+            itemPlaceholders[i] = placeholders.get(i);
+        }
+        return new PackagingTemplate(pattern, literals.toArray(new String[0]), itemPlaceholders);
+    }
+
+    /**
+     * @return The message for the item, e.g. "Your delicious Classic Beef Burger is securely nestled in a sturdy box!".
+     */
+    String render(FoodItem item) {
+        String name = item.getName();
+        String category = item.getCategoryName();
+        StringBuilder message = new StringBuilder(literalLength + itemPlaceholders.length * 24);
+        message.append(literals[0]);
+        for (int i = 0; i < itemPlaceholders.length; i++) {
+            message.append(itemPlaceholders[i] ? name : category).append(literals[i + 1]);
+        }
+        return message.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
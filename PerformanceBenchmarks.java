@@ -0,0 +1,441 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Micro-benchmark suite for the core hot paths, in the spirit of JMH: warm-up and measurement
+ * iterations, a blackhole sink to defeat dead-code elimination, and per-operation
+ * allocation profiling via the thread allocation counters. Results are written as JSON in JMH's
+ * result layout (primaryMetric + gc.alloc.rate(.norm) secondary metrics) so existing tooling can
+ * diff runs and regressions show up as numbers.
+ * Usage: {@code PerformanceBenchmarks [result.json]} with optional system properties
+ * {@code bench.sizes} (catalog sizes, default 1000,10000,100000,1000000), {@code bench.warmups},
+ * {@code bench.iterations} and {@code bench.iterationMillis}. OrderProcessor.processOrder is
+ * included when {@code foodordering.db.url} points at an embedded database.
+ */
+class PerformanceBenchmarks {
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("bench.warmups", 3);
+    private static final int MEASUREMENT_ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_MILLIS = Long.getLong("bench.iterationMillis", 1000L);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile int blackhole; // Consumed results end up here so the JIT cannot drop the work
+
+    /**
+     * Result of one benchmark/parameter combination.
+     */
+    static class Result {
+        final String benchmark;
+        final Map<String, String> params;
+        final double[] nanosPerOp;
+        final double bytesPerOp;
+        final double allocMbPerSec;
+
+        Result(String benchmark, Map<String, String> params, double[] nanosPerOp, double bytesPerOp, double allocMbPerSec) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+            this.allocMbPerSec = allocMbPerSec;
+        }
+
+        double score() {
+            double sum = 0;
+            for (double value : nanosPerOp) {
+                sum += value;
+            }
+            return sum / nanosPerOp.length;
+        }
+    }
+
+    private final List<Result> results = new ArrayList<>();
+
+    static void consume(Object value) {
+        blackhole ^= System.identityHashCode(value);
+    }
+
+    static void consume(double value) {
+        blackhole ^= (int) Double.doubleToRawLongBits(value);
+    }
+
+    /**
+     * Runs warm-up and measurement iterations for one operation. Each iteration calls the operation
+     * in a tight loop for a fixed time and records the mean time and allocation per call.
+     */
+    Result run(String name, Map<String, String> params, Runnable operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            measure(operation);
+        }
+        double[] nanosPerOp = new double[MEASUREMENT_ITERATIONS];
+        long totalOps = 0;
+        long totalBytes = 0;
+        long totalNanos = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long[] sample = measure(operation);
+            nanosPerOp[i] = (double) sample[1] / sample[0];
+            totalOps += sample[0];
+            totalNanos += sample[1];
+            totalBytes += sample[2];
+        }
+        Result result = new Result(name, params, nanosPerOp, (double) totalBytes / totalOps,
+                totalBytes / (1024.0 * 1024.0) / (totalNanos / 1e9));
+        results.add(result);
+        System.out.printf(Locale.US, "%-45s %-22s %14.1f ns/op %12.1f B/op%n",
+                name, params, result.score(), result.bytesPerOp);
+        return result;
+    }
+
+    /**
+     * @return {operations, elapsed nanos, allocated bytes}
+     */
+    private static long[] measure(Runnable operation) {
+        long threadId = Thread.currentThread().getId();
+        long deadline = System.nanoTime() + ITERATION_MILLIS * 1_000_000L;
+        long ops = 0;
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long now = start;
+        int batch = 1;
+        do {
+            // Grow the batch for fast operations so reading the clock stays out of the per-op figure,
+            // while slow ones (full traversals of a 1M-item catalog) still stop close to the deadline.
+            long batchStart = now;
+            for (int i = 0; i < batch; i++) {
+                operation.run();
+            }
+            ops += batch;
+            now = System.nanoTime();
+            if (now - batchStart < 100_000L && batch < 4096) {
+                batch <<= 1;
+            }
+        } while (now < deadline);
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new long[]{ops, now - start, bytes};
+    }
+
+    private static Map<String, String> params(String... keyValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            params.put(keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+
+    /**
+     * Builds a synthetic menu of the given size: 10 categories, evenly filled.
+     */
+    static MenuCategory syntheticMenu(int size) {
+        MenuCategory root = new MenuCategory("Root Menu", 0);
+        int categories = 10;
+        for (int c = 0; c < categories; c++) {
+            MenuCategory category = new MenuCategory("Category " + c, c + 1);
+            for (int i = c; i < size; i += categories) {
+                category.add(new FoodItem(i + 1, "Item " + i, 1.0 + (i % 20) * 0.5,
+                        "Synthetic description for item " + i, "Category " + c, c + 1));
+            }
+            root.add(category);
+        }
+        return root;
+    }
+
+    void runCatalogBenchmarks(int size) {
+        MenuCategory menu = syntheticMenu(size);
+        List<FoodItem> items = menu.getItems();
+        Map<String, String> params = params("catalogSize", Integer.toString(size));
+
+        run("MenuCategory.getItems", params, () -> consume(menu.getItems()));
+        // A miss forces a full traversal, which is the worst case for contains()
+        run("MenuCategory.contains(miss)", params, () -> consume(menu.contains("no such dish")));
+        run("FoodItem.contains(search)", params, () -> {
+            int matches = 0;
+            for (FoodItem item : items) {
+                if (item.contains("item 4")) {
+                    matches++;
+                }
+            }
+            consume(matches);
+        });
+    }
+
+    void runCartBenchmarks() {
+        List<FoodItem> items = syntheticMenu(100).getItems();
+        ShoppingCart cart = new ShoppingCart(false);
+        int[] next = {0};
+        run("ShoppingCart.addItem", params("distinctItems", "20"), () -> {
+            cart.addItem(items.get(next[0]++ % 20));
+            if (next[0] % 1000 == 0) {
+                cart.clearCart(); // Keep quantities bounded
+            }
+        });
+
+        ShoppingCart fullCart = new ShoppingCart(false);
+        for (int i = 0; i < 20; i++) {
+            fullCart.addItem(items.get(i));
+        }
+        run("ShoppingCart.getTotal", params("lines", "20"), () -> consume(fullCart.getTotal()));
+        run("ShoppingCart.getCartItems", params("lines", "20"), () -> consume(fullCart.getCartItems()));
+
+        // Checkout revalidation against a warm cache (the GUI primes it with the menu); no database access
+        CatalogCache catalog = new CatalogCache(new FoodItemDAO(), 3_600_000L);
+        catalog.putAll(items);
+        CheckoutValidator validator = new CheckoutValidator(catalog);
+        Map<FoodItem, Integer> lines = fullCart.getCartItems();
+        run("CheckoutValidator.validate", params("lines", "20"), () -> consume(validator.validate(lines)));
+    }
+
+    /**
+     * Builds a promotion set over a synthetic menu: item and category percentages, buy-X-get-Y deals
+     * and two-item combos, all always active.
+     */
+    static List<Promotion> syntheticPromotions(List<FoodItem> items, int count) {
+        List<Promotion> promotions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            FoodItem item = items.get((i * 7) % items.size());
+            switch (i % 4) {
+                case 0:
+                    promotions.add(i % 40 == 0
+                            ? Promotion.percentOff(i + 1, "Category deal " + i, 0, item.getCategoryId(), 10)
+                            : Promotion.percentOff(i + 1, "Item deal " + i, item.getFoodItemId(), 0, 5 + i % 20));
+                    break;
+                case 1:
+                    promotions.add(Promotion.buyXGetY(i + 1, "Buy 2 get 1 " + i, item.getFoodItemId(), 0, 2, 1));
+                    break;
+                case 2:
+                    promotions.add(Promotion.buyXGetY(i + 1, "Category 3 for 2 " + i, 0, item.getCategoryId(), 2, 1));
+                    break;
+                default:
+                    Map<Integer, Integer> bundle = new HashMap<>();
+                    bundle.put(item.getFoodItemId(), 1);
+                    bundle.put(items.get((i * 13 + 1) % items.size()).getFoodItemId(), 1);
+                    promotions.add(Promotion.combo(i + 1, "Combo " + i, bundle, 5.0));
+                    break;
+            }
+        }
+        return promotions;
+    }
+
+    void runPromotionBenchmarks(int ruleCount) {
+        List<FoodItem> items = syntheticMenu(100).getItems();
+        PromotionEngine engine = new PromotionEngine();
+        engine.setPromotions(syntheticPromotions(items, ruleCount));
+        Map<String, String> params = params("rules", Integer.toString(ruleCount), "lines", "20");
+
+        CartPricing pricing = engine.newPricing();
+        for (int i = 0; i < 20; i++) {
+            pricing.update(items.get(i), 1 + i % 3);
+        }
+        int[] next = {0};
+        // One quantity change: only the rules indexed under that item and its category are re-evaluated
+        run("CartPricing.update", params, () -> {
+            int n = next[0]++;
+            pricing.update(items.get(n % 20), 1 + n % 5);
+            consume(pricing.getDiscount());
+        });
+        // Baseline: pricing the whole cart from scratch, as a non-incremental engine would on every change
+        run("CartPricing.fullReprice", params, () -> {
+            CartPricing fresh = engine.newPricing();
+            for (int i = 0; i < 20; i++) {
+                fresh.update(items.get(i), 1 + i % 3);
+            }
+            consume(fresh.getDiscount());
+        });
+
+        ShoppingCart cart = new ShoppingCart(false);
+        cart.setPromotions(engine);
+        for (int i = 0; i < 20; i++) {
+            cart.addItem(items.get(i));
+        }
+        run("ShoppingCart.getTotal(promotions)", params, () -> consume(cart.getTotal()));
+    }
+
+    void runBuilderBenchmarks() {
+        FoodItem item = new FoodItem(1, "Classic Beef Burger", 7.99, "Juicy beef patty.", "Burgers", 1);
+        run("FoodWrapperBuilder.build", params(), () -> consume(new FoodWrapperBuilder().withFoodItem(item).build()));
+
+        Map<String, Double> sizes = new HashMap<>();
+        sizes.put("Small", 5.99);
+        sizes.put("Medium", 7.99);
+        sizes.put("Large", 9.99);
+        SizedFoodItem sized = new SizedFoodItem("Classic Beef Burger", "Juicy beef patty.", "Burgers", sizes);
+        run("SizedFoodItem.getItems", params("sizes", "3"), () -> consume(sized.getItems()));
+    }
+
+    /**
+     * Reserving and releasing a unit of one hot item, alone and while other threads do the same to
+     * the same item, so every call races on its compare-and-set. Each thread uses its own cart.
+     */
+    void runInventoryBenchmarks() {
+        int hotItem = 1;
+        int others = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        for (int contenders : new int[]{0, others}) {
+            InventoryManager inventory = new InventoryManager();
+            inventory.setStock(hotItem, 1_000_000);
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < contenders; t++) {
+                long cartId = 2 + t;
+                Thread thread = new Thread(() -> {
+                    while (running.get()) {
+                        if (inventory.reserve(cartId, hotItem, 1)) {
+                            inventory.release(cartId, hotItem, 1);
+                        }
+                    }
+                }, "bench-inventory-" + t);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+            try {
+                run("InventoryManager.reserve+release", params("contenders", Integer.toString(contenders)), () -> {
+                    consume(inventory.reserve(1, hotItem, 1));
+                    inventory.release(1, hotItem, 1);
+                });
+            } finally {
+                running.set(false);
+                for (Thread thread : threads) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Benchmarks a full checkout transaction against the embedded stand-in database.
+     */
+    void runOrderBenchmarks() throws SQLException {
+        if (!EmbeddedDatabase.isEmbedded()) {
+            System.out.println("Skipping OrderProcessor.processOrder: set foodordering.db.url to an embedded database.");
+            return;
+        }
+        EmbeddedDatabase.install();
+        EmbeddedDatabase.seedCatalog(2, 5);
+        FoodItemDAO dao = new FoodItemDAO();
+        ShoppingCart cart = new ShoppingCart(false);
+        for (MenuCategory category : dao.getAllCategories()) {
+            for (FoodItem item : dao.getFoodItemsByCategory(category.getCategoryId())) {
+                cart.addItem(item);
+            }
+        }
+        OrderProcessor processor = new OrderProcessor();
+        Map<String, String> params = params("lines", Integer.toString(cart.getCartItems().size()));
+        run("OrderProcessor.processOrder", params, () -> consume(processor.processOrder(cart, "Bench Customer", "1 Bench Street")));
+    }
+
+    /**
+     * Cost to the calling thread of one checkout-style log line: a synchronous FileHandler with a
+     * concatenated message, against AsyncLogHandler with a parameterized one. A tight loop logs far
+     * faster than any disk, so the async figure includes records dropped while the ring is full.
+     */
+    void runLoggingBenchmarks() throws IOException {
+        Path directory = Files.createTempDirectory("bench-logs");
+        Logger logger = Logger.getLogger("bench.logging");
+        logger.setUseParentHandlers(false);
+        int[] orderId = {0};
+
+        FileHandler file = new FileHandler(directory.resolve("sync.log").toString(), 50L * 1024 * 1024, 2, false);
+        file.setFormatter(new SimpleFormatter());
+        logger.addHandler(file);
+        run("Logger.info(FileHandler)", params(), () -> logger.info("Order placed successfully with ID: "
+                + ++orderId[0] + " for total: $" + 12.5));
+        logger.removeHandler(file);
+        file.close();
+
+        AsyncLogHandler async = new AsyncLogHandler(directory, 8192, 50L * 1024 * 1024, 2);
+        logger.addHandler(async);
+        run("Logger.log(AsyncLogHandler)", params(), () -> logger.log(Level.INFO,
+                "Order placed successfully with ID: {0,number,#} for total: ${1,number,0.00}", new Object[]{++orderId[0], 12.5}));
+        logger.removeHandler(async);
+        async.close();
+        System.out.println("AsyncLogHandler: " + async.getPublishedCount() + " written, " + async.getDroppedCount() + " dropped");
+
+        for (Handler handler : logger.getHandlers()) {
+            logger.removeHandler(handler);
+        }
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int r = 0; r < results.size(); r++) {
+            Result result = results.get(r);
+            json.append("  {\"benchmark\": \"").append(result.benchmark).append("\", \"mode\": \"avgt\", ");
+            json.append("\"threads\": 1, \"warmupIterations\": ").append(WARMUP_ITERATIONS);
+            json.append(", \"measurementIterations\": ").append(MEASUREMENT_ITERATIONS).append(", \"params\": {");
+            int p = 0;
+            for (Map.Entry<String, String> param : result.params.entrySet()) {
+                json.append(p++ == 0 ? "" : ", ").append('"').append(param.getKey()).append("\": \"")
+                        .append(param.getValue()).append('"');
+            }
+            json.append("},\n   \"primaryMetric\": {\"score\": ").append(format(result.score()));
+            json.append(", \"scoreUnit\": \"ns/op\", \"rawData\": [[");
+            for (int i = 0; i < result.nanosPerOp.length; i++) {
+                json.append(i == 0 ? "" : ", ").append(format(result.nanosPerOp[i]));
+            }
+            json.append("]]},\n   \"secondaryMetrics\": {");
+            json.append("\"gc.alloc.rate.norm\": {\"score\": ").append(format(result.bytesPerOp)).append(", \"scoreUnit\": \"B/op\"}, ");
+            json.append("\"gc.alloc.rate\": {\"score\": ").append(format(result.allocMbPerSec)).append(", \"scoreUnit\": \"MB/sec\"}}}");
+            json.append(r + 1 < results.size() ? ",\n" : "\n");
+        }
+        return json.append("]\n").toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    private static int[] catalogSizes() {
+        String[] parts = System.getProperty("bench.sizes", "1000,10000,100000,1000000").split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        PerformanceBenchmarks benchmarks = new PerformanceBenchmarks();
+        for (int size : catalogSizes()) {
+            benchmarks.runCatalogBenchmarks(size);
+        }
+        benchmarks.runCartBenchmarks();
+        benchmarks.runPromotionBenchmarks(Integer.getInteger("bench.promotions", 500));
+        benchmarks.runBuilderBenchmarks();
+        benchmarks.runInventoryBenchmarks();
+        benchmarks.runOrderBenchmarks();
+        benchmarks.runLoggingBenchmarks();
+
+        String output = args.length > 0 ? args[0] : "benchmark-results.json";
+        Files.write(Paths.get(output), benchmarks.toJson().getBytes(StandardCharsets.UTF_8));
+        System.out.println("Results written to " + output);
+    }
+}
@@ -7,6 +7,6 @@ package com.foodordering.system;
 class PizzaFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Pizzas");
+        return CategoryRegistry.PIZZAS.createFoodItem(name, price, description);
     }
 }
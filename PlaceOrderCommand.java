@@ -1,45 +1,131 @@
 // Main package for the application
 package com.foodordering.system;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
 import javax.swing.*;
 
 /**
  * Concrete Command to simulate placing an order.
  * Modified to pass customer name and address to the OrderProcessor.
  */
-class PlaceOrderCommand implements Command {
+class PlaceOrderCommand implements JournaledCommand {
+    private static final Logger LOGGER = Logger.getLogger(PlaceOrderCommand.class.getName());
+
     private ShoppingCart cart;
     private OrderProcessor processor;
     private JFrame parentFrame; // To show messages
     private String customerName; // New
     private String customerAddress; // New
+    private final String idempotencyKey; // Same key for every execution of this checkout
+    private OrderResult result; // Outcome of the last execute(), for headless callers
+    private Map<FoodItem, Integer> submittedItems = Collections.emptyMap(); // Cart lines sent by the last execute()
 
     // Updated constructor
     public PlaceOrderCommand(ShoppingCart cart, OrderProcessor processor, JFrame parentFrame, String customerName, String customerAddress) {
+        this(cart, processor, parentFrame, customerName, customerAddress, UUID.randomUUID().toString());
+    }
+
+    /**
+     * @param idempotencyKey Key generated once per checkout, so resubmitting it cannot create a second order.
+     */
+    public PlaceOrderCommand(ShoppingCart cart, OrderProcessor processor, JFrame parentFrame, String customerName,
+                             String customerAddress, String idempotencyKey) {
         this.cart = cart;
         this.processor = processor;
         this.parentFrame = parentFrame;
         this.customerName = customerName;
         this.customerAddress = customerAddress;
+        this.idempotencyKey = idempotencyKey;
     }
 
+    /**
+     * Executes the order. With a null parentFrame the command runs headless (e.g. from the load
+     * generator): no dialogs are shown and the outcome is read back through isSuccessful().
+     */
     @Override
     public void execute() {
-        if (cart.getCartItems().isEmpty()) {
-            JOptionPane.showMessageDialog(parentFrame, "Your cart is empty. Please add items before placing an order.", "Empty Cart", JOptionPane.WARNING_MESSAGE);
+        result = null;
+        submittedItems = cart.getCartItems(); // Snapshot before the cart is cleared, for the journal
+        if (submittedItems.isEmpty()) {
+            showMessage("Your cart is empty. Please add items before placing an order.", "Empty Cart", JOptionPane.WARNING_MESSAGE);
             return;
         }
 
-        // Simulate order processing, now passing customer details
-        boolean success = processor.processOrder(cart, customerName, customerAddress);
+        // Simulate order processing, now passing customer details and the checkout's idempotency key
+        result = processor.processOrder(cart, customerName, customerAddress, idempotencyKey);
 
-        if (success) {
+        if (result.isSuccessful()) {
             // Updated confirmation message
-            JOptionPane.showMessageDialog(parentFrame, "Order Placed Successfully!\\nYour order is on the way to you!", "Order Confirmation", JOptionPane.INFORMATION_MESSAGE);
+            showMessage("Order Placed Successfully!\\nYour order is on the way to you!", "Order Confirmation", JOptionPane.INFORMATION_MESSAGE);
             cart.clearCart(); // Clear cart after successful order
+        } else if (result.getStatus() == OrderResult.Status.REJECTED && result.getValidation() != null) {
+            refreshChangedItems(result.getValidation());
+        } else if (result.getStatus() == OrderResult.Status.DUPLICATE) {
+            showMessage("This order has already been submitted.", "Order Already Placed", JOptionPane.INFORMATION_MESSAGE);
+        } else if (result.getStatus() == OrderResult.Status.THROTTLED) {
+            long seconds = Math.max(1, (result.getRetryAfterMillis() + 999) / 1000);
+            showMessage("We are receiving a lot of orders right now.\nPlease try again in " + seconds
+                    + (seconds == 1 ? " second." : " seconds."), "Busy", JOptionPane.WARNING_MESSAGE);
+        } else {
+            showMessage("Order placement failed. Please check your details.", "Order Failed", JOptionPane.ERROR_MESSAGE);
+        }
+        LOGGER.fine("Command: Order processing initiated.");
+    }
+
+    @Override
+    public void journal(CommandJournal journal) {
+        if (!submittedItems.isEmpty()) {
+            journal.appendOrderPlaced(cart.getCartId(), isSuccessful(), customerName, submittedItems);
+        }
+    }
+
+    /**
+     * Updates the cart to current prices (dropping unavailable items) and tells the customer what changed,
+     * so they can review the new total and place the order again.
+     */
+    private void refreshChangedItems(CheckoutValidator.Result validation) {
+        Map<FoodItem, FoodItem> replacements = new HashMap<>();
+        StringBuilder message = new StringBuilder("Some items in your cart have changed:\n");
+        for (CheckoutValidator.LineIssue issue : validation.getIssues()) {
+            FoodItem current = issue.getCurrentItem();
+            if (current != null && issue.getCartItem() instanceof FoodWrapper) {
+                current = new FoodWrapperBuilder().withFoodItem(current).build(); // Keep the packaging message
+            }
+            replacements.put(issue.getCartItem(), current);
+            message.append("\n - ").append(issue);
+        }
+        cart.replaceItems(replacements);
+        message.append("\n\nYour cart has been updated. Please review it and place the order again.");
+        showMessage(message.toString(), "Cart Updated", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /**
+     * @return true if the last execute() placed the order.
+     */
+    public boolean isSuccessful() {
+        return result != null && result.isSuccessful();
+    }
+
+    /**
+     * @return The outcome of the last execute(), or null if the cart was empty.
+     */
+    public OrderResult getResult() {
+        return result;
+    }
+
+    private void showMessage(String message, String title, int messageType) {
+        if (parentFrame == null) {
+            return;
+        }
+        // When dispatched through the CommandBus this runs off the Event Dispatch Thread
+        if (SwingUtilities.isEventDispatchThread()) {
+            JOptionPane.showMessageDialog(parentFrame, message, title, messageType);
         } else {
-            JOptionPane.showMessageDialog(parentFrame, "Order placement failed. Please check your details.", "Order Failed", JOptionPane.ERROR_MESSAGE);
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(parentFrame, message, title, messageType));
         }
-        System.out.println("Command: Order processing initiated.");
     }
 }
\ No newline at end of file
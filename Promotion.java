@@ -0,0 +1,179 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One promotion rule as loaded from the Promotions table (see migration V7).
+ * A PERCENT_OFF or BUY_X_GET_Y rule targets either one item or a whole category; a COMBO rule
+ * prices a bundle of specific items. Rules are immutable and evaluated by CartPricing.
+ */
+class Promotion {
+
+    enum Kind {
+        PERCENT_OFF, // percentOff of the list price of every matching unit
+        BUY_X_GET_Y, // For every buyQuantity + freeQuantity matching units, the cheapest freeQuantity are free
+        COMBO        // Each complete set of bundleItems costs bundlePrice
+    }
+
+    /**
+     * When a rule applies: an optional date range, an optional daily time window and a set of weekdays.
+     * Windows are evaluated to the minute.
+     */
+    static class Schedule {
+        static final int ALL_DAYS = 0x7F;
+        static final Schedule ALWAYS = new Schedule(null, null, null, null, ALL_DAYS);
+
+        private final LocalDateTime validFrom; // Null: no start date
+        private final LocalDateTime validTo;   // Null: no end date
+        private final int startMinute;         // Minute of the day, or -1 for all day
+        private final int endMinute;           // Exclusive; before startMinute when the window crosses midnight
+        private final int daysOfWeek;          // Bit 0 = Monday ... bit 6 = Sunday
+
+        Schedule(LocalDateTime validFrom, LocalDateTime validTo, LocalTime startTime, LocalTime endTime, int daysOfWeek) {
+            this.validFrom = validFrom;
+            this.validTo = validTo;
+            boolean daily = startTime != null && endTime != null;
+            this.startMinute = daily ? startTime.getHour() * 60 + startTime.getMinute() : -1;
+            this.endMinute = daily ? endTime.getHour() * 60 + endTime.getMinute() : -1;
+            this.daysOfWeek = daysOfWeek;
+        }
+
+        boolean isActiveAt(LocalDateTime now) {
+            if ((validFrom != null && now.isBefore(validFrom)) || (validTo != null && !now.isBefore(validTo))) {
+                return false;
+            }
+            if (startMinute < 0) {
+                return (daysOfWeek & dayBit(now)) != 0;
+            }
+            int minute = now.getHour() * 60 + now.getMinute();
+            if (startMinute <= endMinute) {
+                return minute >= startMinute && minute < endMinute && (daysOfWeek & dayBit(now)) != 0;
+            }
+            // Crosses midnight: the part after midnight belongs to the day the window started
+            if (minute >= startMinute) {
+                return (daysOfWeek & dayBit(now)) != 0;
+            }
+            return minute < endMinute && (daysOfWeek & dayBit(now.minusDays(1))) != 0;
+        }
+
+        private static int dayBit(LocalDateTime time) {
+            return 1 << (time.getDayOfWeek().getValue() - 1);
+        }
+    }
+
+    private final int promotionId;
+    private final String name;
+    private final Kind kind;
+    private final int foodItemId;  // Target item, or 0
+    private final int categoryId;  // Target category, or 0
+    private final double percentOff;
+    private final int buyQuantity;
+    private final int freeQuantity;
+    private final double bundlePrice;
+    private final Map<Integer, Integer> bundleItems; // COMBO: FoodItemID -> units per bundle
+    private final Schedule schedule;
+
+    Promotion(int promotionId, String name, Kind kind, int foodItemId, int categoryId, double percentOff,
+              int buyQuantity, int freeQuantity, double bundlePrice, Map<Integer, Integer> bundleItems, Schedule schedule) {
+        this.promotionId = promotionId;
+        this.name = name;
+        this.kind = kind;
+        this.foodItemId = foodItemId;
+        this.categoryId = categoryId;
+        this.percentOff = percentOff;
+        this.buyQuantity = buyQuantity;
+        this.freeQuantity = freeQuantity;
+        this.bundlePrice = bundlePrice;
+        this.bundleItems = bundleItems == null ? Collections.emptyMap() : Collections.unmodifiableMap(bundleItems);
+        this.schedule = schedule == null ? Schedule.ALWAYS : schedule;
+    }
+
+    static Promotion percentOff(int promotionId, String name, int foodItemId, int categoryId, double percentOff) {
+        return new Promotion(promotionId, name, Kind.PERCENT_OFF, foodItemId, categoryId, percentOff, 0, 0, 0, null, null);
+    }
+
+    static Promotion buyXGetY(int promotionId, String name, int foodItemId, int categoryId, int buyQuantity, int freeQuantity) {
+        return new Promotion(promotionId, name, Kind.BUY_X_GET_Y, foodItemId, categoryId, 0, buyQuantity, freeQuantity, 0, null, null);
+    }
+
+    static Promotion combo(int promotionId, String name, Map<Integer, Integer> bundleItems, double bundlePrice) {
+        return new Promotion(promotionId, name, Kind.COMBO, 0, 0, 0, 0, 0, bundlePrice, bundleItems, null);
+    }
+
+    /**
+     * @return A copy of this rule that only applies within the given schedule.
+     */
+    Promotion withSchedule(Schedule schedule) {
+        return new Promotion(promotionId, name, kind, foodItemId, categoryId, percentOff, buyQuantity, freeQuantity,
+                bundlePrice, bundleItems, schedule);
+    }
+
+    /**
+     * Checks that the rule's parameters make sense; invalid rows are skipped when loading.
+     */
+    boolean isValid() {
+        switch (kind) {
+            case PERCENT_OFF:
+                return (foodItemId != 0 || categoryId != 0) && percentOff > 0 && percentOff <= 100;
+            case BUY_X_GET_Y:
+                return (foodItemId != 0 || categoryId != 0) && buyQuantity > 0 && freeQuantity > 0;
+            case COMBO:
+                return !bundleItems.isEmpty() && bundlePrice >= 0;
+            default:
+                return false;
+        }
+    }
+
+    boolean isActiveAt(LocalDateTime now) {
+        return schedule.isActiveAt(now);
+    }
+
+    public int getPromotionId() {
+        return promotionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getFoodItemId() {
+        return foodItemId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public double getPercentOff() {
+        return percentOff;
+    }
+
+    public int getBuyQuantity() {
+        return buyQuantity;
+    }
+
+    public int getFreeQuantity() {
+        return freeQuantity;
+    }
+
+    public double getBundlePrice() {
+        return bundlePrice;
+    }
+
+    public Map<Integer, Integer> getBundleItems() {
+        return bundleItems;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
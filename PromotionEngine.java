@@ -0,0 +1,259 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Loads promotion rules from the database and compiles the ones currently in their time window into
+ * a RuleSet indexed by FoodItemID and CategoryID, so pricing a cart line only looks at the rules
+ * that can affect it.
+ *
+ * The active RuleSet is recomputed at most once a minute (schedules are minute-granular). When the
+ * set of active rules is unchanged the same RuleSet instance is kept, which tells every CartPricing
+ * its cached line and deal discounts are still valid; a new instance makes them reprice in full.
+ */
+class PromotionEngine {
+    private static final Logger LOGGER = Logger.getLogger(PromotionEngine.class.getName());
+
+    private static final String PROMOTIONS_SQL =
+            "SELECT PromotionID, Name, RuleType, FoodItemID, CategoryID, PercentOff, BuyQuantity, FreeQuantity, " +
+            "BundlePrice, ValidFrom, ValidTo, StartTime, EndTime, DaysOfWeek FROM Promotions WHERE IsActive = 1";
+    private static final String BUNDLE_ITEMS_SQL =
+            "SELECT pi.PromotionID, pi.FoodItemID, pi.Quantity FROM PromotionItems pi " +
+            "JOIN Promotions p ON p.PromotionID = pi.PromotionID WHERE p.IsActive = 1";
+
+    /**
+     * The rules active during one stretch of time, indexed for line-level lookups. Immutable.
+     */
+    static final class RuleSet {
+        static final RuleSet EMPTY = new RuleSet(Collections.emptyList(), new BitSet());
+
+        private final BitSet activeIndexes; // Positions in the engine's rule list; identifies the set
+        private final Map<Integer, Promotion> percentByItem = new HashMap<>();     // Best PERCENT_OFF per item
+        private final Map<Integer, Promotion> percentByCategory = new HashMap<>(); // Best PERCENT_OFF per category
+        private final Map<Integer, List<Promotion>> dealsByItem = new HashMap<>();
+        private final Map<Integer, List<Promotion>> dealsByCategory = new HashMap<>();
+        private final int size;
+
+        private RuleSet(List<Promotion> active, BitSet activeIndexes) {
+            this.activeIndexes = activeIndexes;
+            this.size = active.size();
+            for (Promotion promotion : active) {
+                switch (promotion.getKind()) {
+                    case PERCENT_OFF:
+                        if (promotion.getFoodItemId() != 0) {
+                            percentByItem.merge(promotion.getFoodItemId(), promotion, RuleSet::better);
+                        } else {
+                            percentByCategory.merge(promotion.getCategoryId(), promotion, RuleSet::better);
+                        }
+                        break;
+                    case BUY_X_GET_Y:
+                        if (promotion.getFoodItemId() != 0) {
+                            dealsByItem.computeIfAbsent(promotion.getFoodItemId(), id -> new ArrayList<>()).add(promotion);
+                        } else {
+                            dealsByCategory.computeIfAbsent(promotion.getCategoryId(), id -> new ArrayList<>()).add(promotion);
+                        }
+                        break;
+                    case COMBO:
+                        for (Integer foodItemId : promotion.getBundleItems().keySet()) {
+                            dealsByItem.computeIfAbsent(foodItemId, id -> new ArrayList<>()).add(promotion);
+                        }
+                        break;
+                }
+            }
+        }
+
+        private static Promotion better(Promotion a, Promotion b) {
+            return b.getPercentOff() > a.getPercentOff() ? b : a;
+        }
+
+        /**
+         * @return The percentage rule for a line: the larger of the item's and its category's, or null.
+         * Percentages never stack.
+         */
+        Promotion percentFor(FoodItem item) {
+            Promotion byItem = percentByItem.get(item.getFoodItemId());
+            Promotion byCategory = percentByCategory.get(item.getCategoryId());
+            if (byItem == null) {
+                return byCategory;
+            }
+            return byCategory == null ? byItem : better(byItem, byCategory);
+        }
+
+        /**
+         * @return The BUY_X_GET_Y and COMBO rules whose discount depends on the quantity of this item.
+         */
+        List<Promotion> dealsFor(int foodItemId, int categoryId) {
+            List<Promotion> byItem = dealsByItem.get(foodItemId);
+            List<Promotion> byCategory = dealsByCategory.get(categoryId);
+            if (byCategory == null) {
+                return byItem == null ? Collections.emptyList() : byItem;
+            }
+            if (byItem == null) {
+                return byCategory;
+            }
+            List<Promotion> deals = new ArrayList<>(byItem);
+            deals.addAll(byCategory);
+            return deals;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The current RuleSet and when it must be re-checked, published together.
+     */
+    private static final class ActiveRules {
+        final RuleSet rules;
+        final long untilMillis;
+
+        ActiveRules(RuleSet rules, long untilMillis) {
+            this.rules = rules;
+            this.untilMillis = untilMillis;
+        }
+    }
+
+    private final Clock clock;
+    private volatile List<Promotion> promotions = Collections.emptyList();
+    private volatile ActiveRules active; // Null forces a recompile
+
+    public PromotionEngine() {
+        this(Clock.systemDefaultZone());
+    }
+
+    PromotionEngine(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Loads all enabled rules from the Promotions and PromotionItems tables, replacing the current ones.
+     * @throws SQLException If the tables cannot be read.
+     */
+    public void load() throws SQLException {
+        Map<Integer, Map<Integer, Integer>> bundles = new HashMap<>();
+        List<Promotion> loaded = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            try (PreparedStatement pstmt = conn.prepareStatement(BUNDLE_ITEMS_SQL);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bundles.computeIfAbsent(rs.getInt("PromotionID"), id -> new HashMap<>())
+                            .put(rs.getInt("FoodItemID"), rs.getInt("Quantity"));
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(PROMOTIONS_SQL);
+                 ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Promotion promotion = readPromotion(rs, bundles);
+                    if (promotion == null || !promotion.isValid()) {
+                        LOGGER.warning("Skipping invalid promotion " + rs.getInt("PromotionID") + " (" + rs.getString("Name") + ")");
+                        continue;
+                    }
+                    loaded.add(promotion);
+                }
+            }
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+        setPromotions(loaded);
+        LOGGER.info("Loaded " + loaded.size() + " promotions.");
+    }
+
+    private static Promotion readPromotion(ResultSet rs, Map<Integer, Map<Integer, Integer>> bundles) throws SQLException {
+        Promotion.Kind kind;
+        try {
+            kind = Promotion.Kind.valueOf(rs.getString("RuleType").trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int promotionId = rs.getInt("PromotionID");
+        Timestamp validFrom = rs.getTimestamp("ValidFrom");
+        Timestamp validTo = rs.getTimestamp("ValidTo");
+        Time startTime = rs.getTime("StartTime");
+        Time endTime = rs.getTime("EndTime");
+        Promotion.Schedule schedule = new Promotion.Schedule(
+                validFrom == null ? null : validFrom.toLocalDateTime(),
+                validTo == null ? null : validTo.toLocalDateTime(),
+                startTime == null ? null : startTime.toLocalTime(),
+                endTime == null ? null : endTime.toLocalTime(),
+                rs.getInt("DaysOfWeek"));
+        return new Promotion(promotionId, rs.getString("Name"), kind, rs.getInt("FoodItemID"), rs.getInt("CategoryID"),
+                rs.getDouble("PercentOff"), rs.getInt("BuyQuantity"), rs.getInt("FreeQuantity"), rs.getDouble("BundlePrice"),
+                bundles.get(promotionId), schedule);
+    }
+
+    /**
+     * Replaces the rules (used by load(), benchmarks and tests). Carts reprice on their next change.
+     */
+    synchronized void setPromotions(List<Promotion> promotions) {
+        this.promotions = Collections.unmodifiableList(new ArrayList<>(promotions));
+        active = null; // Recompile on next use, even if the same positions are active
+    }
+
+    public List<Promotion> getPromotions() {
+        return promotions;
+    }
+
+    /**
+     * @return The rules active right now, compiled. Lock-free except once per minute, when the
+     * schedules are re-checked.
+     */
+    RuleSet activeRules() {
+        long now = clock.millis();
+        ActiveRules current = active;
+        if (current != null && now < current.untilMillis) {
+            return current.rules;
+        }
+        return recompile(now);
+    }
+
+    private synchronized RuleSet recompile(long now) {
+        ActiveRules previous = active;
+        if (previous != null && now < previous.untilMillis) {
+            return previous.rules; // Another thread got here first
+        }
+        LocalDateTime localNow = LocalDateTime.now(clock);
+        List<Promotion> all = promotions;
+        BitSet activeIndexes = new BitSet(all.size());
+        List<Promotion> matching = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            if (all.get(i).isActiveAt(localNow)) {
+                activeIndexes.set(i);
+                matching.add(all.get(i));
+            }
+        }
+        RuleSet rules;
+        if (previous != null && previous.rules.activeIndexes.equals(activeIndexes)) {
+            rules = previous.rules; // Same rules as before: carts keep their cached discounts
+        } else {
+            rules = matching.isEmpty() ? RuleSet.EMPTY : new RuleSet(matching, activeIndexes);
+            LOGGER.fine("Compiled " + matching.size() + " active promotions.");
+        }
+        active = new ActiveRules(rules, (now / 60_000 + 1) * 60_000); // Until the next minute boundary
+        return rules;
+    }
+
+    /**
+     * @return A new, empty incremental pricer for one cart.
+     */
+    CartPricing newPricing() {
+        return new CartPricing(this);
+    }
+}
@@ -0,0 +1,142 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Query-plan regression check for the hot queries.
+ * Asks SQL Server for the estimated plan of each query (SHOWPLAN_XML, so nothing is executed) and fails
+ * if the plan no longer uses the expected index or falls back to scanning the table.
+ * Run it after migrating a database with representative data volumes, e.g. a local container:
+ * {@code docker run -e ACCEPT_EULA=Y -e MSSQL_SA_PASSWORD=... -p 1433:1433 mcr.microsoft.com/mssql/server}
+ * together with {@code -Dfoodordering.db.url=...}; on tiny tables the optimizer may legitimately prefer a scan.
+ */
+class QueryPlanCheck {
+    private static final Logger LOGGER = Logger.getLogger(QueryPlanCheck.class.getName());
+
+    /**
+     * A hot query together with the index its plan is expected to use.
+     */
+    static class PlanExpectation {
+        private final String name;
+        private final String sql;
+        private final String table;
+        private final String expectedIndex;
+
+        PlanExpectation(String name, String sql, String table, String expectedIndex) {
+            this.name = name;
+            this.sql = sql;
+            this.table = table;
+            this.expectedIndex = expectedIndex;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    // Parameters are inlined because SHOWPLAN cannot be combined with a prepared statement's markers.
+    private static final List<PlanExpectation> HOT_QUERIES = new ArrayList<>();
+
+    static {
+        HOT_QUERIES.add(new PlanExpectation("FoodItemDAO.getFoodItemsByCategory",
+                "SELECT f.FoodItemID, f.Name, f.Price, f.Description, c.CategoryName, c.CategoryID " +
+                "FROM FoodItems f JOIN Categories c ON f.CategoryID = c.CategoryID WHERE f.CategoryID = 1",
+                "FoodItems", "IX_FoodItems_CategoryID"));
+        HOT_QUERIES.add(new PlanExpectation("Order details by OrderID",
+                "SELECT d.FoodItemID, d.Quantity, d.PricePerItem FROM OrderDetails d WHERE d.OrderID = 1",
+                "OrderDetails", "IX_OrderDetails_OrderID"));
+        HOT_QUERIES.add(new PlanExpectation("SalesAnalytics window",
+                "SELECT o.OrderID, o.TotalAmount FROM Orders o WHERE o.OrderDate >= DATEADD(HOUR, -1, GETDATE())",
+                "Orders", "IX_Orders_OrderDate"));
+    }
+
+    /**
+     * Checks every hot query's estimated plan.
+     * @return A human-readable description of each regression; empty if all plans look right.
+     * @throws SQLException If the plans cannot be obtained.
+     */
+    public List<String> check() throws SQLException {
+        List<String> regressions = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = DatabaseManager.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SHOWPLAN_XML ON");
+                try {
+                    for (PlanExpectation expectation : HOT_QUERIES) {
+                        String plan = fetchPlan(stmt, expectation.sql);
+                        String problem = evaluate(expectation, plan);
+                        if (problem != null) {
+                            regressions.add(expectation.getName() + ": " + problem);
+                        }
+                    }
+                } finally {
+                    stmt.execute("SET SHOWPLAN_XML OFF");
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error obtaining query plans.", e);
+            throw e;
+        } finally {
+            DatabaseManager.closeConnection(conn);
+        }
+        return regressions;
+    }
+
+    private String fetchPlan(Statement stmt, String sql) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1));
+            }
+            return plan.toString();
+        }
+    }
+
+    /**
+     * Inspects a SHOWPLAN_XML document.
+     * @return A description of the regression, or null if the plan uses the expected index without scanning the table.
+     */
+    static String evaluate(PlanExpectation expectation, String planXml) {
+        String tableRef = "Table=\"[" + expectation.table + "]\"";
+        if (!planXml.contains("Index=\"[" + expectation.expectedIndex + "]\"")) {
+            return "expected index " + expectation.expectedIndex + " is not used";
+        }
+        for (String scanOp : new String[]{"PhysicalOp=\"Table Scan\"", "PhysicalOp=\"Clustered Index Scan\""}) {
+            int at = planXml.indexOf(scanOp);
+            while (at >= 0) {
+                // The operator's <Object .../> element follows the RelOp element it belongs to.
+                int end = planXml.indexOf("</RelOp>", at);
+                String op = planXml.substring(at, end < 0 ? planXml.length() : end);
+                if (op.contains(tableRef)) {
+                    return "plan scans table " + expectation.table;
+                }
+                at = planXml.indexOf(scanOp, at + scanOp.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Command-line entry point for CI: exits with status 1 if any hot query regressed.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> regressions = new QueryPlanCheck().check();
+        if (regressions.isEmpty()) {
+            System.out.println("All " + HOT_QUERIES.size() + " hot query plans use their indexes.");
+            return;
+        }
+        for (String regression : regressions) {
+            System.err.println("Plan regression - " + regression);
+        }
+        System.exit(1);
+    }
+}
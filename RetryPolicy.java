@@ -0,0 +1,104 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Retries database work that failed for a transient reason (lost connection, timeout, deadlock)
+ * with exponential backoff and full jitter, until a total time budget is spent. Errors that will
+ * not go away on their own (constraint violations, bad SQL) are rethrown immediately, and so is an
+ * open circuit breaker: retrying would only hit the same fast failure. The budget never runs past
+ * the caller's Deadline.
+ */
+class RetryPolicy {
+    private static final Logger LOGGER = Logger.getLogger(RetryPolicy.class.getName());
+
+    /**
+     * A unit of database work that may be attempted more than once.
+     */
+    interface SqlAction<T> {
+        T run(int attempt) throws SQLException;
+    }
+
+    private final long budgetMillis;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    RetryPolicy(long budgetMillis, long initialBackoffMillis, long maxBackoffMillis) {
+        this.budgetMillis = budgetMillis;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Policy for interactive checkout: {@code foodordering.retry.budgetMillis} (default 3000),
+     * starting at 100 ms between attempts and never waiting more than 1 s.
+     */
+    static RetryPolicy forCheckout() {
+        return new RetryPolicy(Long.getLong("foodordering.retry.budgetMillis", 3000L), 100, 1000);
+    }
+
+    /**
+     * Runs the action, retrying transient failures while the budget allows.
+     * @param operation Name used in log messages.
+     * @return The action's result.
+     * @throws SQLException The last failure once it is not transient or the budget is spent.
+     */
+    public <T> T execute(String operation, SqlAction<T> action) throws SQLException {
+        long deadline = System.currentTimeMillis() + budgetMillis;
+        Deadline callerDeadline = Deadline.current();
+        if (callerDeadline != null) {
+            deadline = Math.min(deadline, System.currentTimeMillis() + callerDeadline.remainingMillis());
+        }
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.run(attempt);
+            } catch (SQLException e) {
+                if (!isTransient(e) || e instanceof CircuitBreaker.CircuitOpenException) {
+                    throw e;
+                }
+                long sleep = ThreadLocalRandom.current().nextLong(backoff + 1);
+                if (System.currentTimeMillis() + sleep >= deadline) {
+                    LOGGER.warning(operation + " gave up after " + attempt + " attempts.");
+                    throw e;
+                }
+                LOGGER.warning(operation + " attempt " + attempt + " failed (" + e.getMessage() + "); retrying in " + sleep + " ms.");
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(maxBackoffMillis, backoff * 2);
+            }
+        }
+    }
+
+    /**
+     * Connection loss, timeouts and deadlocks are worth retrying; constraint or data errors are not.
+     */
+    static boolean isTransient(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        String state = e.getSQLState();
+        return state == null // Drivers that cannot even connect often report no state
+                || state.startsWith("08") // Connection exceptions
+                || state.equals("40001") // Deadlock victim / serialization failure
+                || state.equals("HYT00") || state.equals("HYT01"); // Timeouts
+    }
+
+    /**
+     * Whether the failure is a unique key violation (SQL Server errors 2601/2627, or SQLState 23505).
+     */
+    static boolean isDuplicateKey(SQLException e) {
+        return e.getErrorCode() == 2601 || e.getErrorCode() == 2627 || "23505".equals(e.getSQLState());
+    }
+}
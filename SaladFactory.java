@@ -7,6 +7,6 @@ package com.foodordering.system;
 class SaladFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Salads");
+        return CategoryRegistry.SALADS.createFoodItem(name, price, description);
     }
 }
@@ -0,0 +1,272 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory, real-time sales analytics fed by OrderProcessor's committed orders.
+ * Keeps a sliding window of per-minute buckets and maintains running totals incrementally:
+ * an order adds to the current bucket and to the totals, and an expiring bucket is subtracted
+ * from the totals again. Memory is bounded by the window length and the number of distinct
+ * items/categories sold in it, and all reads are answered from the totals without touching the DB.
+ */
+class SalesAnalytics implements OrderListener {
+    private static final Logger LOGGER = Logger.getLogger(SalesAnalytics.class.getName());
+
+    private static final long BUCKET_MILLIS = 60_000L;
+    private static final int DEFAULT_WINDOW_MINUTES = 60;
+    private static final int DEFAULT_TOP_N = 5;
+
+    // One aggregate query seeds the window: per-minute/per-item totals plus a per-minute order count row.
+    private static final String SEED_SQL =
+            "SELECT DATEADD(MINUTE, DATEDIFF(MINUTE, 0, o.OrderDate), 0) AS MinuteStart, " +
+            "d.FoodItemID, f.CategoryID, SUM(d.Quantity) AS Quantity, " +
+            "SUM(d.Quantity * d.PricePerItem) AS Revenue, COUNT(DISTINCT o.OrderID) AS Orders, " +
+            "GROUPING(d.FoodItemID) AS IsMinuteTotal " +
+            "FROM Orders o JOIN OrderDetails d ON d.OrderID = o.OrderID " +
+            "JOIN FoodItems f ON f.FoodItemID = d.FoodItemID " +
+            "WHERE o.OrderDate >= ? " +
+            "GROUP BY GROUPING SETS ((DATEADD(MINUTE, DATEDIFF(MINUTE, 0, o.OrderDate), 0), d.FoodItemID, f.CategoryID), " +
+            "(DATEADD(MINUTE, DATEDIFF(MINUTE, 0, o.OrderDate), 0)))";
+
+    /**
+     * Aggregates for a single minute of the window.
+     */
+    private static class Bucket {
+        long minute = Long.MIN_VALUE; // Epoch minute this bucket currently holds
+        final IntDoubleHashMap categoryRevenue = new IntDoubleHashMap();
+        final IntDoubleHashMap itemQuantity = new IntDoubleHashMap();
+        int orders;
+
+        void reset(long newMinute) {
+            minute = newMinute;
+            categoryRevenue.clear();
+            itemQuantity.clear();
+            orders = 0;
+        }
+    }
+
+    private final Bucket[] buckets;
+    private final int windowMinutes;
+    private final int topN;
+
+    // Running totals over every live bucket
+    private final IntDoubleHashMap categoryRevenue = new IntDoubleHashMap();
+    private final IntDoubleHashMap itemQuantity = new IntDoubleHashMap();
+    private long ordersInWindow;
+    private long currentMinute = Long.MIN_VALUE;
+
+    // Published after every change so readers never sort or scan
+    private volatile int[] topItemIds = new int[0];
+
+    public SalesAnalytics() {
+        this(DEFAULT_WINDOW_MINUTES, DEFAULT_TOP_N);
+    }
+
+    public SalesAnalytics(int windowMinutes, int topN) {
+        this.windowMinutes = windowMinutes;
+        this.topN = topN;
+        this.buckets = new Bucket[windowMinutes];
+        for (int i = 0; i < windowMinutes; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Seeds the window from the order history with a single aggregate query.
+     * Call once at startup, before orders start flowing in.
+     * @throws SQLException If the aggregate query fails.
+     */
+    public void seed() throws SQLException {
+        long now = System.currentTimeMillis();
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        int rows = 0;
+
+        try {
+            conn = DatabaseManager.getConnection();
+            pstmt = conn.prepareStatement(SEED_SQL);
+            pstmt.setTimestamp(1, new Timestamp(now - windowMinutes * BUCKET_MILLIS));
+            rs = pstmt.executeQuery();
+
+            synchronized (this) {
+                advanceTo(now / BUCKET_MILLIS);
+                while (rs.next()) {
+                    long minute = rs.getTimestamp("MinuteStart").getTime() / BUCKET_MILLIS;
+                    Bucket bucket = bucketFor(minute);
+                    if (bucket == null) {
+                        continue; // Outside the window (clock skew between app and DB)
+                    }
+                    if (rs.getInt("IsMinuteTotal") == 1) {
+                        int orders = rs.getInt("Orders");
+                        bucket.orders += orders;
+                        ordersInWindow += orders;
+                    } else {
+                        addLine(bucket, rs.getInt("FoodItemID"), rs.getInt("CategoryID"),
+                                rs.getInt("Quantity"), rs.getDouble("Revenue"));
+                    }
+                    rows++;
+                }
+                publishTopItems();
+            }
+            LOGGER.info("Sales analytics seeded from " + rows + " aggregate rows.");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error seeding sales analytics from database.", e);
+            throw e;
+        } finally {
+            try {
+                if (rs != null) rs.close();
+                if (pstmt != null) pstmt.close();
+            } catch (SQLException e) {
+                LOGGER.log(Level.SEVERE, "Error closing resources after seeding sales analytics.", e);
+            }
+            DatabaseManager.closeConnection(conn);
+        }
+    }
+
+    @Override
+    public synchronized void orderPlaced(int orderId, Map<FoodItem, Integer> items, long timestampMillis) {
+        long minute = timestampMillis / BUCKET_MILLIS;
+        advanceTo(Math.max(minute, System.currentTimeMillis() / BUCKET_MILLIS));
+        Bucket bucket = bucketFor(minute);
+        if (bucket == null) {
+            return;
+        }
+        for (Map.Entry<FoodItem, Integer> entry : items.entrySet()) {
+            FoodItem item = entry.getKey();
+            int quantity = entry.getValue();
+            addLine(bucket, item.getFoodItemId(), item.getCategoryId(), quantity, item.getPrice() * quantity);
+        }
+        bucket.orders++;
+        ordersInWindow++;
+        publishTopItems();
+    }
+
+    /**
+     * Revenue for a category over the sliding window.
+     * @param categoryId The category's database ID.
+     * @return The revenue, or 0.0 if nothing from the category sold in the window.
+     */
+    public synchronized double getRevenueForCategory(int categoryId) {
+        expireStale();
+        return categoryRevenue.get(categoryId);
+    }
+
+    /**
+     * Quantity of an item sold over the sliding window.
+     */
+    public synchronized int getQuantitySold(int foodItemId) {
+        expireStale();
+        return (int) itemQuantity.get(foodItemId);
+    }
+
+    /**
+     * Average number of orders per minute over the sliding window.
+     */
+    public synchronized double getOrdersPerMinute() {
+        expireStale();
+        return (double) ordersInWindow / windowMinutes;
+    }
+
+    /**
+     * Number of orders placed during the current minute.
+     */
+    public synchronized int getOrdersThisMinute() {
+        expireStale();
+        Bucket bucket = bucketFor(currentMinute);
+        return bucket == null ? 0 : bucket.orders;
+    }
+
+    /**
+     * The best-selling items of the window, most sold first.
+     * @return A copy of the published top-N FoodItemIDs.
+     */
+    public int[] getTopItemIds() {
+        return topItemIds.clone();
+    }
+
+    /**
+     * Whether the item is currently among the top sellers, e.g. for a "popular now" badge.
+     * Reads only the published snapshot, so it is safe to call from the UI thread.
+     */
+    public boolean isPopular(int foodItemId) {
+        for (int id : topItemIds) {
+            if (id == foodItemId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addLine(Bucket bucket, int foodItemId, int categoryId, int quantity, double revenue) {
+        bucket.itemQuantity.addTo(foodItemId, quantity);
+        bucket.categoryRevenue.addTo(categoryId, revenue);
+        itemQuantity.addTo(foodItemId, quantity);
+        categoryRevenue.addTo(categoryId, revenue);
+    }
+
+    private Bucket bucketFor(long minute) {
+        if (minute > currentMinute || minute <= currentMinute - windowMinutes) {
+            return null;
+        }
+        Bucket bucket = buckets[(int) Math.floorMod(minute, (long) windowMinutes)];
+        if (bucket.minute != minute) {
+            bucket.reset(minute);
+        }
+        return bucket;
+    }
+
+    private void expireStale() {
+        long minute = System.currentTimeMillis() / BUCKET_MILLIS;
+        if (minute > currentMinute) {
+            advanceTo(minute);
+            publishTopItems();
+        }
+    }
+
+    /**
+     * Moves the window forward, subtracting every bucket that falls out of it from the running totals.
+     */
+    private void advanceTo(long minute) {
+        if (minute <= currentMinute) {
+            return;
+        }
+        for (Bucket bucket : buckets) {
+            if (bucket.minute != Long.MIN_VALUE && bucket.minute <= minute - windowMinutes) {
+                bucket.itemQuantity.forEach((key, value) -> itemQuantity.addTo(key, -value));
+                bucket.categoryRevenue.forEach((key, value) -> categoryRevenue.addTo(key, -value));
+                ordersInWindow -= bucket.orders;
+                bucket.reset(Long.MIN_VALUE);
+            }
+        }
+        currentMinute = minute;
+    }
+
+    private void publishTopItems() {
+        // Bounded min-heap of the current leaders: O(distinct items * log N).
+        PriorityQueue<double[]> heap = new PriorityQueue<>(topN + 1, (a, b) -> Double.compare(a[1], b[1]));
+        itemQuantity.forEach((key, value) -> {
+            heap.offer(new double[]{key, value});
+            if (heap.size() > topN) {
+                heap.poll();
+            }
+        });
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = (int) heap.poll()[0];
+        }
+        if (!Arrays.equals(top, topItemIds)) {
+            topItemIds = top;
+        }
+    }
+}
@@ -7,6 +7,6 @@ package com.foodordering.system;
 class SandwichFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Sandwiches");
+        return CategoryRegistry.SANDWICHES.createFoodItem(name, price, description);
     }
 }
@@ -0,0 +1,243 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies numbered, checksummed SQL migrations at startup.
+ * Migration files live in the migrations directory and are named {@code V<number>__<description>.sql};
+ * like DataBase.sql they may contain several batches separated by {@code GO} lines.
+ * Every applied migration is recorded in the SchemaVersion table together with a SHA-256 checksum,
+ * and a migration that was edited after being applied stops startup instead of silently diverging.
+ */
+class SchemaMigrator {
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final Pattern BATCH_SEPARATOR = Pattern.compile("(?im)^\\s*GO\\s*$");
+    private static final String DEFAULT_DIRECTORY = System.getProperty("foodordering.migrations.dir", "migrations");
+
+    private static final String CREATE_VERSION_TABLE_SQL =
+            "IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[SchemaVersion]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1) " +
+            "CREATE TABLE SchemaVersion (" +
+            "Version INT PRIMARY KEY, " +
+            "Description NVARCHAR(200) NOT NULL, " +
+            "Checksum CHAR(64) NOT NULL, " +
+            "AppliedOn DATETIME NOT NULL DEFAULT GETDATE())";
+
+    /**
+     * A migration file on disk.
+     */
+    static class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final String checksum;
+
+        Migration(int version, String description, String script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = sha256(script);
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        List<String> batches() {
+            List<String> batches = new ArrayList<>();
+            for (String batch : BATCH_SEPARATOR.split(script)) {
+                if (!batch.trim().isEmpty()) {
+                    batches.add(batch);
+                }
+            }
+            return batches;
+        }
+    }
+
+    private final Path directory;
+
+    public SchemaMigrator() {
+        this(Paths.get(DEFAULT_DIRECTORY));
+    }
+
+    public SchemaMigrator(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Verifies already applied migrations and applies the pending ones in version order.
+     * An application-level lock keeps two instances starting at once from applying the same migration.
+     * @return The number of migrations applied by this call.
+     * @throws SQLException If a migration fails or an applied migration's checksum no longer matches.
+     * @throws IOException If the migration files cannot be read.
+     */
+    public int migrate() throws SQLException, IOException {
+        List<Migration> migrations = loadMigrations();
+        Connection conn = null;
+        int applied = 0;
+
+        try {
+            conn = DatabaseManager.getConnection();
+            acquireLock(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_VERSION_TABLE_SQL);
+            }
+
+            Map<Integer, String> appliedChecksums = loadAppliedChecksums(conn);
+            for (Migration migration : migrations) {
+                String appliedChecksum = appliedChecksums.get(migration.getVersion());
+                if (appliedChecksum != null) {
+                    if (!appliedChecksum.equalsIgnoreCase(migration.getChecksum())) {
+                        throw new SQLException("Checksum mismatch for applied migration V" + migration.getVersion()
+                                + " (" + migration.getDescription() + "); migrations must not be edited once applied.");
+                    }
+                    continue;
+                }
+                apply(conn, migration);
+                applied++;
+            }
+            if (applied > 0) {
+                LOGGER.info("Applied " + applied + " schema migration(s).");
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Schema migration failed.", e);
+            throw e;
+        } finally {
+            DatabaseManager.closeConnection(conn); // Closing the session also releases the lock
+        }
+        return applied;
+    }
+
+    /**
+     * Reads and orders the migration files. Duplicate version numbers are rejected.
+     */
+    List<Migration> loadMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            LOGGER.warning("Migration directory " + directory.toAbsolutePath() + " not found; nothing to apply.");
+            return migrations;
+        }
+        Map<Integer, Path> seen = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "V*__*.sql")) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                int version = Integer.parseInt(matcher.group(1));
+                Path previous = seen.put(version, file);
+                if (previous != null) {
+                    throw new IOException("Duplicate migration version " + version + ": " + previous + " and " + file);
+                }
+                // Normalise line endings so the checksum does not depend on the checkout's EOL setting.
+                String script = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replace("\r\n", "\n");
+                migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), script));
+            }
+        }
+        migrations.sort((a, b) -> Integer.compare(a.getVersion(), b.getVersion()));
+        return migrations;
+    }
+
+    private void acquireLock(Connection conn) throws SQLException {
+        try (CallableStatement lock = conn.prepareCall(
+                "{? = call sp_getapplock(@Resource = 'SchemaMigrator', @LockMode = 'Exclusive', @LockOwner = 'Session', @LockTimeout = 60000)}")) {
+            lock.registerOutParameter(1, java.sql.Types.INTEGER);
+            lock.execute();
+            if (lock.getInt(1) < 0) {
+                throw new SQLException("Could not acquire the schema migration lock (result " + lock.getInt(1) + ").");
+            }
+        }
+    }
+
+    private Map<Integer, String> loadAppliedChecksums(Connection conn) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT Version, Checksum FROM SchemaVersion");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("Version"), rs.getString("Checksum").trim());
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Runs every batch of a migration and records it, all in one transaction.
+     */
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        LOGGER.info("Applying migration V" + migration.getVersion() + ": " + migration.getDescription());
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String batch : migration.batches()) {
+                    stmt.execute(batch);
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO SchemaVersion (Version, Description, Checksum) VALUES (?, ?, ?)")) {
+                pstmt.setInt(1, migration.getVersion());
+                pstmt.setString(2, migration.getDescription());
+                pstmt.setString(3, migration.getChecksum());
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            LOGGER.warning("Migration V" + migration.getVersion() + " failed; rolling back.");
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Command-line entry point, e.g. for CI: applies pending migrations and exits.
+     */
+    public static void main(String[] args) throws Exception {
+        SchemaMigrator migrator = args.length > 0 ? new SchemaMigrator(Paths.get(args[0])) : new SchemaMigrator();
+        System.out.println("Applied " + migrator.migrate() + " migration(s).");
+    }
+}
@@ -3,27 +3,60 @@ package com.foodordering.system;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.swing.JOptionPane; // Added for displaying messages to the user
+import javax.swing.SwingUtilities;
 
 /**
  * Singleton class for the Shopping Cart.
  * Ensures only one instance of the shopping cart exists throughout the application.
  * Now includes logic to display wrapper messages for FoodWrapper items using JOptionPane.
+ * Cart methods are synchronized because commands may mutate the cart on a CommandBus lane
+ * while the GUI reads it on the Event Dispatch Thread.
  */
 class ShoppingCart {
     private static ShoppingCart instance; // The single instance of the ShoppingCart
+    // Seeded from the clock so ids stay unique across restarts of the application (for the CommandJournal)
+    private static final AtomicLong NEXT_CART_ID = new AtomicLong(System.currentTimeMillis() << 10);
+    private static final MetricsRegistry.Counter ITEMS_ADDED = MetricsRegistry.getInstance().counter(
+            "foodordering_cart_items_added_total", "Units added to shopping carts");
+    private static final MetricsRegistry.Counter ITEMS_REMOVED = MetricsRegistry.getInstance().counter(
+            "foodordering_cart_items_removed_total", "Units removed from shopping carts, including by clearing them");
+    private static final LongAdder UNITS_IN_CARTS = new LongAdder(); // Across every cart, for the gauge
+
+    static {
+        MetricsRegistry.getInstance().gauge("foodordering_cart_units", "Units currently in shopping carts", UNITS_IN_CARTS::sum);
+    }
+
+    private final long cartId = NEXT_CART_ID.incrementAndGet();
     private Map<FoodItem, Integer> items; // Map to store item and its quantity (FoodItem -> Quantity)
     private List<ShoppingCartListener> listeners; // List of observers to notify about cart changes
+    private final boolean showDialogs; // False for headless carts (benchmarks, load tests)
+    private volatile InventoryManager inventory; // Reserves stock as items enter the cart; null if untracked
+    private CartPricing pricing; // Applies promotions; null when none are configured. Guarded by this
+    private int units; // Sum of the quantities in items. Guarded by this
 
     /**
      * Private constructor to enforce Singleton pattern.
      * Initializes the item map and listener list.
      */
     private ShoppingCart() {
+        this(true);
+    }
+
+    /**
+     * Creates a standalone cart outside the singleton, e.g. one per simulated customer session.
+     * @param showDialogs Whether addItem should show its confirmation dialogs.
+     */
+    ShoppingCart(boolean showDialogs) {
         items = new HashMap<>();
-        listeners = new ArrayList<>();
+        listeners = new CopyOnWriteArrayList<>();
+        this.showDialogs = showDialogs;
     }
 
     /**
@@ -31,32 +64,160 @@ class ShoppingCart {
      * Creates the instance if it doesn't already exist (lazy initialization).
      * @return The singleton instance of ShoppingCart.
      */
-    public static ShoppingCart getInstance() {
+    public static synchronized ShoppingCart getInstance() {
         if (instance == null) {
             instance = new ShoppingCart();
         }
         return instance;
     }
 
+    /**
+     * Reserves stock whenever items are added and releases it when they are removed.
+     * @param inventory The inventory to reserve from, or null to sell without stock limits.
+     */
+    public void setInventory(InventoryManager inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Prices the cart with the engine's promotions from now on, starting with the items already in it.
+     * @param engine The promotions to apply, or null to charge list prices.
+     */
+    public synchronized void setPromotions(PromotionEngine engine) {
+        pricing = engine == null ? null : engine.newPricing();
+        if (pricing != null) {
+            for (FoodItem item : items.keySet()) {
+                reprice(item);
+            }
+        }
+        notifyListeners();
+    }
+
+    /**
+     * @return The id that identifies this cart in the CommandJournal.
+     */
+    public long getCartId() {
+        return cartId;
+    }
+
     /**
      * Adds a FoodItem to the shopping cart or increments its quantity if already present.
      * If the item is a FoodWrapper, it displays its specific wrapper message using a JOptionPane.
      * Otherwise, a generic "Item added" message is shown.
      * @param item The FoodItem (or FoodWrapper) to be added to the cart.
+     * @return false if the item has sold out and was not added.
      */
-    public void addItem(FoodItem item) {
-        items.put(item, items.getOrDefault(item, 0) + 1); // Add item or increment quantity
-        notifyListeners(); // Notify GUI listeners about cart change
+    public boolean addItem(FoodItem item) {
+        InventoryManager stock = inventory;
+        if (stock != null && !stock.reserve(cartId, item.getFoodItemId(), 1)) {
+            if (showDialogs) {
+                showMessage(item.getName() + " has sold out.", "Sold Out");
+            }
+            return false;
+        }
+        synchronized (this) {
+            items.put(item, items.getOrDefault(item, 0) + 1); // Add item or increment quantity
+            unitsChanged(1);
+            reprice(item);
+            notifyListeners(); // Notify GUI listeners about cart change
+        }
 
         // --- START NEW/MODIFIED CODE FOR WRAPPER MESSAGE ---
+        if (!showDialogs) {
+            return true;
+        }
         if (item instanceof FoodWrapper) {
             // If the item is a FoodWrapper, display its specific wrapper message.
-            JOptionPane.showMessageDialog(null, ((FoodWrapper) item).getWrapperMessage(), "Item Packaged!", JOptionPane.INFORMATION_MESSAGE);
+            showMessage(((FoodWrapper) item).getWrapperMessage(), "Item Packaged!");
         } else {
             // For regular FoodItems (or if the FoodWrapperBuilder was not used), display a generic message.
-            JOptionPane.showMessageDialog(null, item.getName() + " added to cart!", "Item Added", JOptionPane.INFORMATION_MESSAGE);
+            showMessage(item.getName() + " added to cart!", "Item Added");
         }
         // --- END NEW/MODIFIED CODE FOR WRAPPER MESSAGE ---
+        return true;
+    }
+
+    /**
+     * Adds several items as one cart mutation with a single listener notification, e.g. when the
+     * CommandBus merges a burst of add-to-cart clicks. Repeated items increase the quantity.
+     * One combined confirmation is shown instead of a dialog per item.
+     * @param requested The items to add, in click order.
+     * @return For each requested item, in the same order, whether it was added; false if it had sold out.
+     */
+    public boolean[] addItems(List<FoodItem> requested) {
+        boolean[] reserved = new boolean[requested.size()];
+        List<FoodItem> added = new ArrayList<>(requested.size());
+        List<FoodItem> soldOut = new ArrayList<>();
+        InventoryManager stock = inventory;
+        for (int i = 0; i < reserved.length; i++) {
+            FoodItem item = requested.get(i);
+            reserved[i] = stock == null || stock.reserve(cartId, item.getFoodItemId(), 1);
+            (reserved[i] ? added : soldOut).add(item);
+        }
+        if (requested.isEmpty()) {
+            return reserved;
+        }
+        synchronized (this) {
+            for (FoodItem item : added) {
+                items.put(item, items.getOrDefault(item, 0) + 1);
+            }
+            unitsChanged(added.size());
+            for (FoodItem item : new LinkedHashSet<>(added)) {
+                reprice(item); // Once per distinct line, with its final quantity
+            }
+            notifyListeners();
+        }
+
+        if (!showDialogs) {
+            return reserved;
+        }
+        StringBuilder message = new StringBuilder();
+        for (FoodItem item : added) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(item instanceof FoodWrapper ? ((FoodWrapper) item).getWrapperMessage() : item.getName() + " added to cart!");
+        }
+        for (FoodItem item : soldOut) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(item.getName()).append(" has sold out.");
+        }
+        showMessage(message.toString(), added.isEmpty() ? "Items Unavailable" : added.size() + " Items Added");
+        return reserved;
+    }
+
+    /**
+     * Swaps cart lines for up-to-date versions of their items, keeping quantities, in one mutation.
+     * Used when checkout finds prices or availability have changed since the items were added.
+     * @param replacements Cart item to its replacement; a null replacement removes the line.
+     */
+    public synchronized void replaceItems(Map<FoodItem, FoodItem> replacements) {
+        boolean changed = false;
+        for (Map.Entry<FoodItem, FoodItem> replacement : replacements.entrySet()) {
+            // Remove first: the replacement usually has the same ID, and put() would keep the stale key
+            Integer quantity = items.remove(replacement.getKey());
+            if (quantity == null) {
+                continue;
+            }
+            changed = true;
+            if (replacement.getValue() != null) {
+                items.merge(replacement.getValue(), quantity, Integer::sum);
+            } else {
+                unitsChanged(-quantity);
+                if (inventory != null) {
+                    inventory.release(cartId, replacement.getKey().getFoodItemId(), quantity);
+                }
+            }
+            reprice(replacement.getKey());
+            if (replacement.getValue() != null) {
+                reprice(replacement.getValue()); // Last, so the line is priced with the new item
+            }
+        }
+        if (changed) {
+            notifyListeners();
+        }
     }
 
     /**
@@ -64,7 +225,7 @@ class ShoppingCart {
      * the item is completely removed from the cart.
      * @param item The FoodItem to be removed.
      */
-    public void removeItem(FoodItem item) {
+    public synchronized void removeItem(FoodItem item) {
         if (items.containsKey(item)) {
             int quantity = items.get(item);
             if (quantity > 1) {
@@ -72,6 +233,11 @@ class ShoppingCart {
             } else {
                 items.remove(item); // Remove item if quantity is 1
             }
+            unitsChanged(-1);
+            if (inventory != null) {
+                inventory.release(cartId, item.getFoodItemId(), 1); // Return the unit to stock
+            }
+            reprice(item);
             notifyListeners(); // Notify GUI listeners
         }
     }
@@ -79,8 +245,15 @@ class ShoppingCart {
     /**
      * Clears all items from the shopping cart.
      */
-    public void clearCart() {
+    public synchronized void clearCart() {
         items.clear();
+        unitsChanged(-units);
+        if (inventory != null) {
+            inventory.releaseAll(cartId); // No-op after checkout, where the reservation became a sale
+        }
+        if (pricing != null) {
+            pricing.clear();
+        }
         notifyListeners(); // Notify GUI listeners
     }
 
@@ -89,20 +262,41 @@ class ShoppingCart {
      * This prevents external modification of the cart's internal item map.
      * @return A Map where keys are FoodItem objects and values are their quantities.
      */
-    public Map<FoodItem, Integer> getCartItems() {
+    public synchronized Map<FoodItem, Integer> getCartItems() {
         return new HashMap<>(items); // Return a copy to prevent external modification
     }
 
     /**
-     * Calculates the total price of all items currently in the shopping cart.
+     * Calculates the total price of all items currently in the shopping cart, after promotions.
      * @return The total monetary value of the cart.
      */
-    public double getTotal() {
+    public synchronized double getTotal() {
+        return getSubtotal() - getDiscount();
+    }
+
+    /**
+     * @return The total at list prices, before promotions.
+     */
+    public synchronized double getSubtotal() {
         return items.entrySet().stream()
                 .mapToDouble(entry -> entry.getKey().getPrice() * entry.getValue())
                 .sum();
     }
 
+    /**
+     * @return The amount promotions currently take off the subtotal.
+     */
+    public synchronized double getDiscount() {
+        return pricing == null ? 0.0 : pricing.getDiscount();
+    }
+
+    /**
+     * @return Each promotion that currently applies, with the amount it saves.
+     */
+    public synchronized Map<Promotion, Double> getAppliedPromotions() {
+        return pricing == null ? new HashMap<>() : pricing.getAppliedPromotions();
+    }
+
     /**
      * Adds a listener to be notified when the shopping cart content changes.
      * This is part of the Observer pattern.
@@ -120,6 +314,36 @@ class ShoppingCart {
         listeners.remove(listener);
     }
 
+    /**
+     * Passes an item's new quantity to the promotion pricing. Callers hold the cart lock.
+     * Pricing works per FoodItemID, so a plain and a wrapped line of the same item count together.
+     */
+    private void reprice(FoodItem item) {
+        if (pricing != null) {
+            int quantity = 0;
+            for (Map.Entry<FoodItem, Integer> entry : items.entrySet()) {
+                if (entry.getKey().getFoodItemId() == item.getFoodItemId()) {
+                    quantity += entry.getValue();
+                }
+            }
+            pricing.update(item, quantity);
+        }
+    }
+
+    /**
+     * Keeps the cart's unit count and the metrics in step with a change of {@code delta} units.
+     * Callers hold the cart lock.
+     */
+    private void unitsChanged(int delta) {
+        if (delta > 0) {
+            ITEMS_ADDED.add(delta);
+        } else if (delta < 0) {
+            ITEMS_REMOVED.add(-delta);
+        }
+        units += delta;
+        UNITS_IN_CARTS.add(delta);
+    }
+
     /**
      * Notifies all registered listeners that the shopping cart has been updated.
      * This method is called internally whenever items are added or removed.
@@ -129,4 +353,15 @@ class ShoppingCart {
             listener.cartUpdated();
         }
     }
+
+    /**
+     * Shows a confirmation dialog on the Event Dispatch Thread, whichever thread added the item.
+     */
+    private static void showMessage(String message, String title) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            JOptionPane.showMessageDialog(null, message, title, JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, message, title, JOptionPane.INFORMATION_MESSAGE));
+        }
+    }
 }
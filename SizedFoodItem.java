@@ -194,8 +194,8 @@ class SizedFoodItem implements MenuItem {
                 FoodWrapper wrappedItem = builder.withFoodItem(selectedFoodItem).build();
                 // 3. Create the AddToCartCommand with the wrapped item
                 Command addToCartCommand = new AddToCartCommand(wrappedItem, cart);
-                // 4. Execute the command. ShoppingCart.addItem will handle the message display.
-                addToCartCommand.execute();
+                // 4. Hand the command to the CommandBus. ShoppingCart.addItem will handle the message display.
+                CommandBus.getInstance().dispatch(addToCartCommand);
                 sizeDialog.dispose(); // Close dialog after adding to cart
             } else {
                 // If no size is selected (should not happen if first is default), warn the user.
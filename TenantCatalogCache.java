@@ -0,0 +1,359 @@
+// Main package for the application
+package com.foodordering.system;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.logging.Logger;
+
+/**
+ * Catalog cache for many restaurants (tenants). Each restaurant has its own segment with its own
+ * memory budget ({@code foodordering.catalog.tenantBudgetBytes}, default 2 MiB, or setBudget per
+ * restaurant), its own LRU eviction and its own load lock, so a large menu, a slow load or a refresh
+ * at one branch never evicts or blocks another branch's entries.
+ *
+ * A restaurant's menu is loaded lazily, in two queries, the first time anything asks for it.
+ * Lookups only hold the segment's monitor for map operations; database work happens outside it.
+ * The first caller loads while concurrent callers for the same restaurant wait on its load lock,
+ * and during a refresh readers keep being served the previous menu until the new one is swapped in.
+ * A menu larger than its budget is still returned in full, but only its most recently used items
+ * stay cached and later menu requests go back to the database.
+ * A segment's contents expire {@code foodordering.catalog.ttlMillis} (default 30 s) after they were
+ * loaded, so lookups stay reasonably fresh even when no CatalogChangePoller calls invalidate.
+ */
+class TenantCatalogCache {
+    private static final Logger LOGGER = Logger.getLogger(TenantCatalogCache.class.getName());
+    private static final long DEFAULT_BUDGET_BYTES = Long.getLong("foodordering.catalog.tenantBudgetBytes", 2L << 20);
+    private static final long DEFAULT_TTL_MILLIS = Long.getLong("foodordering.catalog.ttlMillis", 30_000L);
+
+    /**
+     * One restaurant's menu as read from the database.
+     */
+    private static class MenuSnapshot {
+        final List<MenuCategory> categories; // Headers only: ID and name, in display order
+        final List<FoodItem> items;
+
+        MenuSnapshot(List<MenuCategory> categories, List<FoodItem> items) {
+            this.categories = categories;
+            this.items = items;
+        }
+    }
+
+    /**
+     * The cached catalog of one restaurant. Fields below loadLock are guarded by the segment's monitor.
+     */
+    private static class Segment {
+        final FoodItemDAO dao;
+        final Object loadLock = new Object(); // Serializes menu loads and refreshes of this restaurant only
+        final long ttlNanos;
+        volatile long budgetBytes;
+
+        final LinkedHashMap<Integer, FoodItem> items = new LinkedHashMap<>(64, 0.75f, true); // Access order
+        List<MenuCategory> categories; // Null until the menu has been loaded
+        boolean complete;              // Every item of the menu is in items
+        long bytes;
+        long generation;               // Bumped by refresh, invalidation and expiry, so stale loads are not cached
+        long expiresAtNanos;           // When the items cached since the segment was last empty go stale
+        long evictions;
+        long loads;
+
+        Segment(FoodItemDAO dao, long budgetBytes, long ttlNanos) {
+            this.dao = dao;
+            this.budgetBytes = budgetBytes;
+            this.ttlNanos = ttlNanos;
+        }
+
+        void put(FoodItem item) {
+            if (items.isEmpty() && !complete) {
+                expiresAtNanos = System.nanoTime() + ttlNanos;
+            }
+            FoodItem previous = items.put(item.getFoodItemId(), item);
+            if (previous != null) {
+                bytes -= estimateBytes(previous);
+            }
+            bytes += estimateBytes(item);
+        }
+
+        void evictOverBudget() {
+            Iterator<FoodItem> eldest = items.values().iterator();
+            while (bytes > budgetBytes && eldest.hasNext()) {
+                bytes -= estimateBytes(eldest.next());
+                eldest.remove();
+                evictions++;
+                complete = false;
+            }
+        }
+
+        /**
+         * Drops everything cached once it has expired, so the next lookup goes back to the database.
+         */
+        void expireIfStale() {
+            if ((complete || !items.isEmpty()) && System.nanoTime() - expiresAtNanos > 0) {
+                items.clear();
+                bytes = 0;
+                complete = false;
+                generation++;
+            }
+        }
+
+        void install(MenuSnapshot menu) {
+            items.clear();
+            bytes = 0;
+            complete = false;
+            expiresAtNanos = System.nanoTime() + ttlNanos;
+            for (FoodItem item : menu.items) {
+                put(item);
+            }
+            categories = menu.categories;
+            complete = true;
+            generation++;
+            loads++;
+            evictOverBudget();
+        }
+    }
+
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final IntFunction<FoodItemDAO> daoFactory;
+    private final long defaultBudgetBytes;
+    private final long ttlNanos;
+    private final Map<Integer, Long> budgets = new ConcurrentHashMap<>(); // Per-restaurant overrides
+
+    public TenantCatalogCache() {
+        this(FoodItemDAO::new);
+    }
+
+    /**
+     * @param daoFactory Creates the DAO for a restaurant ID, e.g. to reuse a DAO that already reads session-consistently.
+     */
+    TenantCatalogCache(IntFunction<FoodItemDAO> daoFactory) {
+        this(daoFactory, DEFAULT_BUDGET_BYTES, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param daoFactory Creates the DAO for a restaurant ID.
+     * @param defaultBudgetBytes Estimated item bytes each restaurant may keep cached unless setBudget says otherwise.
+     * @param ttlMillis How long loaded items are served before they are read again.
+     */
+    TenantCatalogCache(IntFunction<FoodItemDAO> daoFactory, long defaultBudgetBytes, long ttlMillis) {
+        this.daoFactory = daoFactory;
+        this.defaultBudgetBytes = defaultBudgetBytes;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Gives one restaurant a budget of its own, e.g. a larger one for a branch with a big menu.
+     * Shrinking a budget evicts that restaurant's least recently used items immediately.
+     */
+    public void setBudget(int restaurantId, long budgetBytes) {
+        budgets.put(restaurantId, budgetBytes);
+        Segment segment = segments.get(restaurantId);
+        if (segment != null) {
+            synchronized (segment) {
+                segment.budgetBytes = budgetBytes;
+                segment.evictOverBudget();
+            }
+        }
+    }
+
+    /**
+     * Returns a restaurant's menu, loading it on first use.
+     * @return Fresh MenuCategory objects holding the restaurant's items, ordered by category name.
+     * @throws SQLException If the menu had to be loaded and could not be.
+     */
+    public List<MenuCategory> getMenu(int restaurantId) throws SQLException {
+        Segment segment = segment(restaurantId);
+        synchronized (segment) {
+            segment.expireIfStale();
+            if (segment.complete) {
+                return buildMenu(segment.categories, segment.items.values());
+            }
+        }
+        synchronized (segment.loadLock) {
+            synchronized (segment) {
+                if (segment.complete) { // Loaded by the caller we waited for
+                    return buildMenu(segment.categories, segment.items.values());
+                }
+            }
+            MenuSnapshot menu = load(restaurantId, segment);
+            synchronized (segment) {
+                segment.install(menu);
+            }
+            return buildMenu(menu.categories, menu.items);
+        }
+    }
+
+    /**
+     * Returns the current items for the given IDs within one restaurant, loading all misses in one query.
+     * @return The items found, keyed by ID; IDs that do not exist in the restaurant are absent from the map.
+     * @throws SQLException If the misses could not be loaded.
+     */
+    public Map<Integer, FoodItem> getAll(int restaurantId, Collection<Integer> foodItemIds) throws SQLException {
+        Segment segment = segment(restaurantId);
+        Map<Integer, FoodItem> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        long generation;
+        synchronized (segment) {
+            segment.expireIfStale();
+            for (Integer id : foodItemIds) {
+                FoodItem item = segment.items.get(id);
+                if (item != null) {
+                    found.put(id, item);
+                } else if (!segment.complete) { // A complete menu without the ID means it does not exist
+                    misses.add(id);
+                }
+            }
+            generation = segment.generation;
+        }
+        if (!misses.isEmpty()) {
+            Map<Integer, FoodItem> loaded = segment.dao.getFoodItemsByIds(misses);
+            found.putAll(loaded);
+            synchronized (segment) {
+                if (segment.generation == generation) { // Otherwise a refresh or invalidation overtook this load
+                    for (FoodItem item : loaded.values()) {
+                        segment.put(item);
+                    }
+                    segment.evictOverBudget();
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reloads a restaurant's menu, e.g. after its prices changed. Readers of that restaurant get the
+     * previous menu until the new one is in place; other restaurants are not touched at all.
+     * @throws SQLException If the menu could not be loaded; the previous menu stays cached.
+     */
+    public void refresh(int restaurantId) throws SQLException {
+        Segment segment = segment(restaurantId);
+        synchronized (segment.loadLock) {
+            MenuSnapshot menu = load(restaurantId, segment);
+            synchronized (segment) {
+                segment.install(menu);
+            }
+        }
+    }
+
+    /**
+     * Drops one item of a restaurant so the next lookup reloads it.
+     */
+    public void invalidate(int restaurantId, int foodItemId) {
+        Segment segment = segments.get(restaurantId);
+        if (segment == null) {
+            return;
+        }
+        synchronized (segment) {
+            FoodItem removed = segment.items.remove(foodItemId);
+            if (removed != null) {
+                segment.bytes -= estimateBytes(removed);
+            }
+            segment.complete = false; // The item may also be new or moved to another category
+            segment.generation++;
+        }
+    }
+
+    /**
+     * Forgets everything cached for a restaurant, e.g. when a branch closes.
+     */
+    public void evictTenant(int restaurantId) {
+        segments.remove(restaurantId);
+    }
+
+    public int getTenantCount() {
+        return segments.size();
+    }
+
+    public long getEstimatedBytes(int restaurantId) {
+        Segment segment = segments.get(restaurantId);
+        if (segment == null) {
+            return 0;
+        }
+        synchronized (segment) {
+            return segment.bytes;
+        }
+    }
+
+    public int getCachedItemCount(int restaurantId) {
+        Segment segment = segments.get(restaurantId);
+        if (segment == null) {
+            return 0;
+        }
+        synchronized (segment) {
+            return segment.items.size();
+        }
+    }
+
+    public long getEvictionCount(int restaurantId) {
+        Segment segment = segments.get(restaurantId);
+        if (segment == null) {
+            return 0;
+        }
+        synchronized (segment) {
+            return segment.evictions;
+        }
+    }
+
+    public long getLoadCount(int restaurantId) {
+        Segment segment = segments.get(restaurantId);
+        if (segment == null) {
+            return 0;
+        }
+        synchronized (segment) {
+            return segment.loads;
+        }
+    }
+
+    private Segment segment(int restaurantId) {
+        // Creating a segment does no I/O, so computeIfAbsent never blocks other restaurants for long
+        return segments.computeIfAbsent(restaurantId, id ->
+                new Segment(daoFactory.apply(id), budgets.getOrDefault(id, defaultBudgetBytes), ttlNanos));
+    }
+
+    private static MenuSnapshot load(int restaurantId, Segment segment) throws SQLException {
+        long start = System.nanoTime();
+        List<MenuCategory> categories = segment.dao.getAllCategories();
+        List<FoodItem> items = segment.dao.getAllFoodItems();
+        LOGGER.fine("Loaded menu of restaurant " + restaurantId + ": " + categories.size() + " categories, "
+                + items.size() + " items in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return new MenuSnapshot(categories, items);
+    }
+
+    /**
+     * Builds a new menu tree for the caller, who may add to or rearrange it freely.
+     */
+    private static List<MenuCategory> buildMenu(List<MenuCategory> categories, Collection<FoodItem> items) {
+        Map<Integer, MenuCategory> byId = new LinkedHashMap<>();
+        for (MenuCategory header : categories) {
+            byId.put(header.getCategoryId(), new MenuCategory(header.getName(), header.getCategoryId()));
+        }
+        List<FoodItem> sorted = new ArrayList<>(items);
+        sorted.sort((a, b) -> Integer.compare(a.getFoodItemId(), b.getFoodItemId()));
+        for (FoodItem item : sorted) {
+            MenuCategory category = byId.get(item.getCategoryId());
+            if (category != null) {
+                category.add(item);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * Rough heap footprint of a cached item: object headers, fields, the map entry and the
+     * character data of its strings. The category descriptor is shared, so it is not counted.
+     */
+    static long estimateBytes(FoodItem item) {
+        return 120 + 2L * (length(item.getName()) + length(item.getDescription()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -7,6 +7,6 @@ package com.foodordering.system;
 class WrapRollFactory implements FoodItemFactory {
     @Override
     public FoodItem createFoodItem(String name, double price, String description) {
-        return new FoodItem(name, price, description, "Wraps & Rolls");
+        return CategoryRegistry.WRAPS_AND_ROLLS.createFoodItem(name, price, description);
     }
 }
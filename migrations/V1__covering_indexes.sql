@@ -0,0 +1,17 @@
+-- Covering indexes for the hot DAO and order queries.
+-- Without them getFoodItemsByCategory and every order lookup scan their whole table.
+
+-- FoodItemDAO.getFoodItemsByCategory: WHERE CategoryID = ?, reads Name, Price, Description
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_FoodItems_CategoryID' AND object_id = OBJECT_ID(N'[dbo].[FoodItems]'))
+    CREATE NONCLUSTERED INDEX IX_FoodItems_CategoryID ON FoodItems (CategoryID) INCLUDE (Name, Price, Description);
+GO
+
+-- Order lookups and exports join OrderDetails on OrderID
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_OrderDetails_OrderID' AND object_id = OBJECT_ID(N'[dbo].[OrderDetails]'))
+    CREATE NONCLUSTERED INDEX IX_OrderDetails_OrderID ON OrderDetails (OrderID) INCLUDE (FoodItemID, Quantity, PricePerItem);
+GO
+
+-- Time-window reads (sales analytics seeding) filter Orders on OrderDate
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Orders_OrderDate' AND object_id = OBJECT_ID(N'[dbo].[Orders]'))
+    CREATE NONCLUSTERED INDEX IX_Orders_OrderDate ON Orders (OrderDate) INCLUDE (TotalAmount);
+GO
@@ -0,0 +1,30 @@
+-- Single-row catalog version, bumped on every change to Categories or FoodItems.
+-- Clients compare it with the version they loaded to decide whether cached menu data is stale.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[CatalogVersion]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE CatalogVersion (
+        CatalogVersionID TINYINT PRIMARY KEY CHECK (CatalogVersionID = 1),
+        Version BIGINT NOT NULL,
+        UpdatedAt DATETIME NOT NULL DEFAULT GETDATE()
+    );
+    INSERT INTO CatalogVersion (CatalogVersionID, Version) VALUES (1, 1);
+END
+GO
+
+CREATE TRIGGER TR_FoodItems_CatalogVersion ON FoodItems
+AFTER INSERT, UPDATE, DELETE
+AS
+BEGIN
+    SET NOCOUNT ON;
+    UPDATE CatalogVersion SET Version = Version + 1, UpdatedAt = GETDATE() WHERE CatalogVersionID = 1;
+END
+GO
+
+CREATE TRIGGER TR_Categories_CatalogVersion ON Categories
+AFTER INSERT, UPDATE, DELETE
+AS
+BEGIN
+    SET NOCOUNT ON;
+    UPDATE CatalogVersion SET Version = Version + 1, UpdatedAt = GETDATE() WHERE CatalogVersionID = 1;
+END
+GO
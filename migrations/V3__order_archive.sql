@@ -0,0 +1,34 @@
+-- Cold storage for orders older than the retention window, filled in batches by OrderArchiver.
+-- IDs are copied from the hot tables, so the archive has no IDENTITY columns.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[OrdersArchive]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE OrdersArchive (
+        OrderID INT PRIMARY KEY,
+        CustomerName NVARCHAR(255) NOT NULL,
+        CustomerAddress NVARCHAR(500) NOT NULL,
+        OrderDate DATETIME,
+        TotalAmount DECIMAL(10, 2) NOT NULL,
+        ArchivedOn DATETIME NOT NULL DEFAULT GETDATE()
+    );
+    CREATE NONCLUSTERED INDEX IX_OrdersArchive_CustomerName ON OrdersArchive (CustomerName) INCLUDE (OrderDate, TotalAmount);
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[OrderDetailsArchive]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE OrderDetailsArchive (
+        OrderDetailID INT PRIMARY KEY,
+        OrderID INT NOT NULL,
+        FoodItemID INT NOT NULL,
+        Quantity INT NOT NULL,
+        PricePerItem DECIMAL(10, 2) NOT NULL,
+        FOREIGN KEY (OrderID) REFERENCES OrdersArchive(OrderID)
+    );
+    CREATE NONCLUSTERED INDEX IX_OrderDetailsArchive_OrderID ON OrderDetailsArchive (OrderID) INCLUDE (FoodItemID, Quantity, PricePerItem);
+END
+GO
+
+-- Customer order history lookups on the hot table
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Orders_CustomerName' AND object_id = OBJECT_ID(N'[dbo].[Orders]'))
+    CREATE NONCLUSTERED INDEX IX_Orders_CustomerName ON Orders (CustomerName) INCLUDE (OrderDate, TotalAmount);
+GO
@@ -0,0 +1,10 @@
+-- Client-generated key carried by every order delivered through the OrderOutbox, so a replayed
+-- delivery finds the order it already created instead of inserting a duplicate.
+-- Orders placed before this migration keep a NULL key; the filtered index only covers keyed rows.
+IF COL_LENGTH('dbo.Orders', 'IdempotencyKey') IS NULL
+    ALTER TABLE Orders ADD IdempotencyKey VARCHAR(36) NULL;
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.indexes WHERE name = 'UX_Orders_IdempotencyKey' AND object_id = OBJECT_ID(N'[dbo].[Orders]'))
+    CREATE UNIQUE NONCLUSTERED INDEX UX_Orders_IdempotencyKey ON Orders (IdempotencyKey) WHERE IdempotencyKey IS NOT NULL;
+GO
@@ -0,0 +1,40 @@
+-- Change log behind the live catalog feed. The V2 triggers now also record which item or category
+-- changed, so clients that see CatalogVersion move fetch only the rows after their last ChangeID
+-- (a seek on the clustered key) instead of reloading the menu.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[CatalogChanges]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE CatalogChanges (
+        ChangeID BIGINT IDENTITY(1,1) PRIMARY KEY,
+        FoodItemID INT NULL, -- NULL for category changes
+        CategoryID INT NULL,
+        ChangeType CHAR(1) NOT NULL CHECK (ChangeType IN ('I', 'U', 'D')),
+        ChangedAt DATETIME NOT NULL DEFAULT GETDATE()
+    );
+END
+GO
+
+ALTER TRIGGER TR_FoodItems_CatalogVersion ON FoodItems
+AFTER INSERT, UPDATE, DELETE
+AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO CatalogChanges (FoodItemID, CategoryID, ChangeType)
+    SELECT COALESCE(i.FoodItemID, d.FoodItemID), COALESCE(i.CategoryID, d.CategoryID),
+           CASE WHEN d.FoodItemID IS NULL THEN 'I' WHEN i.FoodItemID IS NULL THEN 'D' ELSE 'U' END
+    FROM inserted i FULL OUTER JOIN deleted d ON i.FoodItemID = d.FoodItemID;
+    UPDATE CatalogVersion SET Version = Version + 1, UpdatedAt = GETDATE() WHERE CatalogVersionID = 1;
+END
+GO
+
+ALTER TRIGGER TR_Categories_CatalogVersion ON Categories
+AFTER INSERT, UPDATE, DELETE
+AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO CatalogChanges (FoodItemID, CategoryID, ChangeType)
+    SELECT NULL, COALESCE(i.CategoryID, d.CategoryID),
+           CASE WHEN d.CategoryID IS NULL THEN 'I' WHEN i.CategoryID IS NULL THEN 'D' ELSE 'U' END
+    FROM inserted i FULL OUTER JOIN deleted d ON i.CategoryID = d.CategoryID;
+    UPDATE CatalogVersion SET Version = Version + 1, UpdatedAt = GETDATE() WHERE CatalogVersionID = 1;
+END
+GO
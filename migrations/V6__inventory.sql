@@ -0,0 +1,12 @@
+-- Stock on hand per food item, kept in memory by InventoryManager and reconciled in batches.
+-- Items without a row are not stock-tracked and can always be sold.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[Inventory]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE Inventory (
+        FoodItemID INT PRIMARY KEY,
+        QuantityAvailable INT NOT NULL CHECK (QuantityAvailable >= 0),
+        UpdatedAt DATETIME NOT NULL DEFAULT GETDATE(),
+        FOREIGN KEY (FoodItemID) REFERENCES FoodItems(FoodItemID) ON DELETE CASCADE
+    );
+END
+GO
@@ -0,0 +1,36 @@
+-- Promotion rules evaluated by PromotionEngine. Each rule targets one item (FoodItemID) or one
+-- category (CategoryID); combo bundles list their components in PromotionItems instead.
+-- No foreign keys to FoodItems/Categories: a rule for a deleted item simply never matches again.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[Promotions]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE Promotions (
+        PromotionID INT IDENTITY(1,1) PRIMARY KEY,
+        Name NVARCHAR(100) NOT NULL,
+        RuleType VARCHAR(20) NOT NULL CHECK (RuleType IN ('PERCENT_OFF', 'BUY_X_GET_Y', 'COMBO')),
+        FoodItemID INT NULL,
+        CategoryID INT NULL,
+        PercentOff DECIMAL(5, 2) NULL,   -- PERCENT_OFF: 0-100
+        BuyQuantity INT NULL,            -- BUY_X_GET_Y: pay for this many...
+        FreeQuantity INT NULL,           -- ...and get this many more free
+        BundlePrice DECIMAL(10, 2) NULL, -- COMBO: price of one complete bundle
+        ValidFrom DATETIME NULL,         -- NULL: no start date
+        ValidTo DATETIME NULL,           -- NULL: no end date
+        StartTime TIME NULL,             -- Daily window, e.g. happy hour; an EndTime before StartTime crosses midnight
+        EndTime TIME NULL,
+        DaysOfWeek TINYINT NOT NULL DEFAULT 127, -- Bit 0 = Monday ... bit 6 = Sunday
+        IsActive BIT NOT NULL DEFAULT 1
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[PromotionItems]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE PromotionItems (
+        PromotionID INT NOT NULL,
+        FoodItemID INT NOT NULL,
+        Quantity INT NOT NULL DEFAULT 1 CHECK (Quantity > 0),
+        PRIMARY KEY (PromotionID, FoodItemID),
+        FOREIGN KEY (PromotionID) REFERENCES Promotions(PromotionID) ON DELETE CASCADE
+    );
+END
+GO
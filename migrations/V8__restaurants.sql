@@ -0,0 +1,54 @@
+-- Restaurants (branches) for tenant-aware catalogs. Every category and food item belongs to one
+-- restaurant; rows that existed before this migration belong to restaurant 1.
+IF NOT EXISTS (SELECT * FROM sysobjects WHERE id = OBJECT_ID(N'[dbo].[Restaurants]') AND OBJECTPROPERTY(id, N'IsUserTable') = 1)
+BEGIN
+    CREATE TABLE Restaurants (
+        RestaurantID INT IDENTITY(1,1) PRIMARY KEY,
+        Name NVARCHAR(200) NOT NULL,
+        IsActive BIT NOT NULL DEFAULT 1
+    );
+END
+GO
+
+IF NOT EXISTS (SELECT 1 FROM Restaurants WHERE RestaurantID = 1)
+BEGIN
+    SET IDENTITY_INSERT Restaurants ON;
+    INSERT INTO Restaurants (RestaurantID, Name) VALUES (1, N'Main Branch');
+    SET IDENTITY_INSERT Restaurants OFF;
+END
+GO
+
+IF COL_LENGTH('dbo.Categories', 'RestaurantID') IS NULL
+    ALTER TABLE Categories ADD RestaurantID INT NOT NULL
+        CONSTRAINT DF_Categories_RestaurantID DEFAULT 1
+        CONSTRAINT FK_Categories_Restaurants REFERENCES Restaurants(RestaurantID);
+GO
+
+IF COL_LENGTH('dbo.FoodItems', 'RestaurantID') IS NULL
+    ALTER TABLE FoodItems ADD RestaurantID INT NOT NULL
+        CONSTRAINT DF_FoodItems_RestaurantID DEFAULT 1
+        CONSTRAINT FK_FoodItems_Restaurants REFERENCES Restaurants(RestaurantID);
+GO
+
+-- Category names were unique across the whole system; now they only need to be unique per restaurant.
+-- The original UNIQUE constraint was created without a name, so look it up.
+DECLARE @constraint SYSNAME;
+SELECT @constraint = kc.name
+FROM sys.key_constraints kc
+JOIN sys.index_columns ic ON ic.object_id = kc.parent_object_id AND ic.index_id = kc.unique_index_id
+JOIN sys.columns col ON col.object_id = ic.object_id AND col.column_id = ic.column_id
+WHERE kc.parent_object_id = OBJECT_ID(N'[dbo].[Categories]') AND kc.type = 'UQ' AND col.name = 'CategoryName'
+  AND (SELECT COUNT(*) FROM sys.index_columns ic2
+       WHERE ic2.object_id = kc.parent_object_id AND ic2.index_id = kc.unique_index_id) = 1;
+IF @constraint IS NOT NULL
+    EXEC('ALTER TABLE Categories DROP CONSTRAINT ' + @constraint);
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints WHERE name = 'UQ_Categories_Restaurant_Name')
+    ALTER TABLE Categories ADD CONSTRAINT UQ_Categories_Restaurant_Name UNIQUE (RestaurantID, CategoryName);
+GO
+
+-- FoodItemDAO: every menu query is scoped to one restaurant
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_FoodItems_RestaurantID_CategoryID' AND object_id = OBJECT_ID(N'[dbo].[FoodItems]'))
+    CREATE NONCLUSTERED INDEX IX_FoodItems_RestaurantID_CategoryID ON FoodItems (RestaurantID, CategoryID) INCLUDE (Name, Price, Description);
+GO
@@ -0,0 +1,40 @@
+-- Scopes the catalog change feed to a restaurant: each CatalogChanges row records the RestaurantID of
+-- the item or category that changed, so a client polls only its own branch's changes instead of
+-- every restaurant's. Existing rows take the restaurant of the row they refer to; changes to rows
+-- that no longer exist are assigned to restaurant 1, which owned every row before V8.
+IF COL_LENGTH('dbo.CatalogChanges', 'RestaurantID') IS NULL
+    ALTER TABLE CatalogChanges ADD RestaurantID INT NULL;
+GO
+
+UPDATE ch SET RestaurantID = COALESCE(f.RestaurantID, c.RestaurantID, 1)
+FROM CatalogChanges ch
+LEFT JOIN FoodItems f ON f.FoodItemID = ch.FoodItemID
+LEFT JOIN Categories c ON c.CategoryID = ch.CategoryID
+WHERE ch.RestaurantID IS NULL;
+GO
+
+ALTER TRIGGER TR_FoodItems_CatalogVersion ON FoodItems
+AFTER INSERT, UPDATE, DELETE
+AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO CatalogChanges (FoodItemID, CategoryID, RestaurantID, ChangeType)
+    SELECT COALESCE(i.FoodItemID, d.FoodItemID), COALESCE(i.CategoryID, d.CategoryID), COALESCE(i.RestaurantID, d.RestaurantID),
+           CASE WHEN d.FoodItemID IS NULL THEN 'I' WHEN i.FoodItemID IS NULL THEN 'D' ELSE 'U' END
+    FROM inserted i FULL OUTER JOIN deleted d ON i.FoodItemID = d.FoodItemID;
+    UPDATE CatalogVersion SET Version = Version + 1, UpdatedAt = GETDATE() WHERE CatalogVersionID = 1;
+END
+GO
+
+ALTER TRIGGER TR_Categories_CatalogVersion ON Categories
+AFTER INSERT, UPDATE, DELETE
+AS
+BEGIN
+    SET NOCOUNT ON;
+    INSERT INTO CatalogChanges (FoodItemID, CategoryID, RestaurantID, ChangeType)
+    SELECT NULL, COALESCE(i.CategoryID, d.CategoryID), COALESCE(i.RestaurantID, d.RestaurantID),
+           CASE WHEN d.CategoryID IS NULL THEN 'I' WHEN i.CategoryID IS NULL THEN 'D' ELSE 'U' END
+    FROM inserted i FULL OUTER JOIN deleted d ON i.CategoryID = d.CategoryID;
+    UPDATE CatalogVersion SET Version = Version + 1, UpdatedAt = GETDATE() WHERE CatalogVersionID = 1;
+END
+GO